@@ -0,0 +1,139 @@
+package benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+
+import util.StreamDateCodec;
+
+//@author A0096529N
+/**
+ * <p>
+ * Measures the per-task cost of formatting and parsing storage dates, before
+ * (a shared SimpleDateFormat, as used by StreamIO) and after
+ * (StreamDateCodec). Reports nanoseconds and, where the JVM supports it,
+ * bytes allocated per operation.
+ * </p>
+ *
+ * <h3>Usage</h3>
+ * <p>
+ * java benchmark.StreamDateCodecBenchmark [operations]
+ * </p>
+ *
+ * @version V0.5
+ */
+public class StreamDateCodecBenchmark {
+
+	private static final String PATTERN = "yyyyMMddHHmmss";
+	private static final int DEFAULT_OPERATIONS = 1000000;
+	private static final int WARMUP_ROUNDS = 3;
+	private static final String RESULT_FORMAT = "%-28s %10.1f ns/op %10s B/op";
+
+	private final int operations;
+	private final long[] millis;
+	private final String[] texts;
+	private long sink;
+
+	private StreamDateCodecBenchmark(int operations) {
+		this.operations = operations;
+		this.millis = new long[1024];
+		this.texts = new String[millis.length];
+		Calendar calendar = Calendar.getInstance();
+		calendar.set(2014, Calendar.JANUARY, 1, 0, 0, 0);
+		for (int i = 0; i < millis.length; i++) {
+			calendar.add(Calendar.MINUTE, 7919);
+			millis[i] = calendar.getTimeInMillis() / 1000 * 1000;
+			texts[i] = StreamDateCodec.STORAGE.format(millis[i]);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		int operations = args.length > 0 ? Integer.parseInt(args[0])
+				: DEFAULT_OPERATIONS;
+		StreamDateCodecBenchmark benchmark = new StreamDateCodecBenchmark(
+				operations);
+		for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+			boolean isReported = round == WARMUP_ROUNDS;
+			if (isReported) {
+				System.out.println(String.format("%d operations each",
+						operations));
+			}
+			benchmark.run(isReported);
+		}
+		System.out.println("checksum " + benchmark.sink);
+	}
+
+	private void run(boolean isReported) throws ParseException {
+		final SimpleDateFormat dateFormat = new SimpleDateFormat(PATTERN,
+				Locale.ENGLISH);
+		final StreamDateCodec codec = StreamDateCodec.STORAGE;
+
+		measure("format SimpleDateFormat", isReported, new Operation() {
+			@Override
+			public long run(int i) {
+				return dateFormat.format(new Date(millis[i])).length();
+			}
+		});
+		measure("format StreamDateCodec", isReported, new Operation() {
+			@Override
+			public long run(int i) {
+				return codec.format(millis[i]).length();
+			}
+		});
+		measure("parse SimpleDateFormat", isReported, new Operation() {
+			@Override
+			public long run(int i) throws ParseException {
+				Calendar calendar = Calendar.getInstance();
+				calendar.setTime(dateFormat.parse(texts[i]));
+				return calendar.getTimeInMillis();
+			}
+		});
+		measure("parse StreamDateCodec", isReported, new Operation() {
+			@Override
+			public long run(int i) throws ParseException {
+				return codec.parse(texts[i]);
+			}
+		});
+	}
+
+	private void measure(String name, boolean isReported, Operation operation)
+			throws ParseException {
+		long allocatedBefore = getAllocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < operations; i++) {
+			sink += operation.run(i & (millis.length - 1));
+		}
+		long elapsed = System.nanoTime() - start;
+		long allocated = getAllocatedBytes() - allocatedBefore;
+		if (isReported) {
+			String bytesPerOperation = allocatedBefore < 0 ? "n/a" : String
+					.valueOf(allocated / operations);
+			System.out.println(String.format(RESULT_FORMAT, name,
+					(double) elapsed / operations, bytesPerOperation));
+		}
+	}
+
+	/**
+	 * @return bytes allocated by the current thread, or -1 if not supported
+	 */
+	private static long getAllocatedBytes() {
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		try {
+			Method method = Class.forName("com.sun.management.ThreadMXBean")
+					.getMethod("getThreadAllocatedBytes", long.class);
+			return (Long) method.invoke(threadBean, Thread.currentThread()
+					.getId());
+		} catch (Exception e) {
+			return -1;
+		}
+	}
+
+	private interface Operation {
+		long run(int i) throws ParseException;
+	}
+}
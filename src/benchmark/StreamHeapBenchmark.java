@@ -0,0 +1,295 @@
+package benchmark;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import logic.StreamLogic;
+import model.RankType;
+import model.StreamObject;
+import model.StreamTask;
+import util.StreamConstants;
+import exception.StreamIOException;
+import fileio.StreamIO;
+
+//@author A0096529N
+/**
+ * <p>
+ * Measures the heap retained by the task model once a store is loaded.
+ * Synthetic stores of each size are generated with descriptions, tags, dates
+ * and ranks in proportions like those of a real store, saved, then loaded
+ * back into a StreamObject as Stream does. One search and one filter are run
+ * before measuring, so that the figures include the indexes and the task
+ * table that are built as the store is used. Reports retained bytes per task,
+ * the load time, the time of the first search and filter, and the garbage
+ * collections that ran during both.
+ * </p>
+ *
+ * <p>
+ * Run with a fixed heap (e.g. -Xms4g -Xmx4g) so that the figures of different
+ * runs can be compared. The benchmark files are written to the Stream
+ * directory and deleted afterwards.
+ * </p>
+ *
+ * <h3>Usage</h3>
+ * <p>
+ * java benchmark.StreamHeapBenchmark [json|binary] [tasks...]
+ * </p>
+ *
+ * @version V0.5
+ */
+public class StreamHeapBenchmark {
+
+	private static final int[] DEFAULT_SIZES = { 1000, 10000, 100000, 1000000 };
+	private static final String FILENAME = "heap-benchmark";
+	private static final long SEED = 2103L;
+	private static final long DAY = 86400000L;
+	private static final int SETTLE_ROUNDS = 3;
+	private static final int MAX_SETTLE_ROUNDS = 20;
+	private static final long SETTLE_PAUSE_MILLIS = 50;
+	private static final String HEADER_FORMAT = "%-10s %12s %12s %12s %10s %8s %10s";
+	private static final String RESULT_FORMAT = "%-10d %12.1f %12.1f %12.1f %10d %8d %10d";
+	private static final String SEARCH_KEYPHRASE = "report";
+	private static final String FILTER_CRITERIA = "done";
+
+	private static final String[] VERBS = { "Buy", "Call", "Email", "Finish",
+			"Submit", "Review", "Prepare", "Book", "Pay", "Meet", "Read",
+			"Fix", "Plan", "Return", "Print", "Clean" };
+	private static final String[] OBJECTS = { "groceries", "mom", "tutor",
+			"report", "assignment", "slides", "flight", "rent", "project team",
+			"chapter 4", "bug in parser", "holiday trip", "library books",
+			"lecture notes", "room", "presentation" };
+	private static final String[] WORDS = { "before", "the", "meeting", "on",
+			"monday", "remember", "to", "bring", "laptop", "and", "charger",
+			"check", "with", "lecturer", "about", "deadline", "extension",
+			"for", "tutorial", "group", "at", "utown", "after", "lunch",
+			"print", "two", "copies", "of", "final", "draft" };
+	private static final String[] TAGS = { "SCHOOL", "WORK", "HOME", "CS2103",
+			"CS2101", "MA1101R", "URGENT", "LATER", "ERRANDS", "FAMILY",
+			"FINANCE", "HEALTH", "READING", "PROJECT", "CCA", "TRAVEL" };
+	private static final RankType[] RANKS = { RankType.HI, RankType.MED,
+			RankType.LO, RankType.LO };
+
+	private final Random random = new Random(SEED);
+	private final long now = System.currentTimeMillis() / 1000 * 1000;
+
+	public static void main(String[] args) throws Exception {
+		String extension = StreamConstants.SAVEFILE_EXTENSION;
+		List<Integer> sizes = new ArrayList<Integer>();
+		for (String arg : args) {
+			if (arg.equals("binary")) {
+				extension = StreamConstants.BINARY_SAVEFILE_EXTENSION;
+			} else if (!arg.equals("json")) {
+				sizes.add(Integer.parseInt(arg));
+			}
+		}
+		if (sizes.isEmpty()) {
+			for (int size : DEFAULT_SIZES) {
+				sizes.add(size);
+			}
+		}
+
+		StreamHeapBenchmark benchmark = new StreamHeapBenchmark();
+		System.out.println(String.format(HEADER_FORMAT, "tasks", "B/task",
+				"load ms", "query ms", "file KB", "GCs", "GC ms"));
+		for (int size : sizes) {
+			benchmark.run(size, FILENAME + "-" + size + extension);
+		}
+	}
+
+	private void run(int size, String filename) throws StreamIOException {
+		StreamIO.setFilename(filename);
+		StreamIO.setJournaling(false);
+		File file = new File(StreamIO.getSaveLocation());
+		StreamObject streamObject = null;
+		try {
+			writeStore(size);
+			long fileSize = file.length();
+
+			long heapBefore = getSettledHeap();
+			long gcCountBefore = getCollectionCount();
+			long gcTimeBefore = getCollectionTime();
+			long start = System.nanoTime();
+			streamObject = load();
+			long loadTime = System.nanoTime() - start;
+			start = System.nanoTime();
+			StreamLogic streamLogic = StreamLogic.init(streamObject);
+			streamLogic.findTasks(SEARCH_KEYPHRASE);
+			streamLogic.filterTasks(FILTER_CRITERIA);
+			long queryTime = System.nanoTime() - start;
+			long gcCount = getCollectionCount() - gcCountBefore;
+			long gcTime = getCollectionTime() - gcTimeBefore;
+			long retained = getSettledHeap() - heapBefore;
+
+			if (streamObject.size() != size) {
+				throw new IllegalStateException("Loaded "
+						+ streamObject.size() + " of " + size + " tasks");
+			}
+			System.out.println(String.format(RESULT_FORMAT, size,
+					(double) retained / size, loadTime / 1e6,
+					queryTime / 1e6, fileSize / 1024, gcCount, gcTime));
+		} finally {
+			if (streamObject != null) {
+				// nothing of this size may be left for the next to measure
+				streamObject.clear();
+			}
+			deleteFiles(file);
+			StreamIO.setJournaling(true);
+		}
+	}
+
+	/**
+	 * Loads the store the way Stream does, into a new StreamObject that only
+	 * the calling run can reach, so that the indexes and the task table are
+	 * built along with the tasks.
+	 */
+	private static StreamObject load() throws StreamIOException {
+		HashMap<String, StreamTask> taskMap = new HashMap<String, StreamTask>();
+		ArrayList<String> taskList = new ArrayList<String>();
+		StreamIO.load(taskMap, taskList);
+		StreamObject streamObject = StreamObject.getInstance();
+		streamObject.setTaskList(taskList);
+		streamObject.setTaskMap(taskMap);
+		return streamObject;
+	}
+
+	/**
+	 * Generates and saves a store of the given size, leaving nothing of it
+	 * reachable afterwards.
+	 */
+	private void writeStore(int size) throws StreamIOException {
+		Map<String, StreamTask> taskMap = new HashMap<String, StreamTask>();
+		List<String> taskList = new ArrayList<String>(size);
+		for (int i = 0; i < size; i++) {
+			StreamTask task = generateTask(i);
+			taskMap.put(task.getKey(), task);
+			taskList.add(task.getTaskName());
+		}
+		StreamIO.save(taskMap, taskList);
+	}
+
+	private StreamTask generateTask(int i) {
+		StreamTask task = new StreamTask(pick(VERBS) + " " + pick(OBJECTS)
+				+ " " + i);
+		if (random.nextInt(10) < 6) {
+			task.setDescription(generateDescription());
+		}
+		int tagCount = random.nextInt(4);
+		for (int t = 0; t < tagCount; t++) {
+			String tag = pick(TAGS);
+			if (!task.hasTag(tag)) {
+				task.getTags().add(tag);
+			}
+		}
+		if (random.nextInt(10) < 7) {
+			task.setDeadlineMillis(now + randomOffset(60));
+			if (random.nextInt(10) < 3) {
+				task.setStartTimeMillis(task.getDeadlineMillis()
+						- randomOffset(7) - DAY * 7);
+			}
+		}
+		task.setRankType(RANKS[random.nextInt(RANKS.length)]);
+		if (random.nextInt(10) < 3) {
+			task.setDone(true);
+			task.setDoneTimeMillis(now - randomOffset(30) - DAY * 30);
+		}
+		return task;
+	}
+
+	private String generateDescription() {
+		int wordCount = 3 + random.nextInt(12);
+		StringBuilder description = new StringBuilder(pick(WORDS));
+		for (int w = 1; w < wordCount; w++) {
+			description.append(' ').append(pick(WORDS));
+		}
+		return description.toString();
+	}
+
+	private String pick(String[] values) {
+		return values[random.nextInt(values.length)];
+	}
+
+	/**
+	 * @return a whole number of seconds between minus and plus the given
+	 *         number of days
+	 */
+	private long randomOffset(int days) {
+		return (long) (random.nextInt(2 * days * 86400) - days * 86400) * 1000;
+	}
+
+	/**
+	 * Collects until the heap in use stops shrinking. Objects left by the
+	 * previous run may only be freed by a later collection, after their
+	 * references are processed, so a single collection that frees nothing
+	 * does not mean the heap has settled.
+	 *
+	 * @return heap in use once settled
+	 */
+	private static long getSettledHeap() {
+		MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+		long used = Long.MAX_VALUE;
+		int unchangedRounds = 0;
+		for (int round = 0; round < MAX_SETTLE_ROUNDS
+				&& unchangedRounds < SETTLE_ROUNDS; round++) {
+			System.gc();
+			System.runFinalization();
+			sleep(SETTLE_PAUSE_MILLIS);
+			long current = memoryBean.getHeapMemoryUsage().getUsed();
+			if (current < used) {
+				used = current;
+				unchangedRounds = 0;
+			} else {
+				unchangedRounds++;
+			}
+		}
+		return used;
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static long getCollectionCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gcBean : ManagementFactory
+				.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, gcBean.getCollectionCount());
+		}
+		return count;
+	}
+
+	private static long getCollectionTime() {
+		long time = 0;
+		for (GarbageCollectorMXBean gcBean : ManagementFactory
+				.getGarbageCollectorMXBeans()) {
+			time += Math.max(0, gcBean.getCollectionTime());
+		}
+		return time;
+	}
+
+	/**
+	 * Deletes the benchmark store and the previous versions and journal kept
+	 * next to it.
+	 */
+	private static void deleteFiles(File file) {
+		File[] siblings = file.getAbsoluteFile().getParentFile().listFiles();
+		if (siblings == null) {
+			return;
+		}
+		for (File sibling : siblings) {
+			if (sibling.getName().startsWith(FILENAME)) {
+				sibling.delete();
+			}
+		}
+	}
+}
@@ -0,0 +1,188 @@
+package fileio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+
+import model.StreamObject;
+import model.StreamTask;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import util.StreamConstants;
+import exception.StreamIOException;
+
+//@author A0096529N
+public class StreamArchiveTest {
+
+	private static final String TEST_FILENAME = "streamarchivetest"
+			+ StreamConstants.SAVEFILE_EXTENSION;
+	private StreamObject streamObject;
+
+	@Before
+	public void setUp() throws Exception {
+		StreamIO.setFilename(TEST_FILENAME);
+		StreamIO.setArchiveAge(StreamConstants.ARCHIVE_AGE_DAYS);
+		deleteTestFiles();
+		streamObject = StreamObject.getInstance();
+
+		addTask("Ongoing");
+		addDoneTask("Done Today", 0);
+		addDoneTask("Done Last Year", 365);
+		addDoneTask("Done Last Month", StreamConstants.ARCHIVE_AGE_DAYS + 1)
+				.getTags().add("HISTORY");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		deleteTestFiles();
+		StreamIO.setArchiveAge(StreamConstants.ARCHIVE_AGE_DAYS);
+	}
+
+	@Test
+	public void archiveTest() throws Exception {
+		assertEquals("Archived tasks", 2, archive());
+		assertEquals("Remaining list",
+				Arrays.asList("Ongoing", "Done Today"),
+				streamObject.getTaskList());
+		assertEquals("Remaining map", 2, streamObject.getTaskMap().size());
+		assertTrue("Archive file written", getArchiveFile().exists());
+
+		assertEquals("Nothing more to archive", 0, archive());
+	}
+
+	@Test
+	public void archiveDisabledTest() throws Exception {
+		StreamIO.setArchiveAge(-1);
+		assertEquals("Archiving disabled", 0, archive());
+		assertEquals("Nothing archived", 4, streamObject.size());
+		assertFalse("No archive file", getArchiveFile().exists());
+	}
+
+	@Test
+	public void readArchiveTest() throws Exception {
+		Calendar doneTime = streamObject.get("Done Last Month").getDoneTime();
+		archive();
+		StreamIO.save(streamObject.getTaskMap(), streamObject.getTaskList());
+
+		HashMap<String, StreamTask> loadedMap = new HashMap<String, StreamTask>();
+		ArrayList<String> loadedList = new ArrayList<String>();
+		StreamIO.load(loadedMap, loadedList);
+		assertEquals("Archived tasks not loaded",
+				Arrays.asList("Ongoing", "Done Today"), loadedList);
+
+		StreamMappedStore archive = StreamIO.openArchive();
+		try {
+			assertEquals("Archived tasks", 2, archive.size());
+			assertEquals("Archived in order", "Done Last Year",
+					archive.getTaskName(0));
+			StreamTask archived = archive.findTask("Done Last Month");
+			assertTrue("Archived as done", archived.isDone());
+			assertTrue("Archived with tags", archived.hasTag("HISTORY"));
+			assertEquals("Archived with done time",
+					doneTime.getTimeInMillis(), archived.getDoneTime()
+							.getTimeInMillis());
+		} finally {
+			archive.close();
+		}
+		assertTrue("Archive file kept", getArchiveFile().exists());
+	}
+
+	@Test
+	public void unarchiveTest() throws Exception {
+		archive();
+		StreamIO.unarchive("done last year");
+		StreamMappedStore archive = StreamIO.openArchive();
+		try {
+			assertEquals("Other task kept", 1, archive.size());
+			assertEquals("Other task kept", "Done Last Month",
+					archive.getTaskName(0));
+		} finally {
+			archive.close();
+		}
+
+		StreamIO.unarchive("Done Last Month");
+		assertFalse("Empty archive deleted", getArchiveFile().exists());
+		assertNull("Nothing archived", StreamIO.openArchive());
+	}
+
+	@Test
+	public void archiveMergeTest() throws Exception {
+		archive();
+		addDoneTask("Done Long Ago", 1000);
+		assertEquals("Archived again", 1, archive());
+		StreamMappedStore archive = StreamIO.openArchive();
+		try {
+			assertEquals("Merged archive", 3, archive.size());
+		} finally {
+			archive.close();
+		}
+	}
+
+	@Test
+	public void doneTimeTest() throws Exception {
+		StreamTask task = streamObject.get("Ongoing");
+		assertNull("No done time while ongoing", task.getDoneTime());
+		task.markAsDone();
+		assertTrue("Stamped when done", task.getDoneTime() != null);
+		task.markAsOngoing();
+		assertNull("Cleared when ongoing", task.getDoneTime());
+
+		StreamTask doneTask = streamObject.get("Done Last Year");
+		StreamTask loaded = StreamIO.jsonToTask(StreamIO.taskToJson(doneTask));
+		assertEquals("Done time in JSON",
+				StreamIO.formatDate(doneTask.getDoneTime()),
+				StreamIO.formatDate(loaded.getDoneTime()));
+	}
+
+	private StreamTask addTask(String taskName) {
+		StreamTask task = new StreamTask(taskName);
+		streamObject.put(taskName, task);
+		return task;
+	}
+
+	/**
+	 * Archives the tasks done longer than the archive age ago, as when
+	 * loading.
+	 */
+	private int archive() throws StreamIOException {
+		List<StreamTask> archived = streamObject.findDoneBefore(StreamIO
+				.getArchiveCutoff());
+		StreamIO.archive(archived);
+		streamObject.archive(archived);
+		return archived.size();
+	}
+
+	private StreamTask addDoneTask(String taskName, int daysAgo) {
+		StreamTask task = addTask(taskName);
+		task.markAsDone();
+		Calendar doneTime = Calendar.getInstance();
+		doneTime.add(Calendar.DAY_OF_MONTH, -daysAgo);
+		task.setDoneTime(doneTime);
+		return task;
+	}
+
+	private File getArchiveFile() throws StreamIOException {
+		return new File(StreamIO.getArchiveFile());
+	}
+
+	private void deleteTestFiles() throws StreamIOException {
+		File file = new File(StreamIO.getSaveLocation());
+		for (File version : StreamAtomicWriter.listVersions(file,
+				StreamConstants.SAVE_GENERATIONS)) {
+			version.delete();
+		}
+		StreamJournal.getJournalFile(file).delete();
+		getArchiveFile().delete();
+	}
+}
@@ -0,0 +1,134 @@
+package fileio;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import util.StreamConstants;
+
+//@author A0096529N
+/**
+ * <p>
+ * Writes files crash-safely. The contents are written to a sibling temporary
+ * file and forced to disk, and only then moved over the destination, so the
+ * destination always holds either the old or the new contents in full.
+ * </p>
+ *
+ * <p>
+ * Optionally keeps previous versions of the destination as numbered
+ * generations (<i>file.1</i> being the newest), which loading can fall back
+ * to when the destination is unreadable.
+ * </p>
+ *
+ * @version V0.5
+ */
+class StreamAtomicWriter {
+
+	/**
+	 * Writes the contents of a file.
+	 */
+	interface Content {
+		void writeTo(File file) throws IOException;
+	}
+
+	/**
+	 * Atomically replaces the destination with the given contents.
+	 *
+	 * @param destin
+	 *            file to be written
+	 * @param generations
+	 *            number of previous versions of the destination to keep
+	 * @param content
+	 *            writer of the new contents
+	 * @throws IOException
+	 *             from file IO errors, in which case the destination is left
+	 *             untouched
+	 */
+	static void write(File destin, int generations, Content content)
+			throws IOException {
+		File temp = new File(destin.getPath()
+				+ StreamConstants.TEMP_EXTENSION);
+		try {
+			content.writeTo(temp);
+			try (FileChannel channel = FileChannel.open(temp.toPath(),
+					StandardOpenOption.WRITE)) {
+				channel.force(true);
+			}
+			if (destin.exists() && generations > 0) {
+				rotate(destin, generations);
+			}
+			move(temp, destin);
+		} finally {
+			Files.deleteIfExists(temp.toPath());
+		}
+	}
+
+	/**
+	 * Gets the given generation of a file.
+	 *
+	 * @param file
+	 *            the current version of the file
+	 * @param generation
+	 *            the generation number, 1 being the newest
+	 * @return the file of that generation, which may not exist
+	 */
+	static File getGeneration(File file, int generation) {
+		return new File(file.getPath() + "." + generation);
+	}
+
+	/**
+	 * Lists the existing versions of a file, newest first, starting with the
+	 * file itself.
+	 *
+	 * @param file
+	 *            the current version of the file
+	 * @param generations
+	 *            number of previous versions kept
+	 * @return the existing versions of the file
+	 */
+	static List<File> listVersions(File file, int generations) {
+		List<File> versions = new ArrayList<File>();
+		if (file.exists()) {
+			versions.add(file);
+		}
+		for (int i = 1; i <= generations; i++) {
+			File generation = getGeneration(file, i);
+			if (generation.exists()) {
+				versions.add(generation);
+			}
+		}
+		return versions;
+	}
+
+	/**
+	 * Shifts every generation one place older, dropping the oldest, and moves
+	 * the current version into the newest generation.
+	 */
+	private static void rotate(File file, int generations) throws IOException {
+		Files.deleteIfExists(getGeneration(file, generations).toPath());
+		for (int i = generations - 1; i >= 1; i--) {
+			File generation = getGeneration(file, i);
+			if (generation.exists()) {
+				move(generation, getGeneration(file, i + 1));
+			}
+		}
+		move(file, getGeneration(file, 1));
+	}
+
+	private static void move(File source, File destin) throws IOException {
+		try {
+			Files.move(source.toPath(), destin.toPath(),
+					StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source.toPath(), destin.toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+}
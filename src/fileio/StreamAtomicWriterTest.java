@@ -0,0 +1,156 @@
+package fileio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import model.StreamTask;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import util.StreamConstants;
+
+//@author A0096529N
+public class StreamAtomicWriterTest {
+
+	private static final String TEST_SAVE_FILENAME = "streamatomictest"
+			+ StreamConstants.SAVEFILE_EXTENSION;
+	private static final String TEST_BINARY_FILENAME = "streamatomictest"
+			+ StreamConstants.BINARY_SAVEFILE_EXTENSION;
+	private HashMap<String, StreamTask> map;
+	private ArrayList<String> taskList;
+	private File saveFile;
+
+	@Before
+	public void setUp() throws Exception {
+		StreamIO.setFilename(TEST_SAVE_FILENAME);
+		StreamIO.setJournaling(false);
+		saveFile = new File(StreamIO.getSaveLocation());
+		deleteTestFiles();
+		map = new HashMap<String, StreamTask>();
+		taskList = new ArrayList<String>();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		deleteTestFiles();
+		StreamIO.setFilename(TEST_SAVE_FILENAME);
+		StreamIO.setJournaling(true);
+	}
+
+	@Test
+	public void rotateGenerationsTest() throws Exception {
+		for (int i = 0; i < StreamConstants.SAVE_GENERATIONS + 2; i++) {
+			addTask("Task " + i);
+			StreamIO.save(map, taskList);
+		}
+
+		for (int i = 1; i <= StreamConstants.SAVE_GENERATIONS; i++) {
+			assertTrue("Generation " + i + " kept", StreamAtomicWriter
+					.getGeneration(saveFile, i).exists());
+		}
+		assertFalse("Oldest generation dropped", StreamAtomicWriter
+				.getGeneration(saveFile, StreamConstants.SAVE_GENERATIONS + 1)
+				.exists());
+		assertFalse("Temporary file removed", new File(saveFile.getPath()
+				+ StreamConstants.TEMP_EXTENSION).exists());
+		assertEquals("Newest generation is the previous save",
+				taskList.size() - 1, loadFile(StreamAtomicWriter.getGeneration(
+						saveFile, 1)));
+	}
+
+	@Test
+	public void fallbackToGenerationTest() throws Exception {
+		addTask("Code Jarvis");
+		StreamIO.save(map, taskList);
+		addTask("Build IoT");
+		StreamIO.save(map, taskList);
+		try (FileWriter writer = new FileWriter(saveFile)) {
+			writer.write("{\"taskList\":{\"0\":");
+		}
+
+		HashMap<String, StreamTask> loadedMap = new HashMap<String, StreamTask>();
+		ArrayList<String> loadedList = new ArrayList<String>();
+		StreamIO.load(loadedMap, loadedList);
+		assertEquals("Loaded previous generation", 1, loadedList.size());
+		assertEquals("Loaded previous generation", "Code Jarvis",
+				loadedList.get(0));
+	}
+
+	@Test
+	public void fallbackToBinaryGenerationTest() throws Exception {
+		StreamIO.setFilename(TEST_BINARY_FILENAME);
+		saveFile = new File(StreamIO.getSaveLocation());
+		deleteTestFiles();
+		addTask("Code Jarvis");
+		StreamIO.save(map, taskList);
+		addTask("Build IoT");
+		StreamIO.save(map, taskList);
+		try (FileWriter writer = new FileWriter(saveFile)) {
+			writer.write("STRM");
+		}
+
+		ArrayList<String> loadedList = new ArrayList<String>();
+		StreamIO.load(new HashMap<String, StreamTask>(), loadedList);
+		assertEquals("Loaded previous binary generation", 1,
+				loadedList.size());
+		assertEquals("Loaded previous binary generation", "Code Jarvis",
+				loadedList.get(0));
+	}
+
+	@Test
+	public void failedWriteTest() throws Exception {
+		addTask("Code Jarvis");
+		StreamIO.save(map, taskList);
+		long savedLength = saveFile.length();
+
+		try {
+			StreamAtomicWriter.write(saveFile, StreamConstants.SAVE_GENERATIONS,
+					new StreamAtomicWriter.Content() {
+						@Override
+						public void writeTo(File file) throws IOException {
+							try (FileWriter writer = new FileWriter(file)) {
+								writer.write("{\"taskList\":");
+							}
+							throw new IOException("Disk full");
+						}
+					});
+			fail("Write failure not propagated");
+		} catch (IOException e) {
+			assertEquals("Write failure propagated", "Disk full",
+					e.getMessage());
+		}
+		assertEquals("Storage file untouched", savedLength, saveFile.length());
+		assertFalse("Temporary file removed", new File(saveFile.getPath()
+				+ StreamConstants.TEMP_EXTENSION).exists());
+	}
+
+	private void addTask(String taskName) {
+		map.put(taskName.toLowerCase(), new StreamTask(taskName));
+		taskList.add(taskName);
+	}
+
+	private int loadFile(File file) throws Exception {
+		ArrayList<String> loadedList = new ArrayList<String>();
+		StreamIO.loadFromFile(file, new HashMap<String, StreamTask>(),
+				loadedList);
+		return loadedList.size();
+	}
+
+	private void deleteTestFiles() {
+		for (File version : StreamAtomicWriter.listVersions(saveFile,
+				StreamConstants.SAVE_GENERATIONS + 1)) {
+			version.delete();
+		}
+		StreamJournal.getJournalFile(saveFile).delete();
+	}
+}
@@ -0,0 +1,173 @@
+package fileio;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import model.StreamSnapshot;
+import model.StreamTask;
+import util.StreamConstants;
+import util.StreamLogger;
+import util.StreamLogger.LogLevel;
+import exception.StreamIOException;
+
+//@author A0096529N
+/**
+ * <p>
+ * Saves snapshots of the application state on a background thread, so that
+ * the caller never waits for the disk.
+ * </p>
+ *
+ * <p>
+ * Saves requested while a write is in progress are coalesced: only the latest
+ * snapshot is written once the current write completes. Pending saves are
+ * flushed on <b>flush()</b> and when the JVM shuts down.
+ * </p>
+ *
+ * <p>
+ * There is a single saver, shared by every user of it, so that all saves are
+ * written one after the other by the same thread.
+ * </p>
+ *
+ * @version V0.5
+ */
+public class StreamBackgroundSaver {
+
+	/**
+	 * Receives save failures, called from the background thread.
+	 */
+	public interface SaveErrorHandler {
+		void onSaveFailed(StreamIOException e);
+	}
+
+	private static final String THREAD_NAME = "stream-saver";
+	private static final StreamLogger logger = StreamLogger
+			.init(StreamConstants.ComponentTag.STREAMIO);
+
+	private static StreamBackgroundSaver instance;
+
+	private final ExecutorService executor;
+	private volatile SaveErrorHandler errorHandler;
+	private final Runnable writer = new Runnable() {
+		@Override
+		public void run() {
+			writePending();
+		}
+	};
+
+	private Map<String, StreamTask> pendingMap;
+	private List<String> pendingList;
+	private boolean isWriteScheduled;
+	private int coalescedSaves;
+
+	private StreamBackgroundSaver() {
+		this.executor = Executors
+				.newSingleThreadExecutor(new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, THREAD_NAME);
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				flush();
+			}
+		}, THREAD_NAME + "-shutdown"));
+	}
+
+	/**
+	 * Gets the saver, starting its thread on first use.
+	 *
+	 * @return the shared saver
+	 */
+	public static synchronized StreamBackgroundSaver getInstance() {
+		if (instance == null) {
+			instance = new StreamBackgroundSaver();
+		}
+		return instance;
+	}
+
+	/**
+	 * Sets the receiver of save failures, replacing the previous one.
+	 *
+	 * @param errorHandler
+	 *            the receiver, or null to only log failures
+	 */
+	public void setErrorHandler(SaveErrorHandler errorHandler) {
+		this.errorHandler = errorHandler;
+	}
+
+	/**
+	 * Schedules an immutable snapshot to be saved, without copying it. If a
+	 * save is already pending, the pending snapshot is replaced.
+	 *
+	 * @param snapshot
+	 *            snapshot of the tasks to be saved
+	 */
+	public void save(StreamSnapshot snapshot) {
+		schedule(snapshot.getTaskMap(), snapshot.getTaskList());
+	}
+
+	private synchronized void schedule(Map<String, StreamTask> mapSnapshot,
+			List<String> listSnapshot) {
+		if (pendingMap != null) {
+			coalescedSaves++;
+		}
+		pendingMap = mapSnapshot;
+		pendingList = listSnapshot;
+		if (!isWriteScheduled) {
+			isWriteScheduled = true;
+			executor.execute(writer);
+		}
+	}
+
+	/**
+	 * Blocks until every snapshot scheduled so far has been written.
+	 */
+	public void flush() {
+		try {
+			executor.submit(writer).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			logger.log(LogLevel.ERROR, "Background save failed - "
+					+ e.getCause());
+		}
+	}
+
+	private void writePending() {
+		Map<String, StreamTask> taskMap;
+		List<String> taskList;
+		int coalesced;
+		synchronized (this) {
+			taskMap = pendingMap;
+			taskList = pendingList;
+			coalesced = coalescedSaves;
+			pendingMap = null;
+			pendingList = null;
+			coalescedSaves = 0;
+			isWriteScheduled = false;
+		}
+		if (taskMap == null) {
+			return;
+		}
+		try {
+			StreamIO.save(taskMap, taskList);
+			logger.log(LogLevel.DEBUG, "Background save completed, "
+					+ coalesced + " saves coalesced");
+		} catch (StreamIOException e) {
+			logger.log(LogLevel.ERROR, "Background save failed - "
+					+ e.getMessage());
+			SaveErrorHandler handler = errorHandler;
+			if (handler != null) {
+				handler.onSaveFailed(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package fileio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import model.StreamObject;
+import model.StreamSnapshot;
+import model.StreamTask;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import util.StreamConstants;
+import exception.StreamIOException;
+
+//@author A0096529N
+public class StreamBackgroundSaverTest {
+
+	private static final String TEST_SAVE_FILENAME = "streamsavertest"
+			+ StreamConstants.SAVEFILE_EXTENSION;
+	private StreamObject streamObject;
+	private StreamIOException saveError;
+	private StreamBackgroundSaver saver;
+	private File saveFile;
+
+	@Before
+	public void setUp() throws Exception {
+		StreamIO.setFilename(TEST_SAVE_FILENAME);
+		saveFile = new File(StreamIO.getSaveLocation());
+		for (File version : StreamAtomicWriter.listVersions(saveFile,
+				StreamConstants.SAVE_GENERATIONS)) {
+			version.delete();
+		}
+		StreamJournal.getJournalFile(saveFile).delete();
+
+		streamObject = StreamObject.getInstance();
+		saveError = null;
+		saver = StreamBackgroundSaver.getInstance();
+		saver.setErrorHandler(new StreamBackgroundSaver.SaveErrorHandler() {
+			@Override
+			public void onSaveFailed(StreamIOException e) {
+				saveError = e;
+			}
+		});
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		saver.flush();
+		saver.setErrorHandler(null);
+		StreamIO.setFilename(TEST_SAVE_FILENAME);
+		for (File version : StreamAtomicWriter.listVersions(saveFile,
+				StreamConstants.SAVE_GENERATIONS)) {
+			version.delete();
+		}
+		StreamJournal.getJournalFile(saveFile).delete();
+	}
+
+	@Test
+	public void coalescedSavesTest() throws Exception {
+		for (int i = 0; i < 50; i++) {
+			addTask("Task " + i);
+			saver.save(streamObject.snapshot());
+		}
+		saver.flush();
+
+		HashMap<String, StreamTask> loadedMap = new HashMap<String, StreamTask>();
+		ArrayList<String> loadedList = new ArrayList<String>();
+		StreamIO.load(loadedMap, loadedList);
+		StreamSnapshot saved = streamObject.snapshot();
+		assertEquals("Latest state saved", saved.getTaskList(), loadedList);
+		assertEquals("Latest state saved", saved.getTaskMap().keySet(),
+				loadedMap.keySet());
+	}
+
+	@Test
+	public void snapshotTest() throws Exception {
+		addTask("Code Jarvis");
+		saver.save(streamObject.snapshot());
+		streamObject.get("Code Jarvis").setDescription("Changed after save");
+		saver.flush();
+
+		HashMap<String, StreamTask> loadedMap = new HashMap<String, StreamTask>();
+		StreamIO.load(loadedMap, new ArrayList<String>());
+		assertEquals("Snapshot taken at save", null,
+				loadedMap.get("code jarvis").getDescription());
+	}
+
+	@Test
+	public void saveErrorTest() throws Exception {
+		StreamIO.setFilename("missingdirectory" + File.separator
+				+ TEST_SAVE_FILENAME);
+		addTask("Code Jarvis");
+		saver.save(streamObject.snapshot());
+		saver.flush();
+
+		assertNotNull("Error reported", saveError);
+		assertFalse("Nothing saved", saveFile.exists());
+	}
+
+	private void addTask(String taskName) {
+		streamObject.put(taskName, new StreamTask(taskName));
+	}
+}
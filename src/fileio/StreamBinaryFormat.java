@@ -0,0 +1,347 @@
+package fileio;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.RankType;
+import model.StreamTask;
+import exception.StreamIOException;
+
+//@author A0096529N
+/**
+ * <p>
+ * Compact, versioned binary storage format, used for storage files with the
+ * binary save file extension instead of JSON.
+ * </p>
+ *
+ * <h3>Layout (version 2)</h3>
+ * <ul>
+ * <li>magic number and format version</li>
+ * <li>sequence number of the snapshot, shared with its journal (not in
+ * version 1)</li>
+ * <li>tag table: every distinct tag, written once</li>
+ * <li>tasks: name, flag byte (done, rank, present fields), description,
+ * start time, deadline and done time as epoch millis, tag table indices</li>
+ * <li>number of leading tasks that make up the task list, in order</li>
+ * </ul>
+ * <p>
+ * Integers are written as unsigned variable-length quantities and strings as
+ * length-prefixed UTF-8. Counts and lengths read are checked against the rest
+ * of the file, so that a corrupted file is reported as such, instead of
+ * allocating for a length that cannot be there.
+ * </p>
+ *
+ * @version V0.5
+ */
+class StreamBinaryFormat {
+
+	static final int MAGIC = 0x5354524D; // "STRM"
+	static final byte VERSION = 2;
+	// without the sequence number, still read
+	private static final byte VERSION_UNSEQUENCED = 1;
+
+	private static final int FLAG_DONE = 1;
+	private static final int FLAG_DESCRIPTION = 1 << 1;
+	private static final int FLAG_STARTTIME = 1 << 2;
+	private static final int FLAG_DEADLINE = 1 << 3;
+	private static final int FLAG_RANK = 1 << 4;
+	private static final int FLAG_DONETIME = 1 << 7;
+	private static final int RANK_SHIFT = 5;
+	private static final int RANK_MASK = 3;
+	// free-form ranks, no longer written but still read from older files
+	private static final int RANK_OTHER = 3;
+	private static final RankType[] RANKS = { RankType.LO, RankType.MED,
+			RankType.HI };
+	// least bytes taken by a tag of the tag table and by a task
+	private static final int MIN_TAG_SIZE = 1;
+	private static final int MIN_TASK_SIZE = 3;
+
+	/**
+	 * Writes the given tasks to the destination file in binary format.
+	 *
+	 * @param destin
+	 *            destination file to write the data
+	 * @param sequence
+	 *            sequence number of the snapshot
+	 * @param taskMap
+	 *            map of tasks to be saved
+	 * @param taskList
+	 *            list of task names
+	 * @throws IOException
+	 *             from file IO errors
+	 */
+	static void write(File destin, long sequence,
+			Map<String, StreamTask> taskMap, List<String> taskList)
+			throws IOException {
+		List<StreamTask> tasks = orderTasks(taskMap, taskList);
+		Map<String, Integer> tagTable = buildTagTable(tasks);
+
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(destin, false)))) {
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+			out.writeLong(sequence);
+			writeVarInt(out, tagTable.size());
+			for (String tag : tagTable.keySet()) {
+				writeString(out, tag);
+			}
+			writeVarInt(out, tasks.size());
+			for (StreamTask task : tasks) {
+				writeTask(out, task, tagTable);
+			}
+			writeVarInt(out, Math.min(taskList.size(), tasks.size()));
+		}
+	}
+
+	/**
+	 * Reads a binary storage file into the given map and list.
+	 *
+	 * @param file
+	 *            source file to be loaded
+	 * @param taskMap
+	 *            the map to populate loaded tasks
+	 * @param taskList
+	 *            the list to populate loaded task names
+	 * @return the sequence number of the snapshot, NO_SEQUENCE if the file
+	 *         is empty or has none
+	 * @throws StreamIOException
+	 *             from file IO errors or when the contents could not be parsed
+	 */
+	static long read(File file, Map<String, StreamTask> taskMap,
+			List<String> taskList) throws StreamIOException {
+		if (file.length() == 0) {
+			return StreamJournal.NO_SEQUENCE;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC) {
+				throw new StreamIOException(
+						"File corrupted, not a binary storage file");
+			}
+			byte version = in.readByte();
+			long sequence = StreamJournal.NO_SEQUENCE;
+			if (version == VERSION) {
+				sequence = in.readLong();
+			} else if (version != VERSION_UNSEQUENCED) {
+				throw new StreamIOException(
+						"File corrupted, unsupported binary format version "
+								+ version);
+			}
+			String[] tagTable = new String[readCount(in, MIN_TAG_SIZE)];
+			for (int i = 0; i < tagTable.length; i++) {
+				tagTable[i] = readString(in);
+			}
+			int taskCount = readCount(in, MIN_TASK_SIZE);
+			List<StreamTask> tasks = new ArrayList<StreamTask>(taskCount);
+			for (int i = 0; i < taskCount; i++) {
+				StreamTask task = readTask(in, tagTable);
+				taskMap.put(task.getKey(), task);
+				tasks.add(task);
+			}
+			int orderCount = readVarInt(in);
+			if (orderCount < 0 || orderCount > taskCount) {
+				throw new MalformedDataException("Task list of " + orderCount
+						+ " tasks, but " + taskCount + " tasks stored");
+			}
+			for (int i = 0; i < orderCount; i++) {
+				taskList.add(tasks.get(i).getTaskName());
+			}
+			return sequence;
+		} catch (EOFException | MalformedDataException
+				| IndexOutOfBoundsException e) {
+			throw new StreamIOException(
+					"File corrupted, could not parse file contents - "
+							+ e.getMessage(), e);
+		} catch (IOException e) {
+			throw new StreamIOException("Could not load file - "
+					+ e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Orders the tasks as in the task list, followed by any task missing from
+	 * the list.
+	 */
+	private static List<StreamTask> orderTasks(
+			Map<String, StreamTask> taskMap, List<String> taskList) {
+		List<StreamTask> tasks = new ArrayList<StreamTask>(taskMap.size());
+		Map<String, StreamTask> unlisted = new LinkedHashMap<String, StreamTask>(
+				taskMap);
+		for (String taskName : taskList) {
+			StreamTask task = unlisted.remove(taskName.toLowerCase());
+			if (task != null) {
+				tasks.add(task);
+			}
+		}
+		tasks.addAll(unlisted.values());
+		return tasks;
+	}
+
+	private static Map<String, Integer> buildTagTable(List<StreamTask> tasks) {
+		Map<String, Integer> tagTable = new LinkedHashMap<String, Integer>();
+		for (StreamTask task : tasks) {
+			for (String tag : task.getTags()) {
+				if (!tagTable.containsKey(tag)) {
+					tagTable.put(tag, tagTable.size());
+				}
+			}
+		}
+		return tagTable;
+	}
+
+	static void writeTask(DataOutputStream out, StreamTask task,
+			Map<String, Integer> tagTable) throws IOException {
+		int flags = encodeRank(task.getRankType()) << RANK_SHIFT;
+		flags |= task.isDone() ? FLAG_DONE : 0;
+		flags |= task.getDescription() != null ? FLAG_DESCRIPTION : 0;
+		flags |= task.isTimedTask() ? FLAG_STARTTIME : 0;
+		flags |= task.isDeadlineTask() ? FLAG_DEADLINE : 0;
+		flags |= task.getRankType() != RankType.NULL ? FLAG_RANK : 0;
+		flags |= task.getDoneTimeMillis() != StreamTask.NO_TIME ? FLAG_DONETIME
+				: 0;
+
+		writeString(out, task.getTaskName());
+		out.writeByte(flags);
+		if (task.getDescription() != null) {
+			writeString(out, task.getDescription());
+		}
+		if (task.isTimedTask()) {
+			out.writeLong(task.getStartTimeMillis());
+		}
+		if (task.isDeadlineTask()) {
+			out.writeLong(task.getDeadlineMillis());
+		}
+		if (task.getDoneTimeMillis() != StreamTask.NO_TIME) {
+			out.writeLong(task.getDoneTimeMillis());
+		}
+		writeVarInt(out, task.getTags().size());
+		for (String tag : task.getTags()) {
+			writeVarInt(out, tagTable.get(tag));
+		}
+	}
+
+	static StreamTask readTask(DataInputStream in, String[] tagTable)
+			throws IOException {
+		StreamTask task = new StreamTask(readString(in));
+		int flags = in.readUnsignedByte();
+		if ((flags & FLAG_DESCRIPTION) != 0) {
+			task.setDescription(readString(in));
+		}
+		if ((flags & FLAG_STARTTIME) != 0) {
+			task.setStartTimeMillis(in.readLong());
+		}
+		if ((flags & FLAG_DEADLINE) != 0) {
+			task.setDeadlineMillis(in.readLong());
+		}
+		long doneTime = StreamTask.NO_TIME;
+		if ((flags & FLAG_DONETIME) != 0) {
+			doneTime = in.readLong();
+		}
+		if ((flags & FLAG_RANK) == 0) {
+			task.setRankType(RankType.NULL);
+		} else {
+			int rankCode = (flags >> RANK_SHIFT) & RANK_MASK;
+			if (rankCode == RANK_OTHER) {
+				task.setRank(readString(in));
+			} else {
+				task.setRankType(RANKS[rankCode]);
+			}
+		}
+		task.setDone((flags & FLAG_DONE) != 0);
+		task.setDoneTimeMillis(doneTime);
+		int tagCount = readCount(in, 1);
+		for (int i = 0; i < tagCount; i++) {
+			task.getTags().add(tagTable[readVarInt(in)]);
+		}
+		return task;
+	}
+
+	private static int encodeRank(RankType rank) {
+		for (int i = 0; i < RANKS.length; i++) {
+			if (RANKS[i] == rank) {
+				return i;
+			}
+		}
+		return 0;
+	}
+
+	static void writeVarInt(DataOutputStream out, int value)
+			throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	static int readVarInt(DataInputStream in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new MalformedDataException("Malformed variable-length integer");
+	}
+
+	/**
+	 * Reads the number of elements that follow, checking that they fit in the
+	 * rest of the stream. The streams read from, of files and of byte arrays,
+	 * know exactly how many bytes remain.
+	 *
+	 * @param minSize
+	 *            least number of bytes taken by each element
+	 * @return the number of elements
+	 * @throws MalformedDataException
+	 *             if the elements cannot fit in the rest of the stream
+	 */
+	private static int readCount(DataInputStream in, int minSize)
+			throws IOException {
+		int count = readVarInt(in);
+		int remaining = in.available();
+		if (count < 0 || (long) count * minSize > remaining) {
+			throw new MalformedDataException("Count of " + count
+					+ " does not fit in the remaining " + remaining + " bytes");
+		}
+		return count;
+	}
+
+	static void writeString(DataOutputStream out, String value)
+			throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(out, bytes.length);
+		out.write(bytes);
+	}
+
+	static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[readCount(in, 1)];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Thrown when the content read is not a consistent binary storage file.
+	 */
+	static class MalformedDataException extends IOException {
+
+		private static final long serialVersionUID = -4711364290873153312L;
+
+		MalformedDataException(String message) {
+			super(message);
+		}
+	}
+}
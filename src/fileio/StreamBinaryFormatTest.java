@@ -0,0 +1,215 @@
+package fileio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+
+import model.StreamTask;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import util.StreamConstants;
+import exception.StreamIOException;
+
+//@author A0096529N
+public class StreamBinaryFormatTest {
+
+	private static final String TEST_JSON_FILENAME = "streambinarytest"
+			+ StreamConstants.SAVEFILE_EXTENSION;
+	private static final String TEST_BINARY_FILENAME = "streambinarytest"
+			+ StreamConstants.BINARY_SAVEFILE_EXTENSION;
+	private static final String TEST_CONVERTED_FILENAME = "streambinarytestconverted"
+			+ StreamConstants.SAVEFILE_EXTENSION;
+	private HashMap<String, StreamTask> map;
+	private ArrayList<String> taskList;
+
+	@Before
+	public void setUp() throws Exception {
+		deleteTestFiles();
+		map = new HashMap<String, StreamTask>();
+		taskList = new ArrayList<String>();
+
+		StreamTask task = addTask("Code Jarvis");
+		task.setDescription("Just\na\nRather\nVery\nIntelligent\nSystem");
+		task.setDeadline(StreamIO.parseDate("20410719000000"));
+		task.getTags().add("EPIC");
+		task.getTags().add("IMPOSSIBLE");
+		task.setRank("high");
+
+		task = addTask("Build IoT");
+		task.setStartTime(StreamIO.parseDate("20180101123456"));
+		task.setDeadline(StreamIO.parseDate("20180102000000"));
+		task.getTags().add("EPIC");
+		task.markAsDone();
+		task.setRank("medium");
+
+		addTask("Find X");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		deleteTestFiles();
+		StreamIO.setFilename(TEST_JSON_FILENAME);
+	}
+
+	@Test
+	public void binaryRoundTripTest() throws Exception {
+		StreamIO.setFilename(TEST_BINARY_FILENAME);
+		StreamIO.save(map, taskList);
+
+		assertReloaded("Binary round trip", TEST_BINARY_FILENAME);
+	}
+
+	@Test
+	public void binaryJournalTest() throws Exception {
+		StreamIO.setFilename(TEST_BINARY_FILENAME);
+		StreamIO.save(map, taskList);
+		map.get("find x").setDescription("Solve for X");
+		StreamIO.save(map, taskList);
+
+		assertReloaded("Binary snapshot with journal", TEST_BINARY_FILENAME);
+	}
+
+	@Test
+	public void convertTest() throws Exception {
+		StreamIO.setFilename(TEST_JSON_FILENAME);
+		StreamIO.save(map, taskList);
+
+		StreamIO.convert(TEST_JSON_FILENAME, TEST_BINARY_FILENAME);
+		assertReloaded("JSON to binary", TEST_BINARY_FILENAME);
+
+		StreamIO.convert(TEST_BINARY_FILENAME, TEST_CONVERTED_FILENAME);
+		assertReloaded("Binary to JSON", TEST_CONVERTED_FILENAME);
+	}
+
+	@Test
+	public void binarySmallerTest() throws Exception {
+		for (int i = 0; i < 100; i++) {
+			StreamTask task = addTask("Task " + i);
+			task.setDeadline(Calendar.getInstance());
+			task.getTags().add("REPEATED");
+		}
+		StreamIO.setFilename(TEST_JSON_FILENAME);
+		StreamIO.save(map, taskList);
+		StreamIO.convert(TEST_JSON_FILENAME, TEST_BINARY_FILENAME);
+
+		long jsonLength = getFile(TEST_JSON_FILENAME).length();
+		long binaryLength = getFile(TEST_BINARY_FILENAME).length();
+		assertTrue("Binary smaller than JSON", binaryLength * 2 < jsonLength);
+	}
+
+	@Test
+	public void loadCorruptedBinaryTest() throws Exception {
+		try (FileWriter writer = new FileWriter(getFile(TEST_BINARY_FILENAME))) {
+			writer.write("{\"taskList\":{}}");
+		}
+		StreamIO.setFilename(TEST_BINARY_FILENAME);
+		try {
+			StreamIO.load(new HashMap<String, StreamTask>(),
+					new ArrayList<String>());
+			fail("Corrupted binary file loaded");
+		} catch (StreamIOException e) {
+			assertTrue("Corruption reported",
+					e.getMessage().startsWith("File corrupted"));
+		}
+	}
+
+	@Test
+	public void loadCorruptedLengthTest() throws Exception {
+		int[][] corruptions = { { 0xFF, 0xFF, 0xFF, 0xFF, 0x07 },
+				{ 0xFF, 0xFF, 0xFF, 0xFF, 0x0F }, { 0x80, 0x80, 0x80, 0x80, 0x80 } };
+		for (int[] corruption : corruptions) {
+			writeCorrupted(getFile(TEST_BINARY_FILENAME), corruption);
+			try {
+				StreamIO.load(new HashMap<String, StreamTask>(),
+						new ArrayList<String>());
+				fail("Corrupted length loaded");
+			} catch (StreamIOException e) {
+				assertTrue("Corruption reported",
+						e.getMessage().startsWith("File corrupted"));
+			}
+		}
+	}
+
+	@Test
+	public void fallbackFromCorruptedLengthTest() throws Exception {
+		StreamIO.setFilename(TEST_BINARY_FILENAME);
+		StreamIO.save(map, taskList);
+		StreamIO.setFilename(TEST_BINARY_FILENAME);
+		addTask("Build IoT 2");
+		StreamIO.save(map, taskList);
+		writeCorrupted(getFile(TEST_BINARY_FILENAME), new int[] { 0xFF,
+				0xFF, 0xFF, 0xFF, 0x07 });
+
+		map.remove("build iot 2");
+		taskList.remove("Build IoT 2");
+		assertReloaded("Previous generation loaded", TEST_BINARY_FILENAME);
+	}
+
+	/**
+	 * Writes a binary storage file whose tag count is the given bytes.
+	 */
+	private void writeCorrupted(File file, int[] tagCount) throws Exception {
+		try (DataOutputStream out = new DataOutputStream(new FileOutputStream(
+				file))) {
+			out.writeInt(StreamBinaryFormat.MAGIC);
+			out.writeByte(StreamBinaryFormat.VERSION);
+			out.writeLong(1);
+			for (int b : tagCount) {
+				out.writeByte(b);
+			}
+			out.writeByte(0);
+		}
+	}
+
+	private StreamTask addTask(String taskName) {
+		StreamTask task = new StreamTask(taskName);
+		map.put(taskName.toLowerCase(), task);
+		taskList.add(taskName);
+		return task;
+	}
+
+	private void assertReloaded(String testMessage, String filename)
+			throws Exception {
+		Map<String, StreamTask> loadedMap = new HashMap<String, StreamTask>();
+		ArrayList<String> loadedList = new ArrayList<String>();
+		StreamIO.setFilename(filename);
+		StreamIO.load(loadedMap, loadedList);
+
+		assertEquals(testMessage, taskList, loadedList);
+		assertEquals(testMessage, map.keySet(), loadedMap.keySet());
+		for (String key : map.keySet()) {
+			assertEquals(testMessage, StreamIO.taskToJson(map.get(key))
+					.toString(), StreamIO.taskToJson(loadedMap.get(key))
+					.toString());
+		}
+	}
+
+	private File getFile(String filename) throws StreamIOException {
+		StreamIO.setFilename(filename);
+		return new File(StreamIO.getSaveLocation());
+	}
+
+	private void deleteTestFiles() throws StreamIOException {
+		for (String filename : new String[] { TEST_JSON_FILENAME,
+				TEST_BINARY_FILENAME, TEST_CONVERTED_FILENAME }) {
+			File file = getFile(filename);
+			for (File version : StreamAtomicWriter.listVersions(file,
+					StreamConstants.SAVE_GENERATIONS)) {
+				version.delete();
+			}
+			StreamJournal.getJournalFile(file).delete();
+		}
+	}
+}
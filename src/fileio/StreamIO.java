@@ -6,15 +6,19 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 import logic.TaskLogic;
 import model.StreamTask;
@@ -24,6 +28,7 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import util.StreamConstants;
+import util.StreamDateCodec;
 import util.StreamLogger;
 import util.StreamLogger.LogLevel;
 import exception.StreamIOException;
@@ -37,7 +42,31 @@ import exception.StreamIOException;
  * 
  * <h3>Storage Format</h3>
  * <p>
- * Application state is serialized into JSON format.
+ * Application state is serialized into JSON format, or into a compact binary
+ * format for storage files ending with the binary save file extension (see
+ * StreamBinaryFormat). In the journaled storage
+ * mode (default), saves append the changed tasks to a journal next to the
+ * storage file, which is folded back into the storage file once it grows past
+ * a threshold. Loading replays the journal on top of the storage file, if the
+ * journal was started on that storage file: both hold the sequence number of
+ * the storage file, which is new for every storage file written.
+ * </p>
+ * <p>
+ * Serialized tasks are cached by task version, so only the tasks modified
+ * since the previous save are serialized again.
+ * </p>
+ * <p>
+ * The storage file is never overwritten in place; it is written to a temporary
+ * file which then replaces it atomically, keeping the previous versions as
+ * numbered generations. Loading falls back to the newest readable generation
+ * if the storage file is unreadable.
+ * </p>
+ * <p>
+ * Tasks done longer than the archive age ago can be moved into an archive
+ * file next to the storage file (see StreamMappedStore), so that the storage
+ * file and the live state only hold recent tasks. Archived tasks are read one
+ * at a time from the archive, e.g. when done tasks are filtered, and a task
+ * only moves back into the live state when it is marked as ongoing again.
  * </p>
  * 
  * <h3>Storage Location</h3>
@@ -52,7 +81,14 @@ import exception.StreamIOException;
  * taskList)</li>
  * <li>StreamIO.load(Map&lt;String, StreamTask&gt; taskMap, List&lt;String&gt;
  * taskList)</li>
+ * <li>StreamIO.convert(String sourceFilename, String destinFilename)</li>
+ * <li>StreamIO.archive(List&lt;StreamTask&gt; tasks)</li>
+ * <li>StreamIO.unarchive(String taskName)</li>
+ * <li>StreamIO.openArchive()</li>
+ * <li>StreamIO.getArchiveCutoff()</li>
+ * <li>StreamIO.setArchiveAge(int days)</li>
  * <li>StreamIO.setFilename()</li>
+ * <li>StreamIO.setJournaling(boolean journaling)</li>
  * <li>StreamIO.setSaveLocation(String saveLocation)</li>
  * <li>StreamIO.saveLogFile(List&lt;String&gt; logMessages, String logFileName)</li>
  * </ul>
@@ -64,16 +100,20 @@ import exception.StreamIOException;
  */
 public class StreamIO {
 
-	static final SimpleDateFormat dateFormat = new SimpleDateFormat(
-			"yyyyMMddHHmmss", Locale.ENGLISH);
 	static String STREAM_FILENAME = "default.json";
+	private static boolean isJournaling = true;
+	private static int archiveAgeDays = StreamConstants.ARCHIVE_AGE_DAYS;
+	private static long lastSequence = StreamJournal.NO_SEQUENCE;
+	private static final StreamJournal journal = new StreamJournal();
+	private static final StreamTaskCache taskCache = new StreamTaskCache();
 	private static final TaskLogic taskLogic = TaskLogic.init();
 	private static final StreamLogger logger = StreamLogger
 			.init(StreamConstants.ComponentTag.STREAMIO);
 
 	/**
 	 * Reads and inflate the contents of serialized storage file into
-	 * StreamObject.
+	 * StreamObject. A task named more than once in the stored task list is
+	 * only listed at its first position.
 	 * 
 	 * @throws StreamIOException
 	 *             when JSON conversion fail due file corruption or IO failures
@@ -83,11 +123,89 @@ public class StreamIO {
 			List<String> taskList) throws StreamIOException {
 		assert (taskMap != null && taskList != null);
 		File streamFile = new File(getStorageFile(STREAM_FILENAME));
-		if (streamFile.exists()) {
-			loadAndInflate(streamFile, taskMap, taskList);
+		List<File> versions = StreamAtomicWriter.listVersions(streamFile,
+				StreamConstants.SAVE_GENERATIONS);
+		if (!versions.isEmpty()) {
+			loadNewestReadable(streamFile, versions, taskMap, taskList);
 		} else {
 			loadLegacyStorage(taskMap, taskList);
 		}
+		removeDuplicateNames(taskList);
+	}
+
+	/**
+	 * Removes the names of tasks already listed before, ignoring case, so
+	 * that every task is listed once, e.g. in files written by earlier
+	 * versions that did not check for it.
+	 */
+	private static void removeDuplicateNames(List<String> taskList) {
+		Set<String> listedKeys = new HashSet<String>();
+		int duplicates = 0;
+		for (Iterator<String> it = taskList.iterator(); it.hasNext();) {
+			if (!listedKeys.add(it.next().toLowerCase())) {
+				it.remove();
+				duplicates++;
+			}
+		}
+		if (duplicates > 0) {
+			logger.log(LogLevel.WARNING, "Removed " + duplicates
+					+ " duplicate names from the task list");
+		}
+	}
+
+	/**
+	 * Loads the newest readable version of the storage file, falling back to
+	 * older generations when a version could not be loaded, then replays the
+	 * journal on top of it if the journal was started on that version. The
+	 * journal normally belongs to the storage file itself, whose changes it
+	 * records, so it is skipped when falling back to an older generation, and
+	 * the next save writes a fresh storage file instead of appending to it.
+	 * 
+	 * @param streamFile
+	 *            the storage file
+	 * @param versions
+	 *            existing versions of the storage file, newest first
+	 * @param taskMap
+	 *            the map to populate loaded tasks
+	 * @param taskList
+	 *            the list to populate loaded task names
+	 * @throws StreamIOException
+	 *             if no version could be loaded
+	 */
+	private static void loadNewestReadable(File streamFile,
+			List<File> versions, Map<String, StreamTask> taskMap,
+			List<String> taskList) throws StreamIOException {
+		StreamIOException firstException = null;
+		for (File version : versions) {
+			Map<String, StreamTask> loadedMap = new HashMap<String, StreamTask>();
+			List<String> loadedList = new ArrayList<String>();
+			long sequence;
+			try {
+				sequence = loadSnapshot(version, isBinary(streamFile),
+						loadedMap, loadedList);
+			} catch (StreamIOException e) {
+				logger.log(LogLevel.WARNING, "Could not load "
+						+ version.getName() + ", " + e.getMessage());
+				if (firstException == null) {
+					firstException = e;
+				}
+				continue;
+			}
+			if (!version.equals(streamFile)) {
+				logger.log(LogLevel.WARNING, "Recovered from previous save "
+						+ version.getName());
+				resetJournal();
+			}
+			taskMap.putAll(loadedMap);
+			taskList.addAll(loadedList);
+			StreamJournal.replay(streamFile, sequence, taskMap, taskList);
+			return;
+		}
+		throw firstException;
+	}
+
+	private static synchronized void resetJournal() {
+		journal.reset();
 	}
 
 	/**
@@ -99,25 +217,28 @@ public class StreamIO {
 	 *             when JSON conversion fail due file corruption or IO failures
 	 *             when loading/accessing storage file.
 	 */
-	public static void save(Map<String, StreamTask> taskMap,
+	public static synchronized void save(Map<String, StreamTask> taskMap,
 			List<String> taskList) throws StreamIOException {
 		assert (taskMap != null && taskList != null);
 		try {
 			File streamFile = new File(getStorageFile(STREAM_FILENAME));
-
-			JSONArray taskMapJson = mapToJson(taskMap);
-			JSONObject orderListJson = taskListToJson(taskList);
-			JSONObject tasksJson = new JSONObject();
-			tasksJson.put(TaskKey.TASKMAP, taskMapJson);
-			tasksJson.put(TaskKey.TASKLIST, orderListJson);
-			writeToFile(streamFile, tasksJson);
-			logger.log(LogLevel.DEBUG, "Saved to file: " + getSaveLocation());
+			if (isJournaling && journal.isTracking(streamFile)
+					&& journal.length() < StreamConstants.JOURNAL_COMPACT_THRESHOLD) {
+				int records = journal.append(taskMap, taskList, taskCache);
+				logger.log(LogLevel.DEBUG, "Journaled " + records
+						+ " records to file: " + getSaveLocation());
+			} else {
+				compact(streamFile, taskMap, taskList);
+				logger.log(LogLevel.DEBUG, "Saved to file: "
+						+ getSaveLocation());
+			}
 		} catch (JSONException e) {
 			logger.log(LogLevel.DEBUG, "JSON conversion failed during save - "
 					+ e.getMessage());
 			throw new StreamIOException("JSON conversion failed - "
 					+ e.getMessage(), e);
 		} catch (IOException e) {
+			journal.reset();
 			logger.log(LogLevel.DEBUG,
 					"IO failure during save - " + e.getMessage());
 			throw new StreamIOException("Could not save to file - "
@@ -125,14 +246,272 @@ public class StreamIO {
 		}
 	}
 
+	/**
+	 * Enables or disables the journaled storage mode. When disabled, every
+	 * save rewrites the whole storage file.
+	 * 
+	 * @param journaling
+	 *            true to append changes to the journal on save
+	 */
+	public static synchronized void setJournaling(boolean journaling) {
+		isJournaling = journaling;
+		journal.reset();
+	}
+
+	/**
+	 * Folds the current state into a fresh snapshot, then empties the journal
+	 * and sets the journal's baseline to the saved state. The snapshot gets a
+	 * new sequence number, so that the old journal is not replayed on top of
+	 * it even if it could not be emptied, e.g. when interrupted.
+	 * 
+	 * @param streamFile
+	 *            the storage file to write
+	 * @param taskMap
+	 *            map of tasks to be saved
+	 * @param taskList
+	 *            list of task names
+	 * @throws StreamIOException
+	 *             if the tasks could not be converted
+	 * @throws IOException
+	 *             from file IO errors
+	 */
+	private static void compact(File streamFile,
+			Map<String, StreamTask> taskMap, List<String> taskList)
+			throws StreamIOException, IOException, JSONException {
+		Map<String, String> taskJsons = null;
+		if (isJournaling || !isBinary(streamFile)) {
+			taskJsons = new LinkedHashMap<String, String>();
+			for (String key : taskMap.keySet()) {
+				taskJsons.put(key, taskCache.getJson(key, taskMap.get(key)));
+			}
+			taskCache.retainAll(taskMap.keySet());
+		}
+		long sequence = nextSequence();
+		if (isBinary(streamFile)) {
+			writeBinaryFile(streamFile, sequence, taskMap, taskList);
+		} else {
+			writeToFile(streamFile, sequence, taskListToJson(taskList),
+					taskJsons.values());
+		}
+		StreamJournal.delete(streamFile);
+		if (isJournaling) {
+			journal.track(streamFile, sequence, taskJsons, taskList);
+		}
+	}
+
+	/**
+	 * @return a sequence number for a new snapshot, greater than any given out
+	 *         before in this session
+	 */
+	private static long nextSequence() {
+		lastSequence = Math.max(System.currentTimeMillis(), lastSequence + 1);
+		return lastSequence;
+	}
+
+	/**
+	 * Converts a storage file from one format to another, e.g. from JSON to
+	 * binary, including any changes pending in its journal. The format of each
+	 * file is determined by its extension.
+	 * 
+	 * @param sourceFilename
+	 *            filename of the storage file to convert
+	 * @param destinFilename
+	 *            filename of the storage file to be written
+	 * @throws StreamIOException
+	 *             if the source could not be loaded or the destination could
+	 *             not be written.
+	 */
+	public static synchronized void convert(String sourceFilename,
+			String destinFilename) throws StreamIOException {
+		File source = new File(getStorageFile(sourceFilename));
+		File destin = new File(getStorageFile(destinFilename));
+		if (!source.exists()) {
+			throw new StreamIOException("Could not load file - "
+					+ sourceFilename + " does not exist");
+		}
+		Map<String, StreamTask> taskMap = new LinkedHashMap<String, StreamTask>();
+		List<String> taskList = new ArrayList<String>();
+		loadAndInflate(source, taskMap, taskList);
+		try {
+			if (isBinary(destin)) {
+				writeBinaryFile(destin, nextSequence(), taskMap, taskList);
+			} else {
+				writeToFile(destin, nextSequence(), taskListToJson(taskList),
+						mapToJsonStrings(taskMap));
+			}
+			StreamJournal.delete(destin);
+		} catch (IOException e) {
+			throw new StreamIOException("Could not save to file - "
+					+ e.getMessage(), e);
+		} finally {
+			if (journal.isTracking(destin)) {
+				journal.reset();
+			}
+		}
+		logger.log(LogLevel.DEBUG, "Converted " + sourceFilename + " to "
+				+ destinFilename);
+	}
+
+	/**
+	 * Moves the given tasks, e.g. those found with getArchiveCutoff(), into
+	 * the archive file, replacing archived tasks of the same name. The tasks
+	 * should be removed from the live state only after they were archived,
+	 * and the state saved afterwards to shrink the storage file.
+	 * 
+	 * @param tasks
+	 *            the tasks to be archived
+	 * @throws StreamIOException
+	 *             if the archive file could not be loaded or saved.
+	 */
+	public static synchronized void archive(List<StreamTask> tasks)
+			throws StreamIOException {
+		assert (tasks != null);
+		if (tasks.isEmpty()) {
+			return;
+		}
+		writeArchive(tasks, null);
+		logger.log(LogLevel.DEBUG, "Archived " + tasks.size()
+				+ " tasks to file: " + getArchiveFile());
+	}
+
+	/**
+	 * Removes a task from the archive file, once it was moved back into the
+	 * live state and saved, e.g. when it is marked as ongoing again.
+	 * 
+	 * @param taskName
+	 *            name of the task to be removed
+	 * @throws StreamIOException
+	 *             if the archive file could not be loaded or saved.
+	 */
+	public static synchronized void unarchive(String taskName)
+			throws StreamIOException {
+		assert (taskName != null);
+		writeArchive(new ArrayList<StreamTask>(), taskName.toLowerCase());
+		logger.log(LogLevel.DEBUG, "Unarchived " + taskName + " from file: "
+				+ getArchiveFile());
+	}
+
+	/**
+	 * Opens the archive file, for reading archived tasks one at a time. The
+	 * archive is closed by the caller, and opened again after it is written.
+	 * 
+	 * @return the archive, or null if no task was archived
+	 * @throws StreamIOException
+	 *             if the archive file could not be opened.
+	 */
+	public static synchronized StreamMappedStore openArchive()
+			throws StreamIOException {
+		File archiveFile = new File(getArchiveFile());
+		if (!archiveFile.exists()) {
+			return null;
+		}
+		return StreamMappedStore.open(archiveFile);
+	}
+
+	/**
+	 * Gets the time at or before which done tasks are archived, the archive
+	 * age ago.
+	 * 
+	 * @return the time in epoch millis, or StreamTask.NO_TIME if archiving
+	 *         is disabled
+	 */
+	public static synchronized long getArchiveCutoff() {
+		if (archiveAgeDays < 0) {
+			return StreamTask.NO_TIME;
+		}
+		Calendar cutoff = Calendar.getInstance();
+		cutoff.add(Calendar.DAY_OF_MONTH, -archiveAgeDays);
+		return cutoff.getTimeInMillis();
+	}
+
+	/**
+	 * Sets how long done tasks stay in the storage file before they are
+	 * archived.
+	 * 
+	 * @param days
+	 *            age in days of done tasks to be archived, negative to
+	 *            disable archiving
+	 */
+	public static synchronized void setArchiveAge(int days) {
+		archiveAgeDays = days;
+	}
+
+	/**
+	 * Get the absolute path of the archive file of the storage file.
+	 * 
+	 * @return file path of the archive file.
+	 * @throws StreamIOException
+	 */
+	static String getArchiveFile() throws StreamIOException {
+		return getStorageFile(STREAM_FILENAME
+				+ StreamConstants.ARCHIVE_EXTENSION);
+	}
+
+	/**
+	 * Writes the archive file again with the added tasks, which replace
+	 * archived tasks of the same name, and without the task of the removed
+	 * key. The file is deleted once no task is left in it.
+	 */
+	private static void writeArchive(List<StreamTask> added, String removedKey)
+			throws StreamIOException {
+		File archiveFile = new File(getArchiveFile());
+		Map<String, StreamTask> archiveMap = new HashMap<String, StreamTask>();
+		List<String> archiveList = new ArrayList<String>();
+		if (archiveFile.exists()) {
+			// not mapped, since the file is replaced below
+			StreamMappedStore store = StreamMappedStore.read(archiveFile);
+			try {
+				for (int i = 0; i < store.size(); i++) {
+					String taskName = store.getTaskName(i);
+					if (!taskName.toLowerCase().equals(removedKey)) {
+						archiveMap.put(taskName.toLowerCase(),
+								store.getTask(i));
+						archiveList.add(taskName);
+					}
+				}
+			} finally {
+				try {
+					store.close();
+				} catch (IOException e) {
+					logger.log(LogLevel.WARNING, "Could not close archive "
+							+ archiveFile.getName() + ", " + e.getMessage());
+				}
+			}
+		}
+		for (StreamTask task : added) {
+			if (archiveMap.put(task.getKey(), task) == null) {
+				archiveList.add(task.getTaskName());
+			}
+		}
+		if (archiveList.isEmpty()) {
+			try {
+				Files.deleteIfExists(archiveFile.toPath());
+			} catch (IOException e) {
+				throw new StreamIOException("Could not save to file - "
+						+ e.getMessage(), e);
+			}
+		} else {
+			StreamMappedStore.write(archiveFile, archiveMap, archiveList);
+		}
+	}
+
+	/**
+	 * @return true if the file is stored in the binary format
+	 */
+	static boolean isBinary(File file) {
+		return file.getName().endsWith(
+				StreamConstants.BINARY_SAVEFILE_EXTENSION);
+	}
+
 	/**
 	 * Set the filename for saving.
 	 * 
 	 * @param saveFileName
 	 *            filename of storage file to save.
 	 */
-	public static void setFilename(String saveFileName) {
+	public static synchronized void setFilename(String saveFileName) {
 		STREAM_FILENAME = saveFileName;
+		journal.reset();
 	}
 
 	/**
@@ -161,71 +540,157 @@ public class StreamIO {
 	private static void loadAndInflate(File file,
 			Map<String, StreamTask> taskMap, List<String> taskList)
 			throws StreamIOException {
-		JSONObject tasksJson = loadFromFile(file);
-		if (tasksJson != null) {
-			loadMap(taskMap, tasksJson);
-			loadTaskList(taskList, tasksJson);
-			logger.log(LogLevel.DEBUG, "Loaded file: " + STREAM_FILENAME);
+		long sequence = loadSnapshot(file, isBinary(file), taskMap, taskList);
+		StreamJournal.replay(file, sequence, taskMap, taskList);
+	}
+
+	/**
+	 * Loads a version of a storage file, in the format of the storage file,
+	 * as the extension of a generation is its number.
+	 * 
+	 * @return the sequence number of the snapshot
+	 */
+	private static long loadSnapshot(File file, boolean isBinary,
+			Map<String, StreamTask> taskMap, List<String> taskList)
+			throws StreamIOException {
+		long sequence = isBinary ? StreamBinaryFormat.read(file,
+				taskMap, taskList) : loadFromFile(file, taskMap, taskList);
+		if (file.length() > 0) {
+			logger.log(LogLevel.DEBUG, "Loaded file: " + file.getName());
 		} else {
-			logger.log(LogLevel.DEBUG, "File not found: " + STREAM_FILENAME);
+			logger.log(LogLevel.DEBUG, "File empty: " + file.getName());
 		}
+		return sequence;
 	}
 
 	/**
-	 * Serialized the given JSONObject and writes to the specified File.
+	 * Writes the storage file from the given task list and serialized tasks,
+	 * splicing the serialized tasks into the output as they are. The file is
+	 * replaced atomically, keeping its previous versions as generations.
 	 * 
 	 * @param destin
 	 *            destination file to write the data
-	 * @param tasksJson
-	 *            JSONObject to be serialized
+	 * @param sequence
+	 *            sequence number of the snapshot
+	 * @param orderListJson
+	 *            JSONObject of the task list to be serialized
+	 * @param taskJsons
+	 *            tasks already serialized into JSON
+	 * @throws IOException
+	 *             from file IO errors
+	 */
+	static void writeToFile(File destin, final long sequence,
+			final JSONObject orderListJson, final Collection<String> taskJsons)
+			throws IOException {
+		StreamAtomicWriter.write(destin, StreamConstants.SAVE_GENERATIONS,
+				new StreamAtomicWriter.Content() {
+					@Override
+					public void writeTo(File file) throws IOException {
+						writeJson(file, sequence, orderListJson, taskJsons);
+					}
+				});
+	}
+
+	/**
+	 * Writes the given tasks to the binary storage file. The file is replaced
+	 * atomically, keeping its previous versions as generations.
+	 * 
+	 * @param destin
+	 *            destination file to write the data
+	 * @param sequence
+	 *            sequence number of the snapshot
+	 * @param taskMap
+	 *            map of tasks to be saved
+	 * @param taskList
+	 *            list of task names
 	 * @throws IOException
 	 *             from file IO errors
 	 */
-	static void writeToFile(File destin, JSONObject tasksJson)
+	static void writeBinaryFile(File destin, final long sequence,
+			final Map<String, StreamTask> taskMap, final List<String> taskList)
+			throws IOException {
+		StreamAtomicWriter.write(destin, StreamConstants.SAVE_GENERATIONS,
+				new StreamAtomicWriter.Content() {
+					@Override
+					public void writeTo(File file) throws IOException {
+						StreamBinaryFormat.write(file, sequence, taskMap,
+								taskList);
+					}
+				});
+	}
+
+	private static void writeJson(File destin, long sequence,
+			JSONObject orderListJson, Collection<String> taskJsons)
 			throws IOException {
 		FileWriter fwriter = new FileWriter(destin, false);
 		BufferedWriter bw = new BufferedWriter(fwriter);
 		try {
-			bw.write(tasksJson.toString());
+			bw.write("{\"" + TaskKey.TASKLIST + "\":");
+			bw.write(orderListJson.toString());
+			bw.write(",\"" + TaskKey.TASKMAP + "\":[");
+			boolean isFirst = true;
+			for (String taskJson : taskJsons) {
+				if (!isFirst) {
+					bw.write(',');
+				}
+				bw.write(taskJson);
+				isFirst = false;
+			}
+			bw.write("],\"" + TaskKey.SEQUENCE + "\":" + sequence + "}");
 			bw.newLine();
 		} finally {
-			try {
-				bw.close();
-			} catch (Exception e) {
-				// ignore exception
-			}
+			bw.close();
 		}
 	}
 
 	/**
-	 * Loads the contents in the given file and parse it into a JSONObject
+	 * Streams the contents of the given file, building the tasks straight
+	 * from the file into the taskMap and taskList while reading.
 	 * 
 	 * @param file
 	 *            source file to be loaded
-	 * @return JSONObject that is parsed
+	 * @param taskMap
+	 *            the map to populate loaded tasks
+	 * @param taskList
+	 *            the list to populate loaded task names
+	 * @return the sequence number of the snapshot, NO_SEQUENCE if the file is
+	 *         empty or has none
 	 * @throws StreamIOException
 	 *             from file IO errors or when the contents could not be parsed
 	 */
-	static JSONObject loadFromFile(File file) throws StreamIOException {
-		StringBuilder stringBuilder = new StringBuilder();
-		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-			String line = null;
-			while ((line = reader.readLine()) != null) {
-				stringBuilder.append(line).append("\n");
+	static long loadFromFile(File file, Map<String, StreamTask> taskMap,
+			List<String> taskList) throws StreamIOException {
+		try (StreamJsonReader reader = new StreamJsonReader(
+				new BufferedReader(new FileReader(file)))) {
+			long sequence = StreamJournal.NO_SEQUENCE;
+			if (reader.isEmpty()) {
+				return sequence;
 			}
-			String mapJsonString = stringBuilder.toString().trim();
-			if (mapJsonString.isEmpty()) {
-				return null;
-			} else {
-				return new JSONObject(mapJsonString);
+			reader.beginObject();
+			while (reader.hasNext()) {
+				switch (reader.nextName()) {
+					case TaskKey.TASKMAP:
+						readTasks(reader, taskMap);
+						break;
+					case TaskKey.TASKLIST:
+						readTaskList(reader, taskList);
+						break;
+					case TaskKey.SEQUENCE:
+						sequence = reader.nextLong();
+						break;
+					default:
+						reader.skipValue();
+				}
 			}
-		} catch (IOException e) {
-			throw new StreamIOException("Could not load file - "
-					+ e.getMessage(), e);
-		} catch (JSONException e) {
+			reader.endObject();
+			return sequence;
+		} catch (StreamJsonReader.MalformedJsonException e) {
 			throw new StreamIOException(
 					"File corrupted, could not parse file contents - "
 							+ e.getMessage(), e);
+		} catch (IOException e) {
+			throw new StreamIOException("Could not load file - "
+					+ e.getMessage(), e);
 		}
 	}
 
@@ -250,54 +715,129 @@ public class StreamIO {
 	}
 
 	/**
-	 * Populate the task list with task names from the json object given, which
-	 * should contain a list of tasks data
+	 * Reads the task list, with task names mapped to their index, into the
+	 * given list.
 	 * 
+	 * @param reader
+	 *            positioned at the task list object
 	 * @param taskList
 	 *            the list to populate loaded task names
-	 * @param tasksJson
-	 *            the json containing all tasks data
-	 * @throws StreamIOException
-	 *             if the json could not be parsed
+	 * @throws IOException
+	 *             from file IO errors or when the contents could not be parsed
 	 */
-	static void loadTaskList(List<String> taskList, JSONObject tasksJson)
-			throws StreamIOException {
-		try {
-			JSONObject orderListJson = tasksJson
-					.getJSONObject(TaskKey.TASKLIST);
-			List<String> storedList = jsonToTaskList(orderListJson);
-			taskList.addAll(storedList);
-		} catch (JSONException e) {
-			throw new StreamIOException(
-					"File corrupted, could not parse file contents - "
-							+ e.getMessage(), e);
+	private static void readTaskList(StreamJsonReader reader,
+			List<String> taskList) throws IOException {
+		Map<String, String> orderList = new HashMap<String, String>();
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String index = reader.nextName();
+			orderList.put(index, reader.nextString());
+		}
+		reader.endObject();
+		for (int i = 0; orderList.containsKey(String.valueOf(i)); i++) {
+			taskList.add(orderList.get(String.valueOf(i)));
 		}
 	}
 
 	/**
-	 * Populate the task map with tasks from the json object given, which should
-	 * contain a list of tasks data
+	 * Reads the array of tasks into the given map. The fields of the tasks are
+	 * read in batches, and each batch is inflated in parallel while the next
+	 * one is read.
 	 * 
+	 * @param reader
+	 *            positioned at the task array
 	 * @param taskMap
-	 *            the map to populate with loaded task names
-	 * @param tasksJson
-	 *            the json containing all tasks data
-	 * @throws StreamIOException
-	 *             if the json could not be parsed
+	 *            the map to populate loaded tasks
+	 * @throws IOException
+	 *             from file IO errors or when the contents could not be parsed
 	 */
-	static void loadMap(Map<String, StreamTask> taskMap, JSONObject tasksJson)
-			throws StreamIOException {
+	private static void readTasks(StreamJsonReader reader,
+			Map<String, StreamTask> taskMap) throws IOException {
+		StreamParallelInflater.Feed feed = StreamParallelInflater
+				.feedInto(taskMap);
 		try {
-			JSONArray taskMapJson = tasksJson.getJSONArray(TaskKey.TASKMAP);
-			HashMap<String, StreamTask> storedTasks = jsonToMap(taskMapJson);
-			taskMap.putAll(storedTasks);
-		} catch (JSONException e) {
-			throw new StreamIOException(
-					"File corrupted, could not parse file contents - "
-							+ e.getMessage(), e);
+			List<TaskFields> batch = new ArrayList<TaskFields>();
+			reader.beginArray();
+			while (reader.hasNext()) {
+				batch.add(readTaskFields(reader));
+				if (batch.size() == StreamConstants.PARALLEL_LOAD_BATCH) {
+					feed.add(toSource(batch));
+					batch = new ArrayList<TaskFields>();
+				}
+			}
+			reader.endArray();
+			feed.add(toSource(batch));
+			feed.finish();
+		} catch (StreamIOException e) {
+			throw new StreamJsonReader.MalformedJsonException(
+					e.getMessage(), e);
+		} finally {
+			feed.cancel();
 		}
 	}
 
+	private static StreamParallelInflater.Source toSource(
+			final List<TaskFields> tasksFields) {
+		return new StreamParallelInflater.Source() {
+			@Override
+			public int size() {
+				return tasksFields.size();
+			}
+
+			@Override
+			public StreamTask inflate(int index) throws StreamIOException {
+				return tasksFields.get(index).inflate();
+			}
+		};
+	}
+
+	private static TaskFields readTaskFields(StreamJsonReader reader)
+			throws IOException {
+		TaskFields fields = new TaskFields();
+		reader.beginObject();
+		while (reader.hasNext()) {
+			switch (reader.nextName()) {
+				case TaskKey.NAME:
+					fields.taskName = reader.nextString();
+					break;
+				case TaskKey.DESCRIPTION:
+					fields.description = reader.nextString();
+					break;
+				case TaskKey.STARTTIME:
+					fields.startTime = reader.nextString();
+					break;
+				case TaskKey.DEADLINE:
+					fields.deadline = reader.nextString();
+					break;
+				case TaskKey.RANK:
+					fields.rank = reader.nextString();
+					break;
+				case TaskKey.DONE:
+					fields.isDone = reader.nextBoolean();
+					break;
+				case TaskKey.DONETIME:
+					fields.doneTime = reader.nextString();
+					break;
+				case TaskKey.TAGS:
+					reader.beginArray();
+					while (reader.hasNext()) {
+						fields.tags.add(reader.nextString());
+					}
+					reader.endArray();
+					break;
+				default:
+					reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		if (fields.taskName == null) {
+			throw new StreamJsonReader.MalformedJsonException(
+					"Task without " + TaskKey.NAME);
+		}
+		return fields;
+	}
+
 	/**
 	 * Converts a list of task names to json object with each task mapped to
 	 * their index in the list.
@@ -357,19 +897,46 @@ public class StreamIO {
 		return mapJson;
 	}
 
-	static HashMap<String, StreamTask> jsonToMap(JSONArray tasksJson)
+	private static List<String> mapToJsonStrings(Map<String, StreamTask> map)
 			throws StreamIOException {
-		try {
-			HashMap<String, StreamTask> map = new HashMap<String, StreamTask>();
-			for (int i = 0; i < tasksJson.length(); i++) {
-				StreamTask task = jsonToTask(tasksJson.getJSONObject(i));
-				map.put(task.getTaskName().toLowerCase(), task);
-			}
-			return map;
-		} catch (JSONException e) {
-			throw new StreamIOException("JSON conversion failed - "
-					+ e.getMessage(), e);
+		List<String> taskJsons = new ArrayList<String>(map.size());
+		for (StreamTask task : map.values()) {
+			taskJsons.add(taskToJson(task).toString());
 		}
+		return taskJsons;
+	}
+
+	/**
+	 * Inflates the tasks of the array into a map, splitting the array across
+	 * a fork-join pool when it is large.
+	 * 
+	 * @param tasksJson
+	 *            array of serialized tasks
+	 * @return map of the tasks with their task keys
+	 * @throws StreamIOException
+	 *             of the first task that could not be converted
+	 */
+	static HashMap<String, StreamTask> jsonToMap(final JSONArray tasksJson)
+			throws StreamIOException {
+		return StreamParallelInflater
+				.inflate(new StreamParallelInflater.Source() {
+					@Override
+					public int size() {
+						return tasksJson.length();
+					}
+
+					@Override
+					public StreamTask inflate(int index)
+							throws StreamIOException {
+						try {
+							return jsonToTask(tasksJson.getJSONObject(index));
+						} catch (JSONException e) {
+							throw new StreamIOException(
+									"JSON conversion failed - "
+											+ e.getMessage(), e);
+						}
+					}
+				});
 	}
 
 	static JSONObject taskToJson(StreamTask task) throws StreamIOException {
@@ -379,9 +946,12 @@ public class StreamIO {
 			taskJson.put(TaskKey.DESCRIPTION, task.getDescription());
 			taskJson.put(TaskKey.TAGS, task.getTags());
 			taskJson.put(TaskKey.RANK, task.getRank());
-			taskJson.put(TaskKey.STARTTIME, formatDate(task.getStartTime()));
-			taskJson.put(TaskKey.DEADLINE, formatDate(task.getDeadline()));
+			taskJson.put(TaskKey.STARTTIME,
+					formatMillis(task.getStartTimeMillis()));
+			taskJson.put(TaskKey.DEADLINE, formatMillis(task.getDeadlineMillis()));
 			taskJson.put(TaskKey.DONE, task.isDone());
+			taskJson.put(TaskKey.DONETIME,
+					formatMillis(task.getDoneTimeMillis()));
 			return taskJson;
 		} catch (JSONException e) {
 			throw new StreamIOException("JSON conversion failed - "
@@ -398,25 +968,23 @@ public class StreamIO {
 			}
 
 			if (taskJson.has(TaskKey.STARTTIME)) {
-				Calendar startTime = Calendar.getInstance();
-				Date startTimeDate = dateFormat.parse(taskJson
-						.getString(TaskKey.STARTTIME));
-				startTime.setTime(startTimeDate);
-				task.setStartTime(startTime);
+				task.setStartTimeMillis(parseMillis(taskJson
+						.getString(TaskKey.STARTTIME)));
 			}
 
 			if (taskJson.has(TaskKey.DEADLINE)) {
-				Calendar deadline = Calendar.getInstance();
-				Date deadlineDate = dateFormat.parse(taskJson
-						.getString(TaskKey.DEADLINE));
-				deadline.setTime(deadlineDate);
-				task.setDeadline(deadline);
+				task.setDeadlineMillis(parseMillis(taskJson
+						.getString(TaskKey.DEADLINE)));
 			}
 
 			if (taskJson.has(TaskKey.TAGS)) {
 				JSONArray tagsJson = taskJson.getJSONArray(TaskKey.TAGS);
-				for (int i = 0; i < tagsJson.length(); i++) {
-					taskLogic.addTags(task, tagsJson.getString(i));
+				String[] tags = new String[tagsJson.length()];
+				for (int i = 0; i < tags.length; i++) {
+					tags[i] = tagsJson.getString(i);
+				}
+				if (tags.length > 0) {
+					taskLogic.addTags(task, tags);
 				}
 			}
 
@@ -427,6 +995,11 @@ public class StreamIO {
 				}
 			}
 
+			if (taskJson.has(TaskKey.DONETIME)) {
+				task.setDoneTimeMillis(parseMillis(taskJson
+						.getString(TaskKey.DONETIME)));
+			}
+
 			if (taskJson.has(TaskKey.RANK)) {
 				task.setRank(taskJson.getString(TaskKey.RANK));
 			}
@@ -437,11 +1010,35 @@ public class StreamIO {
 		}
 	}
 
+	static Calendar parseDate(String date) throws ParseException {
+		return StreamDateCodec.STORAGE.parseCalendar(date);
+	}
+
+	/**
+	 * Parses a stored date straight into epoch millis, so that loaded tasks
+	 * never hold a Calendar.
+	 */
+	private static long parseMillis(String date) throws ParseException {
+		if (date == null) {
+			return StreamTask.NO_TIME;
+		} else {
+			return StreamDateCodec.STORAGE.parse(date);
+		}
+	}
+
+	private static String formatMillis(long millis) {
+		if (millis == StreamTask.NO_TIME) {
+			return null;
+		} else {
+			return StreamDateCodec.STORAGE.format(millis);
+		}
+	}
+
 	static String formatDate(Calendar calendar) {
 		if (calendar == null) {
 			return null;
 		} else {
-			return formatDate(calendar.getTime());
+			return StreamDateCodec.STORAGE.format(calendar);
 		}
 	}
 
@@ -449,7 +1046,7 @@ public class StreamIO {
 		if (date == null) {
 			return null;
 		} else {
-			return dateFormat.format(date);
+			return StreamDateCodec.STORAGE.format(date);
 		}
 	}
 
@@ -498,15 +1095,56 @@ public class StreamIO {
 		return getLogsDirectory() + logFileName;
 	}
 
+	/**
+	 * Fields of a task as read from the storage file, to be inflated into a
+	 * StreamTask. Inflating different instances concurrently is safe, as
+	 * dates are parsed with the thread-safe StreamDateCodec.
+	 */
+	private static class TaskFields {
+		String taskName;
+		String description;
+		String startTime;
+		String deadline;
+		String rank;
+		boolean isDone;
+		String doneTime;
+		final List<String> tags = new ArrayList<String>();
+
+		StreamTask inflate() throws StreamIOException {
+			StreamTask task = new StreamTask(taskName);
+			task.setDescription(description);
+			try {
+				task.setStartTimeMillis(parseMillis(startTime));
+				task.setDeadlineMillis(parseMillis(deadline));
+				if (isDone) {
+					task.markAsDone();
+					task.setDoneTimeMillis(parseMillis(doneTime));
+				}
+			} catch (ParseException e) {
+				throw new StreamIOException("Unparseable date - "
+						+ e.getMessage(), e);
+			}
+			if (!tags.isEmpty()) {
+				taskLogic.addTags(task, tags.toArray(new String[tags.size()]));
+			}
+			if (rank != null) {
+				task.setRank(rank);
+			}
+			return task;
+		}
+	}
+
 	private class TaskKey {
 		static final String TASKMAP = "allTasks";
 		static final String TASKLIST = "taskList";
+		static final String SEQUENCE = "sequence";
 		static final String STARTTIME = "startTime";
 		static final String DEADLINE = "deadline";
 		static final String NAME = "taskName";
 		static final String DESCRIPTION = "taskDescription";
 		static final String TAGS = "tags";
 		static final String DONE = "done";
+		static final String DONETIME = "doneTime";
 		static final String RANK = "rank";
 	}
 
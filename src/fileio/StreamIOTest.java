@@ -1,27 +1,33 @@
 package fileio;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileReader;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Locale;
 
 import model.StreamTask;
 
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import util.StreamConstants;
 import exception.StreamIOException;
 
 //@author A0096529N
@@ -34,7 +40,8 @@ public class StreamIOTest {
 			+ "- %1$s\nDelete the file if already present.";
 	private static final String CHECK_FILE = "streamtestCheckFile.json";
 	private static final String TEST_SAVE_FILENAME = "streamtest";
-	private SimpleDateFormat simpleDateFormat = StreamIO.dateFormat;
+	private SimpleDateFormat simpleDateFormat = new SimpleDateFormat(
+			"yyyyMMddHHmmss", Locale.ENGLISH);
 	private StreamTask task1, task2;
 	private HashMap<String, StreamTask> map;
 	private ArrayList<String> taskList;
@@ -43,7 +50,7 @@ public class StreamIOTest {
 	public void setUp() throws Exception {
 		task1 = new StreamTask("Code Jarvis");
 		Calendar calendar = Calendar.getInstance();
-		Date date = StreamIO.dateFormat.parse("20410719000000");
+		Date date = simpleDateFormat.parse("20410719000000");
 		calendar.setTime(date); // instead of Calendar.set(), for loadTest,
 		// serialized calendar.
 		task1.setDeadline(calendar);
@@ -53,7 +60,7 @@ public class StreamIOTest {
 
 		task2 = new StreamTask("Build IoT");
 		Calendar calendar2 = Calendar.getInstance();
-		Date date2 = StreamIO.dateFormat.parse("20180101123456");
+		Date date2 = simpleDateFormat.parse("20180101123456");
 		calendar2.setTime(date2); // instead of Calendar.set(), for loadTest,
 		// serialized calendar.
 		task2.setDeadline(calendar2);
@@ -103,7 +110,10 @@ public class StreamIOTest {
 	@After
 	public void tearDown() throws Exception {
 		StreamIO.STREAM_FILENAME = TEST_SAVE_FILENAME;
-		new File(StreamIO.getSaveLocation()).delete();
+		for (File version : StreamAtomicWriter.listVersions(new File(
+				StreamIO.getSaveLocation()), StreamConstants.SAVE_GENERATIONS)) {
+			version.delete();
+		}
 		StreamIO.STREAM_FILENAME = CHECK_FILE;
 		new File(StreamIO.getSaveLocation()).delete();
 	}
@@ -125,8 +135,12 @@ public class StreamIOTest {
 		try {
 			File saveFile = new File(StreamIO.getSaveLocation());
 			StreamIO.save(map, taskList);
-			assertEquals(testMessage, expectedFileContent,
-					fileToString(saveFile));
+			JSONObject actual = new JSONObject(fileToString(saveFile));
+			assertTrue("Snapshot sequence",
+					actual.getLong("sequence") > StreamJournal.NO_SEQUENCE);
+			actual.remove("sequence");
+			assertJsonEquals(testMessage, new JSONObject(expectedFileContent),
+					actual);
 		} catch (StreamIOException e) {
 			fail(String.format(FAIL_EXCEPTION_MESSAGE, testMessage,
 					"StreamIOException", e.getMessage()));
@@ -158,6 +172,65 @@ public class StreamIOTest {
 		}
 	}
 
+	@Test
+	public void loadCorruptedTest() throws IOException {
+		String testMessage = "Load truncated file";
+		StreamIO.STREAM_FILENAME = CHECK_FILE;
+		try {
+			overwriteFile(new File(StreamIO.getSaveLocation()),
+					"{\"taskList\":{\"0\":\"Code Jarvis\"},\"allTasks\":[{\"taskName\":");
+			StreamIO.load(new HashMap<String, StreamTask>(),
+					new ArrayList<String>());
+			fail(testMessage);
+		} catch (StreamIOException e) {
+			assertEquals(testMessage, true,
+					e.getMessage().startsWith("File corrupted"));
+		} finally {
+			StreamIO.STREAM_FILENAME = TEST_SAVE_FILENAME;
+		}
+	}
+
+	@Test
+	public void loadEscapedTest() throws IOException, StreamIOException {
+		String testMessage = "Load escaped strings";
+		StreamIO.STREAM_FILENAME = CHECK_FILE;
+		try {
+			overwriteFile(new File(StreamIO.getSaveLocation()),
+					"{\"allTasks\":[{\"done\":true,\"taskName\":\"Caf\\u00e9 \\\"X\\\"\","
+							+ "\"taskDescription\":\"a\\/b\\tc\"}],"
+							+ "\"taskList\":{\"0\":\"Caf\\u00e9 \\\"X\\\"\"}}");
+			HashMap<String, StreamTask> loadedMap = new HashMap<String, StreamTask>();
+			ArrayList<String> loadedList = new ArrayList<String>();
+			StreamIO.load(loadedMap, loadedList);
+			StreamTask task = loadedMap.get("caf\u00e9 \"x\"");
+			assertEquals(testMessage, "Caf\u00e9 \"X\"", loadedList.get(0));
+			assertEquals(testMessage, "a/b\tc", task.getDescription());
+			assertEquals(testMessage, true, task.isDone());
+		} finally {
+			StreamIO.STREAM_FILENAME = TEST_SAVE_FILENAME;
+		}
+	}
+
+	@Test
+	public void loadDuplicateNamesTest() throws IOException,
+			StreamIOException {
+		String testMessage = "Load task listed twice";
+		StreamIO.STREAM_FILENAME = CHECK_FILE;
+		try {
+			overwriteFile(new File(StreamIO.getSaveLocation()),
+					"{\"taskList\":{\"0\":\"Code Jarvis\",\"1\":\"Build IoT\","
+							+ "\"2\":\"code jarvis\",\"3\":\"Build IoT\"},"
+							+ "\"allTasks\":[{\"taskName\":\"Code Jarvis\"},"
+							+ "{\"taskName\":\"Build IoT\"}]}");
+			ArrayList<String> loadedList = new ArrayList<String>();
+			StreamIO.load(new HashMap<String, StreamTask>(), loadedList);
+			assertEquals(testMessage,
+					Arrays.asList("Code Jarvis", "Build IoT"), loadedList);
+		} finally {
+			StreamIO.STREAM_FILENAME = TEST_SAVE_FILENAME;
+		}
+	}
+
 	@Test
 	public void mapToJsonTest() {
 		String testMessage = "Map to JSON conversion";
@@ -247,6 +320,34 @@ public class StreamIOTest {
 		assertEquals(testMessage, expected, StreamIO.formatDate(calendar));
 	}
 
+	/**
+	 * Compares JSON values by content, ignoring the order of object members.
+	 */
+	private void assertJsonEquals(String message, Object expected,
+			Object actual) {
+		if (expected instanceof JSONObject) {
+			JSONObject expectedObject = (JSONObject) expected;
+			JSONObject actualObject = (JSONObject) actual;
+			assertEquals(message, expectedObject.keySet(),
+					actualObject.keySet());
+			for (Object key : expectedObject.keySet()) {
+				assertJsonEquals(message + "." + key,
+						expectedObject.get((String) key),
+						actualObject.get((String) key));
+			}
+		} else if (expected instanceof JSONArray) {
+			JSONArray expectedArray = (JSONArray) expected;
+			JSONArray actualArray = (JSONArray) actual;
+			assertEquals(message, expectedArray.length(), actualArray.length());
+			for (int i = 0; i < expectedArray.length(); i++) {
+				assertJsonEquals(message + "[" + i + "]", expectedArray.get(i),
+						actualArray.get(i));
+			}
+		} else {
+			assertEquals(message, expected, actual);
+		}
+	}
+
 	private String fileToString(File file) throws IOException {
 		StringBuilder stringBuilder = new StringBuilder();
 		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
@@ -267,6 +368,12 @@ public class StreamIOTest {
 		}
 	}
 
+	private void overwriteFile(File destin, String content) throws IOException {
+		try (FileWriter writer = new FileWriter(destin, false)) {
+			writer.write(content);
+		}
+	}
+
 	private String serializeTaskMap(HashMap<String, StreamTask> taskMap) {
 		JSONObject taskMapJson = new JSONObject(taskMap);
 		return taskMapJson.toString();
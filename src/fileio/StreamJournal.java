@@ -0,0 +1,358 @@
+package fileio;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.StreamTask;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import util.StreamConstants;
+import util.StreamLogger;
+import util.StreamLogger.LogLevel;
+import exception.StreamIOException;
+
+//@author A0096529N
+/**
+ * <p>
+ * Append-only write-ahead journal kept next to the storage snapshot. Every
+ * save appends only the tasks that changed since the last save, instead of
+ * rewriting the whole snapshot.
+ * </p>
+ *
+ * <h3>Journal Format</h3>
+ * <p>
+ * One JSON record per line, each with an <i>op</i> of <i>put</i> (the full
+ * serialized task), <i>remove</i> (the task key) or <i>order</i> (the task
+ * list). Records are replayed in order on top of the snapshot when loading.
+ * </p>
+ * <p>
+ * The first record, of <i>op</i> <i>snapshot</i>, holds the sequence number of
+ * the snapshot the journal was started on. A journal is only replayed on top
+ * of the snapshot with the same sequence number, so that a journal left
+ * behind by a save interrupted after writing a newer snapshot is ignored.
+ * Journals without this record belong to snapshots without a sequence number.
+ * </p>
+ *
+ * @version V0.5
+ */
+class StreamJournal {
+
+	/**
+	 * Sequence number of snapshots and journals written before sequence
+	 * numbers were introduced.
+	 */
+	static final long NO_SEQUENCE = 0;
+
+	private static final StreamLogger logger = StreamLogger
+			.init(StreamConstants.ComponentTag.STREAMIO);
+
+	private File snapshotFile;
+	private long sequence;
+	private Map<String, String> journaledTasks;
+	private List<String> journaledOrder;
+
+	/**
+	 * Gets the journal file belonging to a snapshot file.
+	 *
+	 * @param snapshotFile
+	 *            the storage snapshot
+	 * @return the journal file, which may not exist yet
+	 */
+	static File getJournalFile(File snapshotFile) {
+		return new File(snapshotFile.getPath()
+				+ StreamConstants.JOURNAL_EXTENSION);
+	}
+
+	/**
+	 * Checks whether the journal knows the last persisted state of the given
+	 * snapshot file, i.e. whether changes can be appended to it.
+	 *
+	 * @param file
+	 *            the storage snapshot to be saved to
+	 * @return true if saving can be done by appending to the journal
+	 */
+	boolean isTracking(File file) {
+		return journaledTasks != null && file.equals(snapshotFile);
+	}
+
+	/**
+	 * Sets the baseline state of the journal, after a fresh snapshot has been
+	 * written and the journal has been emptied.
+	 *
+	 * @param file
+	 *            the snapshot that was written
+	 * @param snapshotSequence
+	 *            the sequence number written in the snapshot
+	 * @param taskJsons
+	 *            serialized tasks mapped to their task keys
+	 * @param taskList
+	 *            the saved order of tasks
+	 */
+	void track(File file, long snapshotSequence,
+			Map<String, String> taskJsons, List<String> taskList) {
+		snapshotFile = file;
+		sequence = snapshotSequence;
+		journaledTasks = taskJsons;
+		journaledOrder = new ArrayList<String>(taskList);
+	}
+
+	/**
+	 * Stops tracking, so that the next save writes a full snapshot.
+	 */
+	void reset() {
+		snapshotFile = null;
+		journaledTasks = null;
+		journaledOrder = null;
+	}
+
+	/**
+	 * @return size of the journal file in bytes
+	 */
+	long length() {
+		return getJournalFile(snapshotFile).length();
+	}
+
+	/**
+	 * Appends the difference between the last persisted state and the given
+	 * state to the journal. Nothing is written if nothing changed.
+	 *
+	 * @param taskMap
+	 *            map of tasks to be saved
+	 * @param taskList
+	 *            list of task names
+	 * @param taskCache
+	 *            cache of serialized tasks, so that unchanged tasks are not
+	 *            serialized again
+	 * @return number of records appended
+	 * @throws StreamIOException
+	 *             if the records could not be constructed
+	 * @throws IOException
+	 *             from file IO errors
+	 */
+	int append(Map<String, StreamTask> taskMap, List<String> taskList,
+			StreamTaskCache taskCache) throws StreamIOException, IOException {
+		List<String> records = new ArrayList<String>();
+		Map<String, String> currentTasks = new HashMap<String, String>();
+		try {
+			for (String key : taskMap.keySet()) {
+				String taskJson = taskCache.getJson(key, taskMap.get(key));
+				currentTasks.put(key, taskJson);
+				if (!taskJson.equals(journaledTasks.get(key))) {
+					records.add(putRecord(taskJson));
+				}
+			}
+			for (String key : journaledTasks.keySet()) {
+				if (!currentTasks.containsKey(key)) {
+					records.add(removeRecord(key));
+				}
+			}
+			if (!taskList.equals(journaledOrder)) {
+				records.add(orderRecord(taskList));
+			}
+		} catch (JSONException e) {
+			throw new StreamIOException("JSON conversion failed - "
+					+ e.getMessage(), e);
+		}
+
+		if (!records.isEmpty()) {
+			writeRecords(records);
+			journaledTasks = currentTasks;
+			journaledOrder = new ArrayList<String>(taskList);
+		}
+		return records.size();
+	}
+
+	/**
+	 * Deletes the journal of the given snapshot, to be done after its contents
+	 * have been folded into a fresh snapshot.
+	 *
+	 * @param file
+	 *            the storage snapshot
+	 * @throws IOException
+	 *             if the journal could not be deleted
+	 */
+	static void delete(File file) throws IOException {
+		File journalFile = getJournalFile(file);
+		if (journalFile.exists() && !journalFile.delete()) {
+			throw new IOException("Could not delete journal "
+					+ journalFile.getName());
+		}
+	}
+
+	/**
+	 * Replays the journal of the given snapshot on top of the loaded tasks.
+	 * <p>
+	 * A record that could not be parsed is treated as the torn tail of an
+	 * interrupted save; replaying stops there. A journal started on another
+	 * snapshot than the one loaded is not replayed at all.
+	 * </p>
+	 *
+	 * @param file
+	 *            the storage snapshot whose journal is replayed
+	 * @param snapshotSequence
+	 *            the sequence number of the snapshot that was loaded
+	 * @param taskMap
+	 *            the map populated with the snapshot's tasks
+	 * @param taskList
+	 *            the list populated with the snapshot's task names
+	 * @return number of records replayed
+	 * @throws StreamIOException
+	 *             if the journal could not be read
+	 */
+	static int replay(File file, long snapshotSequence,
+			Map<String, StreamTask> taskMap, List<String> taskList)
+			throws StreamIOException {
+		File journalFile = getJournalFile(file);
+		if (!journalFile.exists()) {
+			return 0;
+		}
+
+		int replayed = 0;
+		try (BufferedReader reader = new BufferedReader(new FileReader(
+				journalFile))) {
+			String line = null;
+			boolean isFirst = true;
+			while ((line = reader.readLine()) != null) {
+				if (line.trim().isEmpty()) {
+					continue;
+				}
+				try {
+					JSONObject record = new JSONObject(line);
+					if (isFirst) {
+						isFirst = false;
+						long journalSequence = getSequence(record);
+						if (journalSequence != snapshotSequence) {
+							logger.log(LogLevel.WARNING, "Journal "
+									+ journalFile.getName()
+									+ " belongs to snapshot " + journalSequence
+									+ ", not " + snapshotSequence + ", skipped");
+							return 0;
+						}
+						if (Op.SNAPSHOT.equals(record.getString(RecordKey.OP))) {
+							continue;
+						}
+					}
+					applyRecord(record, taskMap, taskList);
+					replayed++;
+				} catch (JSONException | StreamIOException e) {
+					logger.log(LogLevel.WARNING, "Journal record "
+							+ (replayed + 1) + " unreadable, stopped replay - "
+							+ e.getMessage());
+					break;
+				}
+			}
+		} catch (IOException e) {
+			throw new StreamIOException("Could not load journal - "
+					+ e.getMessage(), e);
+		}
+		logger.log(LogLevel.DEBUG, "Replayed " + replayed
+				+ " journal records: " + journalFile.getName());
+		return replayed;
+	}
+
+	/**
+	 * @return the sequence number of the snapshot record, or NO_SEQUENCE if
+	 *         the first record of the journal is not one
+	 */
+	private static long getSequence(JSONObject firstRecord)
+			throws JSONException {
+		if (Op.SNAPSHOT.equals(firstRecord.getString(RecordKey.OP))) {
+			return firstRecord.getLong(RecordKey.SEQUENCE);
+		} else {
+			return NO_SEQUENCE;
+		}
+	}
+
+	private static void applyRecord(JSONObject record,
+			Map<String, StreamTask> taskMap, List<String> taskList)
+			throws JSONException, StreamIOException {
+		String op = record.getString(RecordKey.OP);
+		switch (op) {
+			case Op.PUT:
+				StreamTask task = StreamIO.jsonToTask(record
+						.getJSONObject(RecordKey.TASK));
+				taskMap.put(task.getKey(), task);
+				break;
+			case Op.REMOVE:
+				taskMap.remove(record.getString(RecordKey.KEY));
+				break;
+			case Op.ORDER:
+				List<String> order = StreamIO.jsonToTaskList(record
+						.getJSONObject(RecordKey.TASKLIST));
+				taskList.clear();
+				taskList.addAll(order);
+				break;
+			default:
+				throw new StreamIOException("Unknown journal record " + op);
+		}
+	}
+
+	private void writeRecords(List<String> records) throws IOException {
+		File journalFile = getJournalFile(snapshotFile);
+		boolean isNew = journalFile.length() == 0;
+		FileWriter fwriter = new FileWriter(journalFile, true);
+		BufferedWriter bw = new BufferedWriter(fwriter);
+		try {
+			if (isNew) {
+				bw.write(snapshotRecord(sequence));
+				bw.newLine();
+			}
+			for (String record : records) {
+				bw.write(record);
+				bw.newLine();
+			}
+		} finally {
+			bw.close();
+		}
+	}
+
+	private static String putRecord(String taskJson) throws JSONException {
+		return "{\"" + RecordKey.OP + "\":\"" + Op.PUT + "\",\""
+				+ RecordKey.TASK + "\":" + taskJson + "}";
+	}
+
+	private static String snapshotRecord(long sequence) {
+		return "{\"" + RecordKey.OP + "\":\"" + Op.SNAPSHOT + "\",\""
+				+ RecordKey.SEQUENCE + "\":" + sequence + "}";
+	}
+
+	private static String removeRecord(String key) throws JSONException {
+		JSONObject record = new JSONObject();
+		record.put(RecordKey.OP, Op.REMOVE);
+		record.put(RecordKey.KEY, key);
+		return record.toString();
+	}
+
+	private static String orderRecord(List<String> taskList)
+			throws JSONException, StreamIOException {
+		JSONObject record = new JSONObject();
+		record.put(RecordKey.OP, Op.ORDER);
+		record.put(RecordKey.TASKLIST, StreamIO.taskListToJson(taskList));
+		return record.toString();
+	}
+
+	private class RecordKey {
+		static final String OP = "op";
+		static final String TASK = "task";
+		static final String KEY = "key";
+		static final String TASKLIST = "taskList";
+		static final String SEQUENCE = "sequence";
+	}
+
+	private class Op {
+		static final String PUT = "put";
+		static final String REMOVE = "remove";
+		static final String ORDER = "order";
+		static final String SNAPSHOT = "snapshot";
+	}
+}
@@ -0,0 +1,184 @@
+package fileio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import model.StreamTask;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import util.StreamConstants;
+
+//@author A0096529N
+public class StreamJournalTest {
+
+	private static final String TEST_SAVE_FILENAME = "streamjournaltest"
+			+ StreamConstants.SAVEFILE_EXTENSION;
+	private HashMap<String, StreamTask> map;
+	private ArrayList<String> taskList;
+	private File saveFile;
+	private File journalFile;
+
+	@Before
+	public void setUp() throws Exception {
+		StreamIO.setFilename(TEST_SAVE_FILENAME);
+		saveFile = new File(StreamIO.getSaveLocation());
+		journalFile = StreamJournal.getJournalFile(saveFile);
+		for (File version : StreamAtomicWriter.listVersions(saveFile,
+				StreamConstants.SAVE_GENERATIONS)) {
+			version.delete();
+		}
+		journalFile.delete();
+
+		map = new HashMap<String, StreamTask>();
+		taskList = new ArrayList<String>();
+		addTask("Code Jarvis", "Just a rather very intelligent system");
+		addTask("Build IoT", "Internet of Things");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for (File version : StreamAtomicWriter.listVersions(saveFile,
+				StreamConstants.SAVE_GENERATIONS)) {
+			version.delete();
+		}
+		journalFile.delete();
+		StreamIO.setFilename(TEST_SAVE_FILENAME);
+	}
+
+	@Test
+	public void firstSaveWritesSnapshotTest() throws Exception {
+		StreamIO.save(map, taskList);
+		assertTrue("Snapshot written", saveFile.exists());
+		assertFalse("No journal on first save", journalFile.exists());
+	}
+
+	@Test
+	public void appendChangesTest() throws Exception {
+		StreamIO.save(map, taskList);
+		long snapshotLength = saveFile.length();
+
+		map.get("build iot").setDescription("Internet of Everything");
+		StreamIO.save(map, taskList);
+
+		assertEquals("Snapshot untouched", snapshotLength, saveFile.length());
+		assertTrue("Journal appended", journalFile.exists());
+		assertReloaded("Reload description change");
+	}
+
+	@Test
+	public void unchangedSaveTest() throws Exception {
+		StreamIO.save(map, taskList);
+		StreamIO.save(map, taskList);
+		assertFalse("Nothing journaled", journalFile.exists());
+	}
+
+	@Test
+	public void replayRemoveAndOrderTest() throws Exception {
+		StreamIO.save(map, taskList);
+
+		map.remove("code jarvis");
+		taskList.remove("Code Jarvis");
+		addTask("Find X", null);
+		StreamIO.save(map, taskList);
+
+		assertReloaded("Reload removal and addition");
+	}
+
+	@Test
+	public void tornRecordTest() throws Exception {
+		StreamIO.save(map, taskList);
+		map.get("code jarvis").setDescription("Jarvis");
+		StreamIO.save(map, taskList);
+		try (FileWriter writer = new FileWriter(journalFile, true)) {
+			writer.write("{\"op\":\"put\",\"task\":{\"taskNa");
+		}
+
+		assertReloaded("Torn tail ignored");
+	}
+
+	@Test
+	public void compactionTest() throws Exception {
+		StreamIO.save(map, taskList);
+		map.get("code jarvis").setDescription("Jarvis");
+		StreamIO.save(map, taskList);
+
+		StreamIO.setFilename(TEST_SAVE_FILENAME);
+		StreamIO.save(map, taskList);
+
+		assertFalse("Journal folded into snapshot", journalFile.exists());
+		assertReloaded("Reload compacted snapshot");
+	}
+
+	@Test
+	public void staleJournalTest() throws Exception {
+		StreamIO.save(map, taskList);
+		map.get("code jarvis").setDescription("Jarvis");
+		StreamIO.save(map, taskList);
+		byte[] staleJournal = Files.readAllBytes(journalFile.toPath());
+
+		// compaction interrupted before the old journal was deleted
+		map.get("code jarvis").setDescription("J.A.R.V.I.S.");
+		StreamIO.setFilename(TEST_SAVE_FILENAME);
+		StreamIO.save(map, taskList);
+		Files.write(journalFile.toPath(), staleJournal);
+
+		assertReloaded("Stale journal not replayed");
+	}
+
+	@Test
+	public void fallbackSkipsJournalTest() throws Exception {
+		StreamIO.save(map, taskList);
+		HashMap<String, StreamTask> previousMap = new HashMap<String, StreamTask>(
+				map);
+		ArrayList<String> previousList = new ArrayList<String>(taskList);
+		addTask("Find X", null);
+		StreamIO.setFilename(TEST_SAVE_FILENAME);
+		StreamIO.save(map, taskList);
+		addTask("Solve X", null);
+		StreamIO.save(map, taskList);
+		try (FileWriter writer = new FileWriter(saveFile)) {
+			writer.write("{\"taskList\":{\"0\":");
+		}
+
+		map = previousMap;
+		taskList = previousList;
+		assertReloaded("Journal of newer snapshot not replayed");
+
+		StreamIO.save(map, taskList);
+		assertFalse("Fresh snapshot saved after recovery",
+				journalFile.exists());
+		assertReloaded("Recovered state saved");
+	}
+
+	private void addTask(String taskName, String description) {
+		StreamTask task = new StreamTask(taskName);
+		task.setDescription(description);
+		task.getTags().add("EPIC");
+		map.put(taskName.toLowerCase(), task);
+		taskList.add(taskName);
+	}
+
+	private void assertReloaded(String testMessage) throws Exception {
+		HashMap<String, StreamTask> loadedMap = new HashMap<String, StreamTask>();
+		ArrayList<String> loadedList = new ArrayList<String>();
+		StreamIO.load(loadedMap, loadedList);
+
+		assertEquals(testMessage, taskList, loadedList);
+		assertEquals(testMessage, map.keySet(), loadedMap.keySet());
+		for (String key : map.keySet()) {
+			assertEquals(testMessage, StreamIO.taskToJson(map.get(key))
+					.toString(), StreamIO.taskToJson(loadedMap.get(key))
+					.toString());
+		}
+	}
+}
@@ -0,0 +1,363 @@
+package fileio;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+//@author A0096529N
+/**
+ * <p>
+ * Token-based pull reader for JSON, reading straight from a character stream
+ * without holding the whole document in memory. Values are consumed in
+ * document order, so callers can build their objects as they read.
+ * </p>
+ *
+ * <h3>Example</h3>
+ *
+ * <pre>
+ * reader.beginObject();
+ * while (reader.hasNext()) {
+ *     String name = reader.nextName();
+ *     String value = reader.nextString();
+ * }
+ * reader.endObject();
+ * </pre>
+ *
+ * <p>
+ * Malformed content results in a <b>StreamJsonReader.MalformedJsonException</b>.
+ * </p>
+ *
+ * @version V0.5
+ */
+class StreamJsonReader implements Closeable {
+
+	private static final int BUFFER_SIZE = 8192;
+	private static final int END_OF_STREAM = -1;
+	private static final int INITIAL_DEPTH = 8;
+
+	private final Reader reader;
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private final StringBuilder stringBuilder = new StringBuilder();
+	private int position = 0;
+	private int limit = 0;
+	private long charsRead = 0;
+	// whether the object or array at each level has yet to have an element
+	private boolean[] isFirst = new boolean[INITIAL_DEPTH];
+	private int depth = 0;
+
+	StreamJsonReader(Reader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * @return true if the stream contains nothing but whitespace
+	 * @throws IOException
+	 *             from stream IO errors
+	 */
+	boolean isEmpty() throws IOException {
+		return peekToken() == END_OF_STREAM;
+	}
+
+	void beginObject() throws IOException {
+		expect('{');
+		push();
+	}
+
+	void endObject() throws IOException {
+		expect('}');
+		pop();
+	}
+
+	void beginArray() throws IOException {
+		expect('[');
+		push();
+	}
+
+	void endArray() throws IOException {
+		expect(']');
+		pop();
+	}
+
+	/**
+	 * Checks whether the current object or array has more elements, consuming
+	 * the comma that must separate each element from the one before it.
+	 *
+	 * @return true if another element or name follows
+	 * @throws IOException
+	 *             from stream IO errors or malformed content, e.g. a missing
+	 *             or misplaced comma
+	 */
+	boolean hasNext() throws IOException {
+		int c = peekToken();
+		if (c == '}' || c == ']') {
+			return false;
+		}
+		if (depth > 0 && isFirst[depth - 1]) {
+			isFirst[depth - 1] = false;
+			if (c == ',') {
+				throw error("Expected a value but was ','");
+			}
+		} else if (c == ',') {
+			position++;
+		} else {
+			throw error("Expected ',' but was " + describe(c));
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the name of the next member in the current object.
+	 *
+	 * @return the member name
+	 * @throws IOException
+	 *             from stream IO errors or malformed content
+	 */
+	String nextName() throws IOException {
+		String name = readQuoted();
+		expect(':');
+		return name;
+	}
+
+	/**
+	 * Reads the next value as a string. Literal values such as numbers and
+	 * booleans are returned as written.
+	 *
+	 * @return the value, or null for JSON null
+	 * @throws IOException
+	 *             from stream IO errors or malformed content
+	 */
+	String nextString() throws IOException {
+		int c = peekToken();
+		if (c == '"') {
+			return readQuoted();
+		} else if (c == '{' || c == '[') {
+			throw error("Expected a string value");
+		}
+		String literal = readLiteral();
+		return literal.equals("null") ? null : literal;
+	}
+
+	/**
+	 * Reads the next value as a boolean, accepting both the literal and its
+	 * quoted form.
+	 *
+	 * @return the boolean value
+	 * @throws IOException
+	 *             from stream IO errors or malformed content
+	 */
+	boolean nextBoolean() throws IOException {
+		String value = nextString();
+		if ("true".equalsIgnoreCase(value)) {
+			return true;
+		} else if ("false".equalsIgnoreCase(value)) {
+			return false;
+		}
+		throw error("Expected a boolean value but was " + value);
+	}
+
+	/**
+	 * Reads the next value as a long, accepting both the literal and its
+	 * quoted form.
+	 *
+	 * @return the long value
+	 * @throws IOException
+	 *             from stream IO errors or malformed content
+	 */
+	long nextLong() throws IOException {
+		String value = nextString();
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			throw error("Expected a number but was " + value);
+		}
+	}
+
+	/**
+	 * Skips the next value, including nested objects and arrays.
+	 *
+	 * @throws IOException
+	 *             from stream IO errors or malformed content
+	 */
+	void skipValue() throws IOException {
+		int c = peekToken();
+		if (c == '{') {
+			beginObject();
+			while (hasNext()) {
+				nextName();
+				skipValue();
+			}
+			endObject();
+		} else if (c == '[') {
+			beginArray();
+			while (hasNext()) {
+				skipValue();
+			}
+			endArray();
+		} else {
+			nextString();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	private void push() {
+		if (depth == isFirst.length) {
+			isFirst = Arrays.copyOf(isFirst, depth * 2);
+		}
+		isFirst[depth++] = true;
+	}
+
+	private void pop() {
+		if (depth > 0) {
+			depth--;
+		}
+	}
+
+	private void expect(char expected) throws IOException {
+		int c = peekToken();
+		if (c != expected) {
+			throw error("Expected '" + expected + "' but was "
+					+ describe(c));
+		}
+		position++;
+	}
+
+	private String readQuoted() throws IOException {
+		int c = peekToken();
+		if (c != '"') {
+			throw error("Expected '\"' but was " + describe(c));
+		}
+		position++;
+		stringBuilder.setLength(0);
+		while (true) {
+			c = read();
+			switch (c) {
+				case END_OF_STREAM:
+					throw error("Unterminated string");
+				case '"':
+					return stringBuilder.toString();
+				case '\\':
+					stringBuilder.append(readEscaped());
+					break;
+				default:
+					stringBuilder.append((char) c);
+			}
+		}
+	}
+
+	private char readEscaped() throws IOException {
+		int c = read();
+		switch (c) {
+			case 'b':
+				return '\b';
+			case 't':
+				return '\t';
+			case 'n':
+				return '\n';
+			case 'f':
+				return '\f';
+			case 'r':
+				return '\r';
+			case 'u':
+				int code = 0;
+				for (int i = 0; i < 4; i++) {
+					int digit = Character.digit(read(), 16);
+					if (digit < 0) {
+						throw error("Invalid unicode escape");
+					}
+					code = (code << 4) + digit;
+				}
+				return (char) code;
+			case '"':
+			case '\'':
+			case '\\':
+			case '/':
+				return (char) c;
+			default:
+				throw error("Invalid escape " + describe(c));
+		}
+	}
+
+	private String readLiteral() throws IOException {
+		stringBuilder.setLength(0);
+		while (true) {
+			if (position == limit && !fill()) {
+				break;
+			}
+			char c = buffer[position];
+			if (c == ',' || c == '}' || c == ']' || c == ':'
+					|| Character.isWhitespace(c)) {
+				break;
+			}
+			stringBuilder.append(c);
+			position++;
+		}
+		if (stringBuilder.length() == 0) {
+			throw error("Expected a value");
+		}
+		return stringBuilder.toString();
+	}
+
+	/**
+	 * Skips whitespace and returns the next character without consuming it.
+	 */
+	private int peekToken() throws IOException {
+		while (true) {
+			if (position == limit && !fill()) {
+				return END_OF_STREAM;
+			}
+			char c = buffer[position];
+			if (!Character.isWhitespace(c)) {
+				return c;
+			}
+			position++;
+		}
+	}
+
+	private int read() throws IOException {
+		if (position == limit && !fill()) {
+			return END_OF_STREAM;
+		}
+		return buffer[position++];
+	}
+
+	private boolean fill() throws IOException {
+		charsRead += limit;
+		position = 0;
+		limit = reader.read(buffer, 0, BUFFER_SIZE);
+		if (limit <= 0) {
+			limit = 0;
+			return false;
+		}
+		return true;
+	}
+
+	private String describe(int c) {
+		return c == END_OF_STREAM ? "end of file" : "'" + (char) c + "'";
+	}
+
+	private MalformedJsonException error(String message) {
+		return new MalformedJsonException(message + " at character "
+				+ (charsRead + position));
+	}
+
+	/**
+	 * Thrown when the content read is not valid JSON.
+	 */
+	static class MalformedJsonException extends IOException {
+
+		private static final long serialVersionUID = 3419186240347437611L;
+
+		MalformedJsonException(String message) {
+			super(message);
+		}
+
+		MalformedJsonException(String message, Throwable cause) {
+			super(message, cause);
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package fileio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+//@author A0096529N
+public class StreamJsonReaderTest {
+
+	@Test
+	public void readTest() throws Exception {
+		StreamJsonReader reader = new StreamJsonReader(new StringReader(
+				"{\"a\":\"x\", \"b\":[1, 2], \"c\":{\"d\":true}}"));
+		reader.beginObject();
+		assertTrue("First member", reader.hasNext());
+		assertEquals("Name", "a", reader.nextName());
+		assertEquals("String", "x", reader.nextString());
+		assertTrue("Second member", reader.hasNext());
+		assertEquals("Name", "b", reader.nextName());
+		assertEquals("Array", "[1, 2]", readLongs(reader).toString());
+		assertTrue("Third member", reader.hasNext());
+		reader.nextName();
+		reader.skipValue();
+		assertFalse("No more members", reader.hasNext());
+		reader.endObject();
+		reader.close();
+	}
+
+	@Test
+	public void missingCommaTest() throws Exception {
+		assertMalformed("Object without comma", "{\"a\":\"x\" \"b\":\"y\"}");
+		assertMalformed("Array without comma", "[1 2]");
+		assertMalformed("Nested array without comma", "{\"a\":[[1] [2]]}");
+	}
+
+	@Test
+	public void extraCommaTest() throws Exception {
+		assertMalformed("Leading comma", "[,1]");
+		assertMalformed("Trailing comma", "[1,]");
+		assertMalformed("Double comma", "[1,,2]");
+	}
+
+	private static List<Long> readLongs(StreamJsonReader reader)
+			throws IOException {
+		List<Long> values = new ArrayList<Long>();
+		reader.beginArray();
+		while (reader.hasNext()) {
+			values.add(reader.nextLong());
+		}
+		reader.endArray();
+		return values;
+	}
+
+	private static void assertMalformed(String message, String json)
+			throws IOException {
+		StreamJsonReader reader = new StreamJsonReader(new StringReader(json));
+		try {
+			reader.skipValue();
+			fail(message + " accepted");
+		} catch (StreamJsonReader.MalformedJsonException e) {
+			// expected
+		} finally {
+			reader.close();
+		}
+	}
+}
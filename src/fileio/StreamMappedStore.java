@@ -0,0 +1,485 @@
+package fileio;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.StreamTask;
+import util.StreamConstants;
+import util.StreamLogger;
+import util.StreamLogger.LogLevel;
+import exception.StreamIOException;
+
+//@author A0096529N
+/**
+ * <p>
+ * Read-only, random-access task store backed by a memory-mapped file. Only the
+ * fixed-size header and the tag table are read up front; tasks stay on disk
+ * and are materialized into <b>StreamTask</b> objects when they are requested,
+ * e.g. for the page of tasks being displayed or searched.
+ * </p>
+ *
+ * <h3>File Layout</h3>
+ * <ul>
+ * <li>header: magic number, version, task count, tag table offset, index
+ * offset</li>
+ * <li>task records in list order, in the same encoding as StreamBinaryFormat</li>
+ * <li>tag table</li>
+ * <li>offset index: (offset, length) of each record, in list order</li>
+ * <li>key index: record positions sorted by task key, for lookup by name</li>
+ * </ul>
+ * <p>
+ * The store is immutable once written. Recently materialized tasks are
+ * cached, and every caller gets its own copy of them, so modifying a task
+ * does not change the store; to modify a task, move it into the live
+ * StreamObject and write the store again.
+ * </p>
+ *
+ * <p>
+ * A mapping stays in place until it is garbage collected, even after the
+ * store is closed, and Windows does not allow a mapped file to be replaced.
+ * So on Windows, and whenever a store is read to be written again, the file
+ * is read into memory instead of being mapped.
+ * </p>
+ *
+ * @version V0.5
+ */
+public class StreamMappedStore implements Closeable {
+
+	static final int MAGIC = 0x53545258; // "STRX"
+	static final byte VERSION = 1;
+	private static final int HEADER_SIZE = 4 + 1 + 4 + 8 + 8;
+	private static final int INDEX_ENTRY_SIZE = 8 + 4;
+	private static final int KEY_ENTRY_SIZE = 4;
+	private static final boolean IS_MAPPABLE = !System.getProperty("os.name",
+			"").startsWith("Windows");
+
+	private static final StreamLogger logger = StreamLogger
+			.init(StreamConstants.ComponentTag.STREAMIO);
+
+	private final RandomAccessFile file;
+	private final ByteBuffer buffer;
+	private final int size;
+	private final int indexOffset;
+	private final int keyIndexOffset;
+	private final String[] tagTable;
+	private final Map<Integer, StreamTask> cache;
+
+	private StreamMappedStore(RandomAccessFile file, ByteBuffer buffer)
+			throws IOException {
+		this.file = file;
+		this.buffer = buffer;
+		if (buffer.getInt(0) != MAGIC || buffer.get(4) != VERSION) {
+			throw new IOException("not a task store");
+		}
+		size = buffer.getInt(5);
+		int tagTableOffset = toInt(buffer.getLong(9));
+		indexOffset = toInt(buffer.getLong(17));
+		keyIndexOffset = indexOffset + size * INDEX_ENTRY_SIZE;
+		if (keyIndexOffset + (long) size * KEY_ENTRY_SIZE > buffer.limit()) {
+			throw new IOException("index out of bounds");
+		}
+		tagTable = readTagTable(tagTableOffset);
+		cache = new LinkedHashMap<Integer, StreamTask>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<Integer, StreamTask> eldest) {
+				return size() > StreamConstants.MAPPED_STORE_CACHE_SIZE;
+			}
+		};
+	}
+
+	/**
+	 * Writes the tasks into a new store file, atomically replacing any
+	 * existing file.
+	 *
+	 * @param destin
+	 *            the store file to be written
+	 * @param taskMap
+	 *            map of tasks to be stored
+	 * @param taskList
+	 *            list of task names, the order of the stored tasks
+	 * @throws StreamIOException
+	 *             from file IO errors
+	 */
+	public static void write(File destin, Map<String, StreamTask> taskMap,
+			List<String> taskList) throws StreamIOException {
+		final List<StreamTask> tasks = new ArrayList<StreamTask>(
+				taskList.size());
+		for (String taskName : taskList) {
+			StreamTask task = taskMap.get(taskName.toLowerCase());
+			if (task != null) {
+				tasks.add(task);
+			}
+		}
+		try {
+			StreamAtomicWriter.write(destin, 0,
+					new StreamAtomicWriter.Content() {
+						@Override
+						public void writeTo(File file) throws IOException {
+							writeTasks(file, tasks);
+						}
+					});
+			logger.log(LogLevel.DEBUG, "Wrote " + tasks.size()
+					+ " tasks to store: " + destin.getName());
+		} catch (IOException e) {
+			throw new StreamIOException("Could not save to file - "
+					+ e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Opens and maps a store file, or reads it where mapped files cannot be
+	 * replaced.
+	 *
+	 * @param source
+	 *            the store file to be opened
+	 * @return the opened store, to be closed after use
+	 * @throws StreamIOException
+	 *             if the file could not be mapped or is not a valid store.
+	 */
+	public static StreamMappedStore open(File source) throws StreamIOException {
+		if (!IS_MAPPABLE) {
+			return read(source);
+		}
+		RandomAccessFile file = null;
+		try {
+			file = new RandomAccessFile(source, "r");
+			if (file.length() < HEADER_SIZE
+					|| file.length() > Integer.MAX_VALUE) {
+				throw new IOException("invalid store size " + file.length());
+			}
+			MappedByteBuffer buffer = file.getChannel().map(
+					FileChannel.MapMode.READ_ONLY, 0, file.length());
+			return new StreamMappedStore(file, buffer);
+		} catch (IOException | BufferUnderflowException
+				| IndexOutOfBoundsException e) {
+			closeQuietly(file);
+			throw new StreamIOException(
+					"File corrupted, could not parse file contents - "
+							+ e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Reads a store file into memory without mapping it, e.g. to write the
+	 * store again over the same file.
+	 *
+	 * @param source
+	 *            the store file to be read
+	 * @return the store, holding no file open
+	 * @throws StreamIOException
+	 *             if the file could not be read or is not a valid store.
+	 */
+	static StreamMappedStore read(File source) throws StreamIOException {
+		try {
+			if (source.length() < HEADER_SIZE
+					|| source.length() > Integer.MAX_VALUE) {
+				throw new IOException("invalid store size " + source.length());
+			}
+			return new StreamMappedStore(null, ByteBuffer.wrap(Files
+					.readAllBytes(source.toPath())));
+		} catch (IOException | BufferUnderflowException
+				| IndexOutOfBoundsException e) {
+			throw new StreamIOException(
+					"File corrupted, could not parse file contents - "
+							+ e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * @return number of tasks in the store
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Reads the name of the task at the given position without materializing
+	 * the task.
+	 *
+	 * @param index
+	 *            position of the task in the store
+	 * @return the task name
+	 */
+	public String getTaskName(int index) {
+		checkIndex(index);
+		ByteBuffer record = buffer.duplicate();
+		record.position(getRecordOffset(index));
+		byte[] nameBytes = new byte[readLength(record)];
+		record.get(nameBytes);
+		return new String(nameBytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Materializes the task at the given position.
+	 *
+	 * @param index
+	 *            position of the task in the store
+	 * @return a copy of the task, detached from the store
+	 * @throws StreamIOException
+	 *             if the record could not be decoded
+	 */
+	public synchronized StreamTask getTask(int index)
+			throws StreamIOException {
+		checkIndex(index);
+		StreamTask task = cache.get(index);
+		if (task == null) {
+			task = readTask(index);
+			cache.put(index, task);
+		}
+		return task.copy();
+	}
+
+	/**
+	 * Materializes a range of tasks, e.g. a page of tasks to be displayed.
+	 *
+	 * @param fromIndex
+	 *            position of the first task, inclusive
+	 * @param toIndex
+	 *            position of the last task, exclusive
+	 * @return the tasks in the range
+	 * @throws StreamIOException
+	 *             if a record could not be decoded
+	 */
+	public List<StreamTask> getTasks(int fromIndex, int toIndex)
+			throws StreamIOException {
+		List<StreamTask> tasks = new ArrayList<StreamTask>();
+		for (int i = Math.max(0, fromIndex); i < Math.min(size, toIndex); i++) {
+			tasks.add(getTask(i));
+		}
+		return tasks;
+	}
+
+	/**
+	 * Looks up a task by name, case-insensitive, with a binary search over
+	 * the key index.
+	 *
+	 * @param taskName
+	 *            name of the task to find
+	 * @return position of the task, or -1 if it is not in the store
+	 */
+	public int indexOf(String taskName) {
+		String key = taskName.toLowerCase();
+		int low = 0;
+		int high = size - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int index = buffer.getInt(keyIndexOffset + mid * KEY_ENTRY_SIZE);
+			int comparison = getTaskName(index).toLowerCase().compareTo(key);
+			if (comparison < 0) {
+				low = mid + 1;
+			} else if (comparison > 0) {
+				high = mid - 1;
+			} else {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Looks up and materializes a task by name, case-insensitive.
+	 *
+	 * @param taskName
+	 *            name of the task to find
+	 * @return the task, or null if it is not in the store
+	 * @throws StreamIOException
+	 *             if the record could not be decoded
+	 */
+	public StreamTask findTask(String taskName) throws StreamIOException {
+		int index = indexOf(taskName);
+		return index < 0 ? null : getTask(index);
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			cache.clear();
+		}
+		if (file != null) {
+			file.close();
+		}
+	}
+
+	private StreamTask readTask(int index) throws StreamIOException {
+		int indexEntry = indexOffset + index * INDEX_ENTRY_SIZE;
+		try {
+			ByteBuffer source = buffer.duplicate();
+			source.position(getRecordOffset(index));
+			int length = buffer.getInt(indexEntry + 8);
+			if (length < 0 || length > source.remaining()) {
+				throw new IndexOutOfBoundsException("Record length: "
+						+ length);
+			}
+			byte[] record = new byte[length];
+			source.get(record);
+			return StreamBinaryFormat.readTask(new DataInputStream(
+					new ByteArrayInputStream(record)), tagTable);
+		} catch (IOException | BufferUnderflowException
+				| IndexOutOfBoundsException e) {
+			throw new StreamIOException(
+					"File corrupted, could not parse file contents - "
+							+ e.getMessage(), e);
+		}
+	}
+
+	private int getRecordOffset(int index) {
+		return toInt(buffer.getLong(indexOffset + index * INDEX_ENTRY_SIZE));
+	}
+
+	private String[] readTagTable(int offset) {
+		ByteBuffer source = buffer.duplicate();
+		source.position(offset);
+		int tagCount = source.getInt();
+		if (tagCount < 0 || tagCount > source.remaining()) {
+			throw new IndexOutOfBoundsException("Tag count: " + tagCount);
+		}
+		String[] tags = new String[tagCount];
+		for (int i = 0; i < tags.length; i++) {
+			byte[] tagBytes = new byte[readLength(source)];
+			source.get(tagBytes);
+			tags[i] = new String(tagBytes, StandardCharsets.UTF_8);
+		}
+		return tags;
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+					+ size);
+		}
+	}
+
+	private static void writeTasks(File destin, final List<StreamTask> tasks)
+			throws IOException {
+		Map<String, Integer> tagTable = new LinkedHashMap<String, Integer>();
+		for (StreamTask task : tasks) {
+			for (String tag : task.getTags()) {
+				if (!tagTable.containsKey(tag)) {
+					tagTable.put(tag, tagTable.size());
+				}
+			}
+		}
+		long[] offsets = new long[tasks.size()];
+		int[] lengths = new int[tasks.size()];
+		long tagTableOffset;
+		long indexOffset;
+
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(destin, false)))) {
+			out.write(new byte[HEADER_SIZE]);
+			long offset = HEADER_SIZE;
+			ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+			DataOutputStream record = new DataOutputStream(recordBytes);
+			for (int i = 0; i < tasks.size(); i++) {
+				recordBytes.reset();
+				StreamBinaryFormat.writeTask(record, tasks.get(i), tagTable);
+				record.flush();
+				recordBytes.writeTo(out);
+				offsets[i] = offset;
+				lengths[i] = recordBytes.size();
+				offset += lengths[i];
+			}
+
+			tagTableOffset = offset;
+			recordBytes.reset();
+			record.writeInt(tagTable.size());
+			for (String tag : tagTable.keySet()) {
+				StreamBinaryFormat.writeString(record, tag);
+			}
+			record.flush();
+			recordBytes.writeTo(out);
+			indexOffset = offset + recordBytes.size();
+
+			for (int i = 0; i < tasks.size(); i++) {
+				out.writeLong(offsets[i]);
+				out.writeInt(lengths[i]);
+			}
+			List<Integer> keyOrder = new ArrayList<Integer>(tasks.size());
+			for (int i = 0; i < tasks.size(); i++) {
+				keyOrder.add(i);
+			}
+			Collections.sort(keyOrder, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer o1, Integer o2) {
+					return tasks.get(o1).getKey()
+							.compareTo(tasks.get(o2).getKey());
+				}
+			});
+			for (int index : keyOrder) {
+				out.writeInt(index);
+			}
+		}
+
+		try (RandomAccessFile header = new RandomAccessFile(destin, "rw")) {
+			header.writeInt(MAGIC);
+			header.writeByte(VERSION);
+			header.writeInt(tasks.size());
+			header.writeLong(tagTableOffset);
+			header.writeLong(indexOffset);
+		}
+	}
+
+	private static int readVarInt(ByteBuffer source) {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = source.get() & 0xFF;
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IndexOutOfBoundsException("Malformed variable-length integer");
+	}
+
+	/**
+	 * Reads the length of the bytes that follow, checking that they fit in the
+	 * rest of the buffer.
+	 */
+	private static int readLength(ByteBuffer source) {
+		int length = readVarInt(source);
+		if (length < 0 || length > source.remaining()) {
+			throw new IndexOutOfBoundsException("Length: " + length);
+		}
+		return length;
+	}
+
+	private static int toInt(long offset) {
+		if (offset < 0 || offset > Integer.MAX_VALUE) {
+			throw new IndexOutOfBoundsException("Offset: " + offset);
+		}
+		return (int) offset;
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException e) {
+				// ignore exception
+			}
+		}
+	}
+}
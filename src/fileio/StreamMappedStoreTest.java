@@ -0,0 +1,132 @@
+package fileio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import model.StreamTask;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import exception.StreamIOException;
+
+//@author A0096529N
+public class StreamMappedStoreTest {
+
+	private static final int TASK_COUNT = 1000;
+	private HashMap<String, StreamTask> map;
+	private ArrayList<String> taskList;
+	private File storeFile;
+
+	@Before
+	public void setUp() throws Exception {
+		storeFile = File.createTempFile("streammappedtest", ".store");
+		map = new HashMap<String, StreamTask>();
+		taskList = new ArrayList<String>();
+		for (int i = 0; i < TASK_COUNT; i++) {
+			StreamTask task = new StreamTask("Task " + i);
+			task.setDescription(i % 2 == 0 ? "Even task " + i : null);
+			task.setDeadline(StreamIO.parseDate("20410719000000"));
+			task.getTags().add("TAG" + (i % 10));
+			if (i % 3 == 0) {
+				task.markAsDone();
+			}
+			map.put(task.getTaskName().toLowerCase(), task);
+			taskList.add(task.getTaskName());
+		}
+		StreamMappedStore.write(storeFile, map, taskList);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		storeFile.delete();
+	}
+
+	@Test
+	public void randomAccessTest() throws Exception {
+		try (StreamMappedStore store = StreamMappedStore.open(storeFile)) {
+			assertEquals("Store size", TASK_COUNT, store.size());
+			for (int i : new int[] { 0, 1, 500, TASK_COUNT - 1 }) {
+				assertEquals("Task name " + i, taskList.get(i),
+						store.getTaskName(i));
+				assertTask("Task " + i, map.get(taskList.get(i).toLowerCase()),
+						store.getTask(i));
+			}
+		}
+	}
+
+	@Test
+	public void readTest() throws Exception {
+		StreamMappedStore store = StreamMappedStore.read(storeFile);
+		StreamMappedStore.write(storeFile, map, taskList.subList(0, 10));
+		assertEquals("Read before replaced", TASK_COUNT, store.size());
+		assertTask("Read task", map.get("task 500"), store.getTask(500));
+		store.close();
+		try (StreamMappedStore replaced = StreamMappedStore.open(storeFile)) {
+			assertEquals("Replaced store", 10, replaced.size());
+		}
+	}
+
+	@Test
+	public void pageTest() throws Exception {
+		try (StreamMappedStore store = StreamMappedStore.open(storeFile)) {
+			List<StreamTask> page = store.getTasks(TASK_COUNT - 3,
+					TASK_COUNT + 4);
+			assertEquals("Page clipped to store size", 3, page.size());
+			assertEquals("Page order", taskList.get(TASK_COUNT - 3), page
+					.get(0).getTaskName());
+		}
+	}
+
+	@Test
+	public void findTaskTest() throws Exception {
+		try (StreamMappedStore store = StreamMappedStore.open(storeFile)) {
+			assertEquals("Index by name", 742, store.indexOf("TASK 742"));
+			assertTask("Find by name", map.get("task 742"),
+					store.findTask("task 742"));
+			store.findTask("Task 742").setDescription("Modified");
+			assertTask("Detached from the store", map.get("task 742"),
+					store.getTask(742));
+			assertNull("Missing task", store.findTask("Task 1000"));
+		}
+	}
+
+	@Test
+	public void emptyStoreTest() throws Exception {
+		StreamMappedStore.write(storeFile, new HashMap<String, StreamTask>(),
+				new ArrayList<String>());
+		try (StreamMappedStore store = StreamMappedStore.open(storeFile)) {
+			assertEquals("Empty store", 0, store.size());
+			assertEquals("Nothing found", -1, store.indexOf("Task 1"));
+		}
+	}
+
+	@Test
+	public void corruptedStoreTest() throws Exception {
+		try (FileWriter writer = new FileWriter(storeFile)) {
+			writer.write("{\"taskList\":{},\"allTasks\":[]}");
+		}
+		try {
+			StreamMappedStore.open(storeFile).close();
+			fail("Corrupted store opened");
+		} catch (StreamIOException e) {
+			assertTrue("Corruption reported",
+					e.getMessage().startsWith("File corrupted"));
+		}
+	}
+
+	private void assertTask(String testMessage, StreamTask expected,
+			StreamTask actual) throws Exception {
+		assertEquals(testMessage, StreamIO.taskToJson(expected).toString(),
+				StreamIO.taskToJson(actual).toString());
+	}
+}
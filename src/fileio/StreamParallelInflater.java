@@ -0,0 +1,235 @@
+package fileio;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import model.StreamTask;
+import util.StreamConstants;
+import exception.StreamIOException;
+
+//@author A0096529N
+/**
+ * <p>
+ * Inflates serialized tasks into <b>StreamTask</b> objects on a fork-join pool.
+ * The range of tasks is split in halves until it is small enough to be
+ * inflated sequentially, and the results are merged back in their original
+ * order.
+ * </p>
+ *
+ * <p>
+ * Tasks read from a file are inflated in batches while the file is still
+ * being read (see <b>Feed</b>), so that only a few batches of serialized
+ * tasks are held at a time.
+ * </p>
+ *
+ * <p>
+ * Errors have the same semantics as inflating sequentially: the
+ * StreamIOException of the first task that failed, in source order, is
+ * thrown.
+ * </p>
+ *
+ * @version V0.5
+ */
+class StreamParallelInflater extends RecursiveTask<StreamParallelInflater.Result> {
+
+	private static final long serialVersionUID = -3203931316734357296L;
+	private static final ForkJoinPool pool = new ForkJoinPool();
+
+	/**
+	 * Serialized tasks to be inflated. Must be safe to inflate different
+	 * indices concurrently.
+	 */
+	interface Source {
+		int size();
+
+		StreamTask inflate(int index) throws StreamIOException;
+	}
+
+	private final Source source;
+	private final int fromIndex;
+	private final int toIndex;
+
+	private StreamParallelInflater(Source source, int fromIndex, int toIndex) {
+		this.source = source;
+		this.fromIndex = fromIndex;
+		this.toIndex = toIndex;
+	}
+
+	/**
+	 * Inflates every task of the source into a map with the task keys.
+	 *
+	 * @param source
+	 *            the serialized tasks
+	 * @return map of the inflated tasks
+	 * @throws StreamIOException
+	 *             of the first task that could not be inflated
+	 */
+	static HashMap<String, StreamTask> inflate(Source source)
+			throws StreamIOException {
+		HashMap<String, StreamTask> map = new HashMap<String, StreamTask>();
+		inflateInto(source, map);
+		return map;
+	}
+
+	/**
+	 * Inflates every task of the source into the given map, in source order.
+	 *
+	 * @param source
+	 *            the serialized tasks
+	 * @param taskMap
+	 *            the map to populate inflated tasks
+	 * @throws StreamIOException
+	 *             of the first task that could not be inflated
+	 */
+	static void inflateInto(Source source, Map<String, StreamTask> taskMap)
+			throws StreamIOException {
+		StreamParallelInflater inflater = new StreamParallelInflater(source, 0,
+				source.size());
+		Result result;
+		if (source.size() <= StreamConstants.PARALLEL_LOAD_THRESHOLD) {
+			result = inflater.compute();
+		} else {
+			result = pool.invoke(inflater);
+		}
+		for (StreamTask task : result.tasks) {
+			taskMap.put(task.getKey(), task);
+		}
+		if (result.error != null) {
+			throw result.error;
+		}
+	}
+
+	/**
+	 * Starts inflating batches of tasks into the given map.
+	 *
+	 * @param taskMap
+	 *            the map to populate inflated tasks
+	 * @return the feed to hand the batches to
+	 */
+	static Feed feedInto(Map<String, StreamTask> taskMap) {
+		return new Feed(taskMap);
+	}
+
+	@Override
+	protected Result compute() {
+		if (toIndex - fromIndex <= StreamConstants.PARALLEL_LOAD_THRESHOLD) {
+			return inflateRange();
+		}
+		int middle = (fromIndex + toIndex) >>> 1;
+		StreamParallelInflater left = new StreamParallelInflater(source,
+				fromIndex, middle);
+		StreamParallelInflater right = new StreamParallelInflater(source,
+				middle, toIndex);
+		right.fork();
+		Result leftResult = left.compute();
+		Result rightResult = right.join();
+		return leftResult.merge(rightResult);
+	}
+
+	private Result inflateRange() {
+		Result result = new Result(toIndex - fromIndex);
+		for (int i = fromIndex; i < toIndex; i++) {
+			try {
+				result.tasks.add(source.inflate(i));
+			} catch (StreamIOException e) {
+				result.error = e;
+				break;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Inflates the batches handed to it on the fork-join pool while the next
+	 * batch is being read, and puts the inflated tasks into the map in the
+	 * order of the batches. Once the number of batches in flight reaches the
+	 * limit, handing over a batch waits for the oldest one to complete.
+	 */
+	static class Feed {
+
+		private final Map<String, StreamTask> taskMap;
+		private final Deque<ForkJoinTask<Result>> inFlight = new ArrayDeque<ForkJoinTask<Result>>();
+
+		private Feed(Map<String, StreamTask> taskMap) {
+			this.taskMap = taskMap;
+		}
+
+		/**
+		 * Starts inflating a batch.
+		 *
+		 * @param batch
+		 *            the serialized tasks following those of the previous
+		 *            batch
+		 * @throws StreamIOException
+		 *             of the first task that could not be inflated in the
+		 *             batches completed while waiting
+		 */
+		void add(Source batch) throws StreamIOException {
+			if (inFlight.size() >= StreamConstants.PARALLEL_LOAD_BATCHES_IN_FLIGHT) {
+				completeOldest();
+			}
+			inFlight.add(pool.submit(new StreamParallelInflater(batch, 0,
+					batch.size())));
+		}
+
+		/**
+		 * Waits for every batch to be inflated into the map.
+		 *
+		 * @throws StreamIOException
+		 *             of the first task that could not be inflated
+		 */
+		void finish() throws StreamIOException {
+			while (!inFlight.isEmpty()) {
+				completeOldest();
+			}
+		}
+
+		/**
+		 * Cancels the batches not yet inflated, e.g. when reading failed.
+		 */
+		void cancel() {
+			for (ForkJoinTask<Result> batch : inFlight) {
+				batch.cancel(false);
+			}
+			inFlight.clear();
+		}
+
+		private void completeOldest() throws StreamIOException {
+			Result result = inFlight.poll().join();
+			for (StreamTask task : result.tasks) {
+				taskMap.put(task.getKey(), task);
+			}
+			if (result.error != null) {
+				cancel();
+				throw result.error;
+			}
+		}
+	}
+
+	/**
+	 * Tasks inflated from a range, up to the first task that failed.
+	 */
+	static class Result {
+		final List<StreamTask> tasks;
+		StreamIOException error;
+
+		Result(int capacity) {
+			tasks = new ArrayList<StreamTask>(capacity);
+		}
+
+		Result merge(Result next) {
+			if (error == null) {
+				tasks.addAll(next.tasks);
+				error = next.error;
+			}
+			return this;
+		}
+	}
+}
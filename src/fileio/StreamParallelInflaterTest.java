@@ -0,0 +1,173 @@
+package fileio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import model.StreamTask;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import util.StreamConstants;
+import exception.StreamIOException;
+
+//@author A0096529N
+public class StreamParallelInflaterTest {
+
+	private static final int TASK_COUNT = StreamConstants.PARALLEL_LOAD_THRESHOLD * 8;
+	private static final String TEST_SAVE_FILENAME = "streamparalleltest"
+			+ StreamConstants.SAVEFILE_EXTENSION;
+	private HashMap<String, StreamTask> map;
+	private ArrayList<String> taskList;
+	private File saveFile;
+
+	@Before
+	public void setUp() throws Exception {
+		StreamIO.setFilename(TEST_SAVE_FILENAME);
+		saveFile = new File(StreamIO.getSaveLocation());
+		deleteTestFiles();
+
+		map = new HashMap<String, StreamTask>();
+		taskList = new ArrayList<String>();
+		for (int i = 0; i < TASK_COUNT; i++) {
+			StreamTask task = new StreamTask("Task " + i);
+			task.setDeadline(StreamIO.parseDate(String.format(
+					"2041%02d%02d000000", i % 12 + 1, i % 28 + 1)));
+			task.getTags().add("TAG" + (i % 7));
+			map.put(task.getTaskName().toLowerCase(), task);
+			taskList.add(task.getTaskName());
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		deleteTestFiles();
+	}
+
+	@Test
+	public void jsonToMapTest() throws Exception {
+		HashMap<String, StreamTask> inflated = StreamIO.jsonToMap(StreamIO
+				.mapToJson(map));
+		assertEquals("All tasks inflated", map.keySet(), inflated.keySet());
+		for (String key : map.keySet()) {
+			assertEquals("Task " + key, StreamIO.taskToJson(map.get(key))
+					.toString(), StreamIO.taskToJson(inflated.get(key))
+					.toString());
+		}
+	}
+
+	@Test
+	public void firstErrorTest() throws Exception {
+		JSONArray tasksJson = StreamIO.mapToJson(map);
+		tasksJson.getJSONObject(TASK_COUNT - 1).put("deadline", "tomorrow");
+		tasksJson.getJSONObject(TASK_COUNT / 3).remove("taskName");
+		try {
+			StreamIO.jsonToMap(tasksJson);
+			fail("Corrupted task inflated");
+		} catch (StreamIOException e) {
+			assertTrue("First error in order reported", e.getMessage()
+					.contains("taskName"));
+		}
+	}
+
+	@Test
+	public void feedTest() throws Exception {
+		final JSONArray tasksJson = StreamIO.mapToJson(map);
+		tasksJson.getJSONObject(TASK_COUNT - 1).put("deadline", "tomorrow");
+		tasksJson.getJSONObject(TASK_COUNT / 3).remove("taskName");
+		HashMap<String, StreamTask> inflated = new HashMap<String, StreamTask>();
+		StreamParallelInflater.Feed feed = StreamParallelInflater
+				.feedInto(inflated);
+		int batchSize = StreamConstants.PARALLEL_LOAD_THRESHOLD / 4;
+		try {
+			for (int from = 0; from < TASK_COUNT; from += batchSize) {
+				feed.add(slice(tasksJson, from, batchSize));
+			}
+			feed.finish();
+			fail("Corrupted task inflated");
+		} catch (StreamIOException e) {
+			assertTrue("First error in order reported", e.getMessage()
+					.contains("taskName"));
+		} finally {
+			feed.cancel();
+		}
+		assertEquals("Tasks before the error inflated", TASK_COUNT / 3,
+				inflated.size());
+	}
+
+	@Test
+	public void loadLargeFileTest() throws Exception {
+		StreamIO.save(map, taskList);
+		HashMap<String, StreamTask> loadedMap = new HashMap<String, StreamTask>();
+		ArrayList<String> loadedList = new ArrayList<String>();
+		StreamIO.load(loadedMap, loadedList);
+
+		assertEquals("Order loaded", taskList, loadedList);
+		assertEquals("Tasks loaded", map.keySet(), loadedMap.keySet());
+		assertEquals("Deadline loaded", map.get("task 1234").getDeadline()
+				.getTimeInMillis(), loadedMap.get("task 1234").getDeadline()
+				.getTimeInMillis());
+	}
+
+	@Test
+	public void loadCorruptedDateTest() throws Exception {
+		JSONArray tasksJson = StreamIO.mapToJson(map);
+		tasksJson.getJSONObject(TASK_COUNT / 2).put("deadline", "tomorrow");
+		StreamIO.writeToFile(saveFile, 1, StreamIO.taskListToJson(taskList),
+				toStrings(tasksJson));
+		try {
+			StreamIO.load(new HashMap<String, StreamTask>(),
+					new ArrayList<String>());
+			fail("Corrupted file loaded");
+		} catch (StreamIOException e) {
+			assertTrue("Corruption reported",
+					e.getMessage().startsWith("File corrupted"));
+		}
+	}
+
+	private StreamParallelInflater.Source slice(final JSONArray tasksJson,
+			final int from, final int size) {
+		return new StreamParallelInflater.Source() {
+			@Override
+			public int size() {
+				return size;
+			}
+
+			@Override
+			public StreamTask inflate(int index) throws StreamIOException {
+				try {
+					return StreamIO.jsonToTask(tasksJson
+							.getJSONObject(from + index));
+				} catch (JSONException e) {
+					throw new StreamIOException(e.getMessage(), e);
+				}
+			}
+		};
+	}
+
+	private ArrayList<String> toStrings(JSONArray tasksJson) throws Exception {
+		ArrayList<String> taskJsons = new ArrayList<String>();
+		for (int i = 0; i < tasksJson.length(); i++) {
+			JSONObject taskJson = tasksJson.getJSONObject(i);
+			taskJsons.add(taskJson.toString());
+		}
+		return taskJsons;
+	}
+
+	private void deleteTestFiles() {
+		for (File version : StreamAtomicWriter.listVersions(saveFile,
+				StreamConstants.SAVE_GENERATIONS)) {
+			version.delete();
+		}
+		StreamJournal.getJournalFile(saveFile).delete();
+	}
+}
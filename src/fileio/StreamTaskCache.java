@@ -0,0 +1,88 @@
+package fileio;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import model.StreamTask;
+import exception.StreamIOException;
+
+//@author A0096529N
+/**
+ * <p>
+ * Cache of serialized tasks, keyed by task key and validated by the task's
+ * version. Only tasks modified since they were last serialized are encoded
+ * again, so the cost of a save scales with the number of changed tasks.
+ * </p>
+ *
+ * <p>
+ * Not thread-safe; used under the lock of StreamIO.
+ * </p>
+ *
+ * @version V0.5
+ */
+class StreamTaskCache {
+
+	private final Map<String, Entry> entries = new HashMap<String, Entry>();
+	private int encodedCount;
+
+	/**
+	 * Gets the serialized form of a task, encoding it only if it changed
+	 * since it was last cached.
+	 *
+	 * @param key
+	 *            the task key
+	 * @param task
+	 *            the task to be serialized
+	 * @return the task serialized into JSON
+	 * @throws StreamIOException
+	 *             if the task could not be serialized
+	 */
+	String getJson(String key, StreamTask task) throws StreamIOException {
+		long version = task.getVersion();
+		Entry entry = entries.get(key);
+		if (entry == null || entry.version != version) {
+			entry = new Entry(version, StreamIO.taskToJson(task).toString());
+			entries.put(key, entry);
+			encodedCount++;
+		}
+		return entry.json;
+	}
+
+	/**
+	 * Drops the entries of tasks that no longer exist.
+	 *
+	 * @param keys
+	 *            keys of the current tasks
+	 */
+	void retainAll(Set<String> keys) {
+		Iterator<String> iterator = entries.keySet().iterator();
+		while (iterator.hasNext()) {
+			if (!keys.contains(iterator.next())) {
+				iterator.remove();
+			}
+		}
+	}
+
+	void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * @return number of tasks encoded since the cache was created
+	 */
+	int getEncodedCount() {
+		return encodedCount;
+	}
+
+	private static class Entry {
+		final long version;
+		final String json;
+
+		Entry(long version, String json) {
+			this.version = version;
+			this.json = json;
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package fileio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashSet;
+
+import model.StreamTask;
+
+import org.junit.Before;
+import org.junit.Test;
+
+//@author A0096529N
+public class StreamTaskCacheTest {
+
+	private StreamTaskCache cache;
+	private StreamTask task;
+
+	@Before
+	public void setUp() throws Exception {
+		cache = new StreamTaskCache();
+		task = new StreamTask("Code Jarvis");
+		task.getTags().add("EPIC");
+	}
+
+	@Test
+	public void versionTest() throws Exception {
+		long version = task.getVersion();
+		assertEquals("Unchanged task", version, task.getVersion());
+
+		task.setDescription("Just a rather very intelligent system");
+		long describedVersion = task.getVersion();
+		assertTrue("Setter changes version", version != describedVersion);
+
+		task.getTags().add("IMPOSSIBLE");
+		assertTrue("Tag change changes version",
+				describedVersion != task.getVersion());
+		assertEquals("Copy shares version", task.getVersion(), task.copy()
+				.getVersion());
+		assertTrue("Other task has other version",
+				task.getVersion() != new StreamTask("Code Jarvis").getVersion());
+	}
+
+	@Test
+	public void reuseUnchangedTest() throws Exception {
+		String json = cache.getJson("code jarvis", task);
+		assertSame("Unchanged task reused", json,
+				cache.getJson("code jarvis", task));
+		assertSame("Unchanged copy reused", json,
+				cache.getJson("code jarvis", task.copy()));
+		assertEquals("Encoded once", 1, cache.getEncodedCount());
+	}
+
+	@Test
+	public void encodeChangedTest() throws Exception {
+		cache.getJson("code jarvis", task);
+		task.getTags().set(0, "LEGENDARY");
+		String json = cache.getJson("code jarvis", task);
+
+		assertEquals("Encoded again", 2, cache.getEncodedCount());
+		assertEquals("Encoded current contents", StreamIO.taskToJson(task)
+				.toString(), json);
+	}
+
+	@Test
+	public void retainAllTest() throws Exception {
+		cache.getJson("code jarvis", task);
+		cache.retainAll(new HashSet<String>(Collections.<String> emptySet()));
+		cache.getJson("code jarvis", task);
+		assertEquals("Dropped entry encoded again", 2,
+				cache.getEncodedCount());
+	}
+}
@@ -3,6 +3,7 @@ package logic;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.List;
 import java.util.Stack;
 
 import util.StreamConstants;
@@ -12,12 +13,12 @@ import model.StreamTask;
 public class StackLogic extends BaseLogic {
 	private Stack<String> inputStack;
 	private Stack<StreamTask> dumpedTasks;
-	private Stack<ArrayList<String>> orderingStack;
+	private Stack<List<String>> orderingStack;
 
 	private StackLogic() {
 		inputStack = new Stack<String>();
 		dumpedTasks = new Stack<StreamTask>();
-		orderingStack = new Stack<ArrayList<String>>();
+		orderingStack = new Stack<List<String>>();
 	}
 
 	public static StackLogic init() {
@@ -80,7 +81,7 @@ public class StackLogic extends BaseLogic {
 	 * @param deletedTask task that was deleted
 	 * @param order order of tasks to be reverted to
 	 */
-	public void pushInverseDeleteCommand(StreamTask deletedTask, ArrayList<String> order) {
+	public void pushInverseDeleteCommand(StreamTask deletedTask, List<String> order) {
 		pushOrder(order);
 		pushDumpedTask(deletedTask);
 		pushInput(String.format(StreamConstants.Commands.RECOVER, 1));
@@ -93,7 +94,7 @@ public class StackLogic extends BaseLogic {
 	 * @param originalOrder order of tasks to be reverted to
 	 * @param deletedTasks tasks that were deleted
 	 */
-	public void pushInverseClearCommand(ArrayList<String> originalOrder, ArrayList<StreamTask> deletedTasks) {
+	public void pushInverseClearCommand(List<String> originalOrder, ArrayList<StreamTask> deletedTasks) {
 		pushOrder(originalOrder);
 		for (StreamTask task:deletedTasks) {
 			pushDumpedTask(task);
@@ -168,7 +169,7 @@ public class StackLogic extends BaseLogic {
 	 * 
 	 * @param oldOrdering order of tasks to be reverted to
 	 */
-	public void pushInverseSortCommand(ArrayList<String> oldOrdering) {
+	public void pushInverseSortCommand(List<String> oldOrdering) {
 		pushOrder(oldOrdering);
 		pushInput("unsort");
 	}
@@ -339,7 +340,7 @@ public class StackLogic extends BaseLogic {
 	}
 
 	//@author A0096529N
-	private void pushOrder(ArrayList<String> order) {
+	private void pushOrder(List<String> order) {
 		assert(order != null && !order.isEmpty()) : 
 			StreamConstants.Assertion.EMPTY_INVERSE_ORDER;
 		orderingStack.push(order);
@@ -354,8 +355,8 @@ public class StackLogic extends BaseLogic {
 	 * @return taskList List of taskNames in the order
 	 * that was pushed previously
 	 */
-	public ArrayList<String> popOrder() {
-		ArrayList<String> order = orderingStack.pop();
+	public List<String> popOrder() {
+		List<String> order = orderingStack.pop();
 		logDebug(String.format(StreamConstants.LogMessage.POP_ORDER, 
 				Arrays.toString(order.toArray())));
 		return order;
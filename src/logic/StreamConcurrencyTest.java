@@ -0,0 +1,161 @@
+package logic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+
+import model.StreamObject;
+import model.StreamSnapshot;
+import model.StreamTask;
+
+import org.junit.Test;
+
+import exception.StreamModificationException;
+
+//@author A0096529N
+public class StreamConcurrencyTest {
+
+	private static final int WRITERS = 4;
+	private static final int OPERATIONS = 3000;
+	private static final int NAMES_PER_WRITER = 40;
+
+	@Test
+	public void concurrentModificationTest() throws Exception {
+		final StreamObject streamObject = StreamObject.getInstance();
+		final StreamLogic streamLogic = StreamLogic.init(streamObject);
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicBoolean writing = new AtomicBoolean(true);
+		ExecutorService executor = Executors.newFixedThreadPool(WRITERS + 1);
+
+		Future<?>[] writers = new Future<?>[WRITERS];
+		for (int w = 0; w < WRITERS; w++) {
+			final int writer = w;
+			writers[w] = executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					start.await();
+					modifyRandomly(streamLogic, new Random(writer), writer);
+					return null;
+				}
+			});
+		}
+		Future<Integer> reader = executor.submit(new Callable<Integer>() {
+			@Override
+			public Integer call() throws Exception {
+				start.await();
+				int snapshots = 0;
+				while (writing.get()) {
+					assertConsistent(streamObject.snapshot());
+					snapshots++;
+				}
+				return snapshots;
+			}
+		});
+
+		start.countDown();
+		for (Future<?> writer : writers) {
+			writer.get(60, TimeUnit.SECONDS);
+		}
+		writing.set(false);
+		assertTrue("Snapshots taken", reader.get(60, TimeUnit.SECONDS) > 0);
+		executor.shutdown();
+
+		assertConsistent(streamObject.snapshot());
+		List<String> taskList = streamObject.getTaskList();
+		assertEquals("Map and list agree", taskList.size(), streamObject
+				.getTaskMap().size());
+		for (int i = 0; i < taskList.size(); i++) {
+			assertEquals("Position indexed", i,
+					streamObject.indexOf(taskList.get(i)));
+			assertEquals("Name kept with task", taskList.get(i), streamObject
+					.get(taskList.get(i)).getTaskName());
+		}
+	}
+
+	@Test
+	public void concurrentQueryTest() throws Exception {
+		final StreamObject streamObject = StreamObject.getInstance();
+		final StreamLogic streamLogic = StreamLogic.init(streamObject);
+		StreamTask task = new StreamTask("Task 1");
+		task.setDeadlineMillis(System.currentTimeMillis());
+		streamObject.put(task.getTaskName(), task);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		// queries must not wait for another reader
+		Lock lock = streamObject.getLock().readLock();
+		lock.lock();
+		try {
+			Future<Integer> query = executor.submit(new Callable<Integer>() {
+				@Override
+				public Integer call() throws Exception {
+					return streamLogic.findTasks("task").size()
+							+ streamLogic.filterTasks("done").size()
+							+ streamLogic.filterTasks("due before tomorrow")
+									.size();
+				}
+			});
+			assertEquals("Queried while read", Integer.valueOf(2),
+					query.get(10, TimeUnit.SECONDS));
+		} finally {
+			lock.unlock();
+		}
+		executor.shutdown();
+	}
+
+	/**
+	 * Adds, renames and deletes tasks, some of them shared with the other
+	 * writers, so that writers race for the same names.
+	 */
+	private void modifyRandomly(StreamLogic streamLogic, Random random,
+			int writer) {
+		for (int i = 0; i < OPERATIONS; i++) {
+			String taskName = pickName(random, writer);
+			try {
+				switch (random.nextInt(3)) {
+					case 0:
+						streamLogic.addTask(taskName);
+						break;
+					case 1:
+						streamLogic.updateTaskName(taskName,
+								pickName(random, writer));
+						break;
+					default:
+						streamLogic.deleteTask(taskName);
+				}
+			} catch (StreamModificationException e) {
+				// name taken or task gone, as expected while racing
+			}
+		}
+	}
+
+	private String pickName(Random random, int writer) {
+		int owner = random.nextBoolean() ? writer : WRITERS;
+		return "Task " + owner + "-" + random.nextInt(NAMES_PER_WRITER);
+	}
+
+	private void assertConsistent(StreamSnapshot snapshot) {
+		Set<String> keys = new HashSet<String>();
+		for (int i = 0; i < snapshot.size(); i++) {
+			StreamTask task = snapshot.get(i);
+			assertNotNull("Listed task stored", task);
+			assertEquals("Name kept with task", snapshot.getName(i),
+					task.getTaskName());
+			assertTrue("Unique name", keys.add(task.getKey()));
+		}
+		assertEquals("Map and list agree", keys.size(), snapshot
+				.getTaskMap().size());
+	}
+}
@@ -3,18 +3,21 @@ package logic;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
-import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
 
 import com.mdimension.jchronic.Chronic;
 
 import parser.StreamParser;
 import parser.StreamParser.FilterType;
-import parser.StreamParser.RankType;
 import model.StreamObject;
+import model.StreamSearchResult;
+import model.StreamSnapshot;
+import model.StreamTagDictionary;
 import model.StreamTask;
+import model.StreamTaskTable;
 import util.StreamConstants;
 import util.StreamUtil;
 import exception.StreamModificationException;
@@ -28,6 +31,8 @@ import exception.StreamModificationException;
 //@author A0118007R
 public class StreamLogic extends BaseLogic {
 
+	private static final long NONE = StreamTaskTable.NONE;
+
 	private StreamObject streamObject;
 	private TaskLogic taskLogic = TaskLogic.init();
 
@@ -67,10 +72,16 @@ public class StreamLogic extends BaseLogic {
 	 * 
 	 * @param anotherTaskList
 	 */
-	public void setOrdering(ArrayList<String> anotherTaskList) {
-		assert (StreamUtil.listEqual(streamObject.getTaskList(),
-				anotherTaskList)) : StreamConstants.Assertion.NOT_EQUAL;
-		streamObject.setTaskList(anotherTaskList);
+	public void setOrdering(List<String> anotherTaskList) {
+		Lock lock = streamObject.getLock().writeLock();
+		lock.lock();
+		try {
+			assert (StreamUtil.listEqual(streamObject.getTaskList(),
+					anotherTaskList)) : StreamConstants.Assertion.NOT_EQUAL;
+			streamObject.setTaskList(anotherTaskList);
+		} finally {
+			lock.unlock();
+		}
 		logDebug(String.format(StreamConstants.LogMessage.REORDER_TASKS,
 				Arrays.toString(anotherTaskList.toArray())));
 	}
@@ -98,10 +109,12 @@ public class StreamLogic extends BaseLogic {
 	 * @return result of the sort
 	 */
 	public String sortAlpha(final boolean descending) {
-		sort(new Comparator<StreamTask>() {
+		final StreamTaskTable table = streamObject.getTable();
+		sort(table, new Comparator<Integer>() {
 			@Override
-			public int compare(StreamTask o1, StreamTask o2) {
-				return descending ? compareName(o1, o2) : compareName(o2, o1);
+			public int compare(Integer row1, Integer row2) {
+				return descending ? compareName(table, row1, row2)
+						: compareName(table, row2, row1);
 			}
 		});
 		return "Sort by alphabetical order, "
@@ -116,11 +129,12 @@ public class StreamLogic extends BaseLogic {
 	 * @return result of the sort
 	 */
 	public String sortStartTime(final boolean descending) {
-		sort(new Comparator<StreamTask>() {
+		final StreamTaskTable table = streamObject.getTable();
+		sort(table, new Comparator<Integer>() {
 			@Override
-			public int compare(StreamTask o1, StreamTask o2) {
-				return descending ? compareStartTime(o1, o2, true)
-						: compareStartTime(o2, o1, false);
+			public int compare(Integer row1, Integer row2) {
+				return descending ? compareStartTime(table, row1, row2, true)
+						: compareStartTime(table, row2, row1, false);
 			}
 		});
 		return "Sort by start time "
@@ -135,11 +149,12 @@ public class StreamLogic extends BaseLogic {
 	 * @return result of the sort
 	 */
 	public String sortDeadline(final boolean descending) {
-		sort(new Comparator<StreamTask>() {
+		final StreamTaskTable table = streamObject.getTable();
+		sort(table, new Comparator<Integer>() {
 			@Override
-			public int compare(StreamTask o1, StreamTask o2) {
-				return descending ? compareDeadline(o1, o2, true)
-						: compareDeadline(o2, o1, false);
+			public int compare(Integer row1, Integer row2) {
+				return descending ? compareDeadline(table, row1, row2, true)
+						: compareDeadline(table, row2, row1, false);
 			}
 		});
 		return "Sort by deadline "
@@ -166,34 +181,39 @@ public class StreamLogic extends BaseLogic {
 	 * @return result of the sort
 	 */
 	public String sortImportance(final boolean descending) {
-		sort(new Comparator<StreamTask>() {
+		final StreamTaskTable table = streamObject.getTable();
+		final long now = System.currentTimeMillis();
+		sort(table, new Comparator<Integer>() {
 			@Override
-			public int compare(StreamTask o1, StreamTask o2) {
-				int comparison = descending ? compareDone(o1, o2)
-						: compareDone(o2, o1);
-				if (comparison == 0 && !o1.isDone()
-						&& o1.isOverdue() != o2.isOverdue()) {
+			public int compare(Integer row1, Integer row2) {
+				int comparison = descending ? compareDone(table, row1, row2)
+						: compareDone(table, row2, row1);
+				if (comparison == 0 && !table.isDone(row1)
+						&& isOverdue(table, row1, now) != isOverdue(table,
+								row2, now)) {
 					if (descending) {
-						comparison = o2.isOverdue() ? 1 : -1;
+						comparison = isOverdue(table, row2, now) ? 1 : -1;
 					} else {
-						comparison = o1.isOverdue() ? 1 : -1;
+						comparison = isOverdue(table, row1, now) ? 1 : -1;
 					}
 				}
 				if (comparison == 0) {
-					comparison = descending ? compareRank(o1, o2)
-							: compareRank(o2, o1);
+					comparison = descending ? compareRank(table, row1, row2)
+							: compareRank(table, row2, row1);
 				}
 				if (comparison == 0) {
-					comparison = descending ? compareDeadline(o2, o1, false)
-							: compareDeadline(o1, o2, false);
+					comparison = descending ? compareDeadline(table, row2,
+							row1, false) : compareDeadline(table, row1, row2,
+							false);
 				}
 				if (comparison == 0) {
-					comparison = descending ? compareStartTime(o2, o1, false)
-							: compareStartTime(o1, o2, false);
+					comparison = descending ? compareStartTime(table, row2,
+							row1, false) : compareStartTime(table, row1, row2,
+							false);
 				}
 				if (comparison == 0) {
-					return descending ? compareName(o1, o2) : compareName(o2,
-							o1);
+					return descending ? compareName(table, row1, row2)
+							: compareName(table, row2, row1);
 				}
 				return comparison;
 			}
@@ -213,36 +233,33 @@ public class StreamLogic extends BaseLogic {
 	// Sort the task based on the time given, if start time is known, then
 	// sort based on start time, if not, then sort based on deadline
 	public String sortTime(final boolean descending) {
-		sort(new Comparator<StreamTask>() {
+		final StreamTaskTable table = streamObject.getTable();
+		sort(table, new Comparator<Integer>() {
 			@Override
-			public int compare(StreamTask o1, StreamTask o2) {
-				if (o1.getStartTime() == null && o1.getDeadline() == null
-						&& o2.getStartTime() == null
-						&& o2.getDeadline() == null) {
+			public int compare(Integer row1, Integer row2) {
+				long start1 = table.getStartTime(row1);
+				long start2 = table.getStartTime(row2);
+				long deadline1 = table.getDeadline(row1);
+				long deadline2 = table.getDeadline(row2);
+				if (start1 == NONE && deadline1 == NONE && start2 == NONE
+						&& deadline2 == NONE) {
 					return 0;
-				} else if (o1.getStartTime() == null
-						&& o1.getDeadline() == null) {
+				} else if (start1 == NONE && deadline1 == NONE) {
 					return 1;
-				} else if (o2.getStartTime() == null
-						&& o2.getDeadline() == null) {
+				} else if (start2 == NONE && deadline2 == NONE) {
 					return -1;
-				} else if (o1.getStartTime() == null
-						&& o2.getStartTime() == null) {
-					return descending ? o2.getDeadline().compareTo(
-							o1.getDeadline()) : o1.getDeadline().compareTo(
-							o2.getDeadline());
-				} else if (o1.getStartTime() == null) {
-					return descending ? o2.getStartTime().compareTo(
-							o1.getDeadline()) : o1.getDeadline().compareTo(
-							o2.getStartTime());
-				} else if (o2.getStartTime() == null) {
-					return descending ? o2.getDeadline().compareTo(
-							o1.getStartTime()) : o1.getStartTime().compareTo(
-							o2.getDeadline());
+				} else if (start1 == NONE && start2 == NONE) {
+					return descending ? Long.compare(deadline2, deadline1)
+							: Long.compare(deadline1, deadline2);
+				} else if (start1 == NONE) {
+					return descending ? Long.compare(start2, deadline1)
+							: Long.compare(deadline1, start2);
+				} else if (start2 == NONE) {
+					return descending ? Long.compare(deadline2, start1)
+							: Long.compare(start1, deadline2);
 				} else {
-					return descending ? o2.getStartTime().compareTo(
-							o1.getStartTime()) : o1.getStartTime().compareTo(
-							o2.getStartTime());
+					return descending ? Long.compare(start2, start1) : Long
+							.compare(start1, start2);
 				}
 			}
 		});
@@ -251,16 +268,26 @@ public class StreamLogic extends BaseLogic {
 
 	//@author A0096529N
 	/**
-	 * Sorts tasks based on given comparator.
+	 * Sorts the rows of the task table based on given comparator, and sets
+	 * the ordering to the sorted rows.
 	 * 
+	 * @param table
+	 *            the task table to be sorted
 	 * @param comparator
-	 *            for sorting tasks
+	 *            for sorting rows of the table
 	 */
-	private void sort(Comparator<StreamTask> comparator) {
+	private void sort(StreamTaskTable table, Comparator<Integer> comparator) {
 		assert (comparator != null);
-		List<StreamTask> tempList = getStreamTaskList();
-		Collections.sort(tempList, comparator);
-		setOrderingWithTasks(tempList);
+		Integer[] rows = new Integer[table.size()];
+		for (int row = 0; row < rows.length; row++) {
+			rows[row] = row;
+		}
+		Arrays.sort(rows, comparator);
+		ArrayList<String> orderList = new ArrayList<String>(rows.length);
+		for (Integer row : rows) {
+			orderList.add(table.getName(row));
+		}
+		setOrdering(orderList);
 	}
 
 	/**
@@ -275,68 +302,70 @@ public class StreamLogic extends BaseLogic {
 	 * <li>NULL: -1</li>
 	 * </ul>
 	 * 
-	 * @param task1
+	 * @param table
+	 *            the task table
+	 * @param row1
 	 *            the first task to compare
-	 * @param task2
+	 * @param row2
 	 *            the second task to be compared to
 	 * @return 0 if tasks' ranks are equal, or the rank of task2 - rank of
 	 *         task1.
 	 */
-	private int compareRank(StreamTask task1, StreamTask task2) {
-		return valueRank(task2.getRank()) - valueRank(task1.getRank());
+	private int compareRank(StreamTaskTable table, int row1, int row2) {
+		return table.getRank(row2) - table.getRank(row1);
 	}
 
-	private int compareDone(StreamTask task1, StreamTask task2) {
-		if (task1.isDone() == task2.isDone()) {
+	private int compareDone(StreamTaskTable table, int row1, int row2) {
+		if (table.isDone(row1) == table.isDone(row2)) {
 			return 0;
-		} else if (task1.isDone() && !task2.isDone()) {
+		} else if (table.isDone(row1) && !table.isDone(row2)) {
 			return 1;
 		} else {
 			return -1;
 		}
 	}
 
-	private int compareDeadline(StreamTask task1, StreamTask task2,
+	private int compareDeadline(StreamTaskTable table, int row1, int row2,
 			boolean reverse) {
-		if (task1.getDeadline() == null && task2.getDeadline() == null) {
+		long deadline1 = table.getDeadline(row1);
+		long deadline2 = table.getDeadline(row2);
+		if (deadline1 == NONE && deadline2 == NONE) {
 			return 0;
-		} else if (task1.getDeadline() == null) {
+		} else if (deadline1 == NONE) {
 			return reverse ? 1 : -1;
-		} else if (task2.getDeadline() == null) {
+		} else if (deadline2 == NONE) {
 			return reverse ? -1 : 1;
 		} else {
-			return task2.getDeadline().compareTo(task1.getDeadline());
+			return Long.compare(deadline2, deadline1);
 		}
 	}
 
-	private int compareName(StreamTask task1, StreamTask task2) {
-		return task2.getTaskName().compareTo(task1.getTaskName());
+	private int compareName(StreamTaskTable table, int row1, int row2) {
+		return table.getName(row2).compareTo(table.getName(row1));
 	}
 
-	private int compareStartTime(StreamTask task1, StreamTask task2,
+	private int compareStartTime(StreamTaskTable table, int row1, int row2,
 			boolean reverse) {
-		if (task1.getStartTime() == null && task2.getStartTime() == null) {
+		long startTime1 = table.getStartTime(row1);
+		long startTime2 = table.getStartTime(row2);
+		if (startTime1 == NONE && startTime2 == NONE) {
 			return 0;
-		} else if (task1.getStartTime() == null) {
+		} else if (startTime1 == NONE) {
 			return reverse ? 1 : -1;
-		} else if (task2.getStartTime() == null) {
+		} else if (startTime2 == NONE) {
 			return reverse ? -1 : 1;
 		} else {
-			return task2.getStartTime().compareTo(task1.getStartTime());
+			return Long.compare(startTime2, startTime1);
 		}
 	}
 
-	private int valueRank(String rank) {
-		switch (StreamParser.parseRanking(rank)) {
-			case HI:
-				return 2;
-			case MED:
-				return 1;
-			case LO:
-				return 0;
-			default:
-				return -1;
-		}
+	private boolean isOverdue(StreamTaskTable table, int row, long now) {
+		return table.getDeadline(row) != NONE && table.getDeadline(row) < now;
+	}
+
+	private boolean isInactive(StreamTaskTable table, int row, long now) {
+		return table.getStartTime(row) != NONE
+				&& table.getStartTime(row) > now;
 	}
 
 	/**
@@ -359,16 +388,22 @@ public class StreamLogic extends BaseLogic {
 	 *            name of the new task
 	 */
 	public void addTask(String newTaskName) throws StreamModificationException {
-		if (hasTask(newTaskName)) {
-			logDebug(String.format(
-					StreamConstants.LogMessage.ADD_DUPLICATE_TASK, newTaskName));
-			throw new StreamModificationException(String.format(
-					StreamConstants.ExceptionMessage.ERR_TASK_ALREADY_EXISTS,
-					newTaskName));
-		} else {
-			streamObject.put(newTaskName, new StreamTask(newTaskName));
-			logDebug(String.format(StreamConstants.LogMessage.ADDED_TASK,
-					newTaskName));
+		Lock lock = streamObject.getLock().writeLock();
+		lock.lock();
+		try {
+			if (hasTask(newTaskName)) {
+				logDebug(String.format(
+						StreamConstants.LogMessage.ADD_DUPLICATE_TASK, newTaskName));
+				throw new StreamModificationException(String.format(
+						StreamConstants.ExceptionMessage.ERR_TASK_ALREADY_EXISTS,
+						newTaskName));
+			} else {
+				streamObject.put(newTaskName, new StreamTask(newTaskName));
+				logDebug(String.format(StreamConstants.LogMessage.ADDED_TASK,
+						newTaskName));
+			}
+		} finally {
+			lock.unlock();
 		}
 	}
 
@@ -441,12 +476,18 @@ public class StreamLogic extends BaseLogic {
 	 *             found
 	 */
 	public void deleteTask(String taskName) throws StreamModificationException {
-		if (hasTask(taskName)) {
-			streamObject.remove(taskName);
-		} else {
-			throw new StreamModificationException(String.format(
-					StreamConstants.ExceptionMessage.ERR_TASK_DOES_NOT_EXIST,
-					taskName));
+		Lock lock = streamObject.getLock().writeLock();
+		lock.lock();
+		try {
+			if (hasTask(taskName)) {
+				streamObject.remove(taskName);
+			} else {
+				throw new StreamModificationException(String.format(
+						StreamConstants.ExceptionMessage.ERR_TASK_DOES_NOT_EXIST,
+						taskName));
+			}
+		} finally {
+			lock.unlock();
 		}
 	}
 
@@ -469,23 +510,30 @@ public class StreamLogic extends BaseLogic {
 	public String updateTaskName(String taskName, String newTaskName)
 			throws StreamModificationException {
 		assert (taskName != null && newTaskName != null) : StreamConstants.Assertion.NULL_INPUT;
-		StreamTask task = getTask(taskName);
-		if (!taskName.equals(newTaskName)) {
-			if (streamObject.containsKey(newTaskName)) {
-				logDebug(String.format(
-						StreamConstants.LogMessage.UPDATE_TASK_NAME_DUPLICATE,
-						newTaskName));
-				throw new StreamModificationException(
-						String.format(
-								StreamConstants.ExceptionMessage.ERR_NEW_TASK_NAME_NOT_AVAILABLE,
-								newTaskName));
+		// the task keeps its position, with no other modification in between
+		Lock lock = streamObject.getLock().writeLock();
+		lock.lock();
+		try {
+			StreamTask task = getTask(taskName);
+			if (!taskName.equals(newTaskName)) {
+				if (streamObject.containsKey(newTaskName)) {
+					logDebug(String.format(
+							StreamConstants.LogMessage.UPDATE_TASK_NAME_DUPLICATE,
+							newTaskName));
+					throw new StreamModificationException(
+							String.format(
+									StreamConstants.ExceptionMessage.ERR_NEW_TASK_NAME_NOT_AVAILABLE,
+									newTaskName));
+				}
 			}
-		}
-		int index = streamObject.indexOf(taskName);
+			int index = streamObject.indexOf(taskName);
 
-		streamObject.remove(task.getTaskName());
-		task.setTaskName(newTaskName);
-		streamObject.put(newTaskName, task, index);
+			streamObject.remove(task.getTaskName());
+			task.setTaskName(newTaskName);
+			streamObject.put(newTaskName, task, index);
+		} finally {
+			lock.unlock();
+		}
 		// This section is contributed by A0093874N
 		logDebug(String.format(StreamConstants.LogMessage.UPDATE_TASK_NAME,
 				taskName, newTaskName));
@@ -567,37 +615,85 @@ public class StreamLogic extends BaseLogic {
 	 *         nothing matches
 	 */
 	public ArrayList<Integer> findTasks(String keyphrase) {
-		// Split key phrase into keywords
-		String[] keywords = null;
-		if (keyphrase.contains(" ")) {
-			keywords = keyphrase.split(" ");
-		} else {
-			keywords = new String[] { keyphrase };
+		// answered by the text index: tasks tagged with any key word, or
+		// whose name or description contains the key phrase, ignoring case
+		ArrayList<Integer> tasks = new ArrayList<Integer>();
+		for (int position : streamObject.findByKeyphrase(keyphrase,
+				getKeywordTagIds(keyphrase))) {
+			tasks.add(position + 1);
 		}
 
+		logDebug(String.format(StreamConstants.LogMessage.SEARCHED_TASKS,
+				keyphrase, Arrays.toString(tasks.toArray())));
+		return tasks;
+	}
+
+	/**
+	 * Checks whether findTasks() would find a task that is not stored, e.g.
+	 * an archived task: a task tagged with any key word, or whose name or
+	 * description contains the key phrase, ignoring case. The key phrase is
+	 * folded and its tags looked up once per search, not once per task.
+	 * 
+	 * <p>
+	 * Precondition: task, foldedKeyphrase, keywordTagIds != null
+	 * </p>
+	 * 
+	 * @param foldedKeyphrase
+	 *            the key phrase in lower case
+	 * @param keywordTagIds
+	 *            ids of the key words as tags, from getKeywordTagIds()
+	 * @return true if the task would be found
+	 */
+	public boolean isFound(StreamTask task, String foldedKeyphrase,
+			int[] keywordTagIds) {
+		return task.hasAnyTag(keywordTagIds)
+				|| (task.getDescription() != null && StreamUtil
+						.containsIgnoreCase(task.getDescription(),
+								foldedKeyphrase))
+				|| task.getKey().contains(foldedKeyphrase);
+	}
+
+	/**
+	 * Search for tasks as findTasks() does, and returns only the most
+	 * relevant of them: tasks tagged with the key words first, then tasks
+	 * with the key phrase in their name, then in their description, favouring
+	 * more occurrences of it and nearer deadlines.
+	 * 
+	 * <p>
+	 * Precondition: keyphrase != null
+	 * </p>
+	 * 
+	 * @param limit
+	 *            the maximum number of tasks to return
+	 * @return tasks - the most relevant tasks, most relevant first
+	 */
+	public ArrayList<Integer> findBestTasks(String keyphrase, int limit) {
 		ArrayList<Integer> tasks = new ArrayList<Integer>();
-		for (int i = 0; i < streamObject.size(); i++) {
-			StreamTask task = streamObject.get(streamObject.get(i));
+		for (int position : streamObject.findBestByKeyphrase(keyphrase,
+				getKeywordTagIds(keyphrase), limit)) {
+			tasks.add(position + 1);
+		}
 
-			// check for matches between keywords and tags
-			if (task.hasTag(keywords)) {
-				tasks.add(i + 1);
-				continue;
-			}
-			// improved by A0093874N: case-insensitive search
-			// check if task description contains key phrase
-			if (task.getDescription() != null
-					&& task.getDescription().toLowerCase()
-							.contains(keyphrase.toLowerCase())) {
-				tasks.add(i + 1);
-				continue;
-			}
-			// check if task name contains key phrase
-			if (task.getTaskName().toLowerCase()
-					.contains(keyphrase.toLowerCase())) {
-				tasks.add(i + 1);
-				continue;
-			}
+		logDebug(String.format(StreamConstants.LogMessage.SEARCHED_TASKS,
+				keyphrase, Arrays.toString(tasks.toArray())));
+		return tasks;
+	}
+
+	/**
+	 * Search for tasks with words similar to the words of the key phrase,
+	 * for key phrases that may be misspelled. Short words must match
+	 * exactly, longer words may differ by one or two characters.
+	 * 
+	 * <p>
+	 * Precondition: keyphrase != null
+	 * </p>
+	 * 
+	 * @return tasks - the tasks found, the closest matches first
+	 */
+	public ArrayList<Integer> findSimilarTasks(String keyphrase) {
+		ArrayList<Integer> tasks = new ArrayList<Integer>();
+		for (int position : streamObject.findSimilarByKeyphrase(keyphrase)) {
+			tasks.add(position + 1);
 		}
 
 		logDebug(String.format(StreamConstants.LogMessage.SEARCHED_TASKS,
@@ -605,6 +701,46 @@ public class StreamLogic extends BaseLogic {
 		return tasks;
 	}
 
+	/**
+	 * Search for tasks as findTasks() does, refining the previous result when
+	 * the key phrase extends its phrase, for searching while the user types.
+	 * 
+	 * <p>
+	 * Precondition: keyphrase != null
+	 * </p>
+	 * 
+	 * @param previous
+	 *            the result of the previous search, or null
+	 * @return result - the tasks found, positions starting from 0
+	 */
+	public StreamSearchResult searchTasks(String keyphrase,
+			StreamSearchResult previous) {
+		return streamObject.search(keyphrase, getKeywordTagIds(keyphrase),
+				previous);
+	}
+
+	/**
+	 * Splits the key phrase into key words (by splitting with space
+	 * character) and looks them up once per search as tags, tags being
+	 * stored in upper case.
+	 * 
+	 * @return ids of the key words as tags, from StreamTagDictionary
+	 */
+	public int[] getKeywordTagIds(String keyphrase) {
+		String[] keywords = null;
+		if (keyphrase.contains(" ")) {
+			keywords = keyphrase.split(" ");
+		} else {
+			keywords = new String[] { keyphrase };
+		}
+		int[] keywordTagIds = new int[keywords.length];
+		for (int i = 0; i < keywords.length; i++) {
+			keywordTagIds[i] = StreamTagDictionary.lookup(keywords[i]
+					.toUpperCase());
+		}
+		return keywordTagIds;
+	}
+
 	//@author A0093874N
 	/**
 	 * Filter tasks by various categories
@@ -616,108 +752,105 @@ public class StreamLogic extends BaseLogic {
 	public ArrayList<Integer> filterTasks(String criteria) {
 		ArrayList<Integer> tasks = new ArrayList<Integer>();
 		FilterType type = StreamParser.parseFilterType(criteria);
-		String[] contents;
-		Calendar dueDate;
-		for (int i = 1; i <= streamObject.size(); i++) {
-			StreamTask task = streamObject.get(streamObject.get(i - 1));
-			switch (type) {
-				case DONE:
-					if (task.isDone()) {
-						tasks.add(i);
-					}
-					break;
-				case NOT:
-					if (!task.isDone()) {
-						tasks.add(i);
-					}
-					break;
-				case HIRANK:
-					if (StreamParser.parseRanking(task.getRank()) == RankType.HI) {
-						tasks.add(i);
-					}
-					break;
-				case MEDRANK:
-					if (StreamParser.parseRanking(task.getRank()) == RankType.MED) {
-						tasks.add(i);
-					}
-					break;
-				case LORANK:
-					if (StreamParser.parseRanking(task.getRank()) == RankType.LO) {
-						tasks.add(i);
-					}
-					break;
-				case STARTBEF:
-					contents = criteria.split(" ", 3);
-					dueDate = Chronic.parse(contents[2]).getBeginCalendar();
-					if (task.getStartTime() != null
-							&& task.getStartTime().before(dueDate)) {
-						tasks.add(i);
-					}
-					break;
-				case STARTAFT:
-					contents = criteria.split(" ", 3);
-					dueDate = Chronic.parse(contents[2]).getBeginCalendar();
-					if (task.getStartTime() != null
-							&& task.getStartTime().after(dueDate)) {
-						tasks.add(i);
-					}
-					break;
-				case DUEBEF:
-					contents = criteria.split(" ", 3);
-					dueDate = Chronic.parse(contents[2]).getBeginCalendar();
-					if (task.getDeadline() != null
-							&& task.getDeadline().before(dueDate)) {
-						tasks.add(i);
-					}
-					break;
-				case DUEAFT:
-					contents = criteria.split(" ", 3);
-					dueDate = Chronic.parse(contents[2]).getBeginCalendar();
-					if (task.getDeadline() != null
-							&& task.getDeadline().after(dueDate)) {
-						tasks.add(i);
-					}
-					break;
-				case NOTIMING:
-					if (task.isFloatingTask()) {
-						tasks.add(i);
-					}
-					break;
-				case DEADLINED:
-					if (task.isDeadlineTask()) {
-						tasks.add(i);
-					}
-					break;
-				case EVENT:
-					if (task.isTimedTask()) {
-						tasks.add(i);
-					}
-					break;
-				case OVERDUE:
-					if (task.isOverdue()) {
-						tasks.add(i);
-					}
-					break;
-				case INACTIVE:
-					if (task.isInactive()) {
-						tasks.add(i);
+		switch (type) {
+			case STARTBEF:
+			case STARTAFT:
+			case DUEBEF:
+			case DUEAFT:
+				// answered by the time indexes, in order of position
+				String[] contents = criteria.split(" ", 3);
+				long date = Chronic.parse(contents[2]).getBeginCalendar()
+						.getTimeInMillis();
+				for (int position : findByTime(type, date)) {
+					tasks.add(position + 1);
+				}
+				break;
+			default:
+				StreamTaskTable table = streamObject.getTable();
+				long now = System.currentTimeMillis();
+				for (int row = 0; row < table.size(); row++) {
+					if (isFiltered(table, row, type, now)) {
+						tasks.add(row + 1);
 					}
-					break;
-				// case STARTON:
-				// case DUEON:
-				// TODO think on how to implement this
-				default:
-					// shouldn't happen, but in case it happens, pretend
-					// that there is no filter
-					tasks.add(i);
-					break;
-			}
+				}
 		}
 		logDebug(String.format(StreamConstants.LogMessage.FILTERED_TASKS,
 				criteria, Arrays.toString(tasks.toArray())));
 		return tasks;
 	}
 
+	//@author A0096529N
+	/**
+	 * Finds the tasks passing a filter by start time or deadline.
+	 * 
+	 * @param type
+	 *            one of the filters by date
+	 * @param date
+	 *            the date of the criteria
+	 * @return positions of the tasks passing the filter, in ascending order
+	 */
+	private List<Integer> findByTime(FilterType type, long date) {
+		switch (type) {
+			case STARTBEF:
+				return streamObject.findByStartTime(date, true);
+			case STARTAFT:
+				return streamObject.findByStartTime(date, false);
+			case DUEBEF:
+				return streamObject.findByDeadline(date, true);
+			default:
+				return streamObject.findByDeadline(date, false);
+		}
+	}
+
+	//@author A0093874N
+	/**
+	 * Checks whether a task passes a filter other than by date.
+	 * 
+	 * @param table
+	 *            the task table
+	 * @param row
+	 *            the row of the task
+	 * @param type
+	 *            the filtering criteria
+	 * @param now
+	 *            the current time
+	 * @return true if the task passes the filter
+	 */
+	private boolean isFiltered(StreamTaskTable table, int row,
+			FilterType type, long now) {
+		long startTime = table.getStartTime(row);
+		long deadline = table.getDeadline(row);
+		switch (type) {
+			case DONE:
+				return table.isDone(row);
+			case NOT:
+				return !table.isDone(row);
+			case HIRANK:
+				return table.getRank(row) == StreamTaskTable.RANK_HI;
+			case MEDRANK:
+				return table.getRank(row) == StreamTaskTable.RANK_MED;
+			case LORANK:
+				return table.getRank(row) == StreamTaskTable.RANK_LO;
+			case NOTIMING:
+				return startTime == NONE && deadline == NONE;
+			case DEADLINED:
+				return deadline != NONE;
+			case EVENT:
+				return startTime != NONE;
+			case OVERDUE:
+				return isOverdue(table, row, now);
+			case INACTIVE:
+				return isInactive(table, row, now);
+			// case STARTON:
+			// case DUEON:
+			// TODO think on how to implement this
+			default:
+				// shouldn't happen, but in case it happens, pretend
+				// that there is no filter
+				return true;
+		}
+	}
+
 	/**
 	 * Gets the number of tasks added.
 	 * 
@@ -738,21 +871,29 @@ public class StreamLogic extends BaseLogic {
 	 *            the index of the task
 	 */
 	public String getTaskNumber(int index) {
-		return streamObject.getTaskList().get(index - 1);
+		return streamObject.get(index - 1);
 	}
 
 	/**
-	 * @return taskMap a copy of the task map.
+	 * @return snapshot an immutable snapshot of the tasks.
 	 */
-	public HashMap<String, StreamTask> getTaskMap() {
-		return new HashMap<String, StreamTask>(streamObject.getTaskMap());
+	public StreamSnapshot getSnapshot() {
+		return streamObject.snapshot();
 	}
 
 	/**
-	 * @return taskList a copy of the task list.
+	 * @return taskMap an unmodifiable snapshot of the task map, whose tasks
+	 *         are detached copies that must not be modified.
+	 */
+	public Map<String, StreamTask> getTaskMap() {
+		return streamObject.snapshot().getTaskMap();
+	}
+
+	/**
+	 * @return taskList an unmodifiable snapshot of the task list.
 	 */
-	public ArrayList<String> getTaskList() {
-		return new ArrayList<String>(streamObject.getTaskList());
+	public List<String> getTaskList() {
+		return streamObject.snapshot().getTaskList();
 	}
 
 	/**
@@ -760,10 +901,7 @@ public class StreamLogic extends BaseLogic {
 	 */
 	public ArrayList<StreamTask> getStreamTaskList() {
 		ArrayList<StreamTask> taskList = new ArrayList<StreamTask>();
-		HashMap<String, StreamTask> taskMap = streamObject.getTaskMap();
-		for (String key : taskMap.keySet()) {
-			taskList.add(taskMap.get(key));
-		}
+		taskList.addAll(streamObject.getTaskMap().values());
 		return taskList;
 	}
 
@@ -771,10 +909,9 @@ public class StreamLogic extends BaseLogic {
 
 	public ArrayList<StreamTask> getStreamTaskList(ArrayList<Integer> indices) {
 		ArrayList<StreamTask> tasks = new ArrayList<StreamTask>();
-		HashMap<String, StreamTask> taskMap = streamObject.getTaskMap();
-		ArrayList<String> taskList = streamObject.getTaskList();
+		StreamTaskTable table = streamObject.getTable();
 		for (Integer index : indices) {
-			tasks.add(taskMap.get(taskList.get(index - 1).toLowerCase()));
+			tasks.add(table.getTask(index - 1));
 		}
 		return tasks;
 	}
@@ -828,7 +965,7 @@ public class StreamLogic extends BaseLogic {
 	/**
 	 * @deprecated
 	 */
-	public ArrayList<String> getTaskNames() {
+	public List<String> getTaskNames() {
 		return streamObject.getTaskList();
 	}
 
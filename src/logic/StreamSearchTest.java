@@ -53,6 +53,18 @@ public class StreamSearchTest {
 	public void testSearch3() {
 		testOneSearch("Search for panda", streamLogic.getStreamTaskList(streamLogic.findTasks("im looking for a panda")), task2);
 	}
+	@Test 
+	public void testSearchIgnoreCase() {
+		testOneSearch("Search name for PANDORA", streamLogic.getStreamTaskList(streamLogic.findTasks("PANDORA")), task2);
+		testOneSearch("Search description for BAMBOO", streamLogic.getStreamTaskList(streamLogic.findTasks("BAMBOO Forest")), task2);
+		testOneSearch("Search tags for math", streamLogic.getStreamTaskList(streamLogic.findTasks("math")), task1);
+	}
+	@Test 
+	public void testSearchRenamed() throws Exception {
+		streamLogic.updateTaskName("Find X", "Solve Equation");
+		testOneSearch("Search for new name", streamLogic.getStreamTaskList(streamLogic.findTasks("equation")), task1);
+		testOneSearch("Search for new name, any case", streamLogic.getStreamTaskList(streamLogic.findTasks("SOLVE")), task1);
+	}
 
 	private void testOneSearch(String testMessage, List<StreamTask> actualTasks, StreamTask...tasks) {
 		List<StreamTask> expectedTasks = Arrays.asList(tasks);
@@ -7,7 +7,7 @@ import java.util.Collections;
 
 import parser.StreamParser;
 import parser.StreamParser.MarkType;
-import parser.StreamParser.RankType;
+import model.RankType;
 import model.StreamTask;
 import util.StreamConstants;
 import util.StreamUtil;
@@ -0,0 +1,55 @@
+package model;
+
+//@author A0096529N
+/**
+ * Rank of a task, with the parsing and translation of ranks as shown to the
+ * user. Kept with the model so that tasks and their stores do not depend on
+ * the parser; <b>StreamParser</b> delegates to it.
+ *
+ * @version V0.5
+ */
+public enum RankType {
+	HI, MED, LO, NULL;
+
+	/**
+	 * Parses a supplied rank type into <b>STREAM</b>-recognizable format.
+	 * 
+	 * @return <b>RankType</b> - the parsed ranking type, NULL if not
+	 *         recognized
+	 */
+	public static RankType parse(String rankInput) {
+		switch (rankInput.toLowerCase()) {
+			case "high":
+			case "hi":
+			case "h":
+				return HI;
+			case "medium":
+			case "med":
+			case "m":
+				return MED;
+			case "low":
+			case "l":
+				return LO;
+			default:
+				return NULL;
+		}
+	}
+
+	/**
+	 * Translates an internal ranking format to readable <b>String</b>.
+	 * 
+	 * @return <b>String</b> - the translated ranking type, null if not ranked
+	 */
+	public String translate() {
+		switch (this) {
+			case HI:
+				return "high";
+			case MED:
+				return "medium";
+			case LO:
+				return "low";
+			default:
+				return null;
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+//@author A0096529N
+/**
+ * <p>
+ * BK-tree of words, for finding the words within an edit distance of a
+ * misspelled word without computing the distance to every word.
+ * </p>
+ *
+ * <p>
+ * Each child of a node is at a different Levenshtein distance from the node's
+ * word, so that, by the triangle inequality, only the children at a distance
+ * close to the searched word's distance from the node are visited. Words
+ * cannot be removed; the owner of the tree ignores words it no longer uses,
+ * and builds the tree again once there are many of them.
+ * </p>
+ *
+ * @version V0.5
+ */
+final class StreamBKTree {
+
+	private Node root;
+	private int size;
+
+	/**
+	 * Adds a word to the tree.
+	 *
+	 * @return true if the word was not in the tree
+	 */
+	boolean add(String word) {
+		if (root == null) {
+			root = new Node(word);
+			size++;
+			return true;
+		}
+		Node node = root;
+		while (true) {
+			int distance = distance(word, node.word);
+			if (distance == 0) {
+				return false;
+			}
+			Node child = node.getChild(distance);
+			if (child == null) {
+				node.setChild(distance, new Node(word));
+				size++;
+				return true;
+			}
+			node = child;
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Finds the words within the given edit distance of a word.
+	 *
+	 * @return the words found, with their distance from the word
+	 */
+	Map<String, Integer> find(String word, int maxDistance) {
+		Map<String, Integer> found = new HashMap<String, Integer>();
+		if (root == null) {
+			return found;
+		}
+		Deque<Node> pending = new ArrayDeque<Node>();
+		pending.push(root);
+		while (!pending.isEmpty()) {
+			Node node = pending.pop();
+			int distance = distance(word, node.word);
+			if (distance <= maxDistance) {
+				found.put(node.word, distance);
+			}
+			int last = Math.min(distance + maxDistance,
+					node.children.length - 1);
+			for (int i = Math.max(1, distance - maxDistance); i <= last; i++) {
+				if (node.children[i] != null) {
+					pending.push(node.children[i]);
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * @return the Levenshtein distance between the words, the number of
+	 *         characters to insert, delete or replace to turn one into the
+	 *         other
+	 */
+	static int distance(String first, String second) {
+		int[] previous = new int[second.length() + 1];
+		int[] current = new int[second.length() + 1];
+		for (int j = 0; j < previous.length; j++) {
+			previous[j] = j;
+		}
+		for (int i = 1; i <= first.length(); i++) {
+			current[0] = i;
+			char c = first.charAt(i - 1);
+			for (int j = 1; j < current.length; j++) {
+				int replace = previous[j - 1]
+						+ (c == second.charAt(j - 1) ? 0 : 1);
+				current[j] = Math.min(replace,
+						Math.min(previous[j], current[j - 1]) + 1);
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[second.length()];
+	}
+
+	private static class Node {
+
+		private static final Node[] NO_CHILDREN = new Node[0];
+
+		private final String word;
+		// children by their distance from the word
+		private Node[] children = NO_CHILDREN;
+
+		private Node(String word) {
+			this.word = word;
+		}
+
+		private Node getChild(int distance) {
+			return distance < children.length ? children[distance] : null;
+		}
+
+		private void setChild(int distance, Node child) {
+			if (distance >= children.length) {
+				children = Arrays.copyOf(children, distance + 1);
+			}
+			children[distance] = child;
+		}
+	}
+}
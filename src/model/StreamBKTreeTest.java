@@ -0,0 +1,86 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import logic.StreamLogic;
+
+import org.junit.Test;
+
+//@author A0096529N
+public class StreamBKTreeTest {
+
+	@Test
+	public void distanceTest() {
+		assertEquals("Same", 0, StreamBKTree.distance("panda", "panda"));
+		assertEquals("Replaced", 1, StreamBKTree.distance("panda", "pande"));
+		assertEquals("Inserted", 1, StreamBKTree.distance("panda", "pandas"));
+		assertEquals("Transposed", 2, StreamBKTree.distance("panda", "pnada"));
+		assertEquals("Empty", 5, StreamBKTree.distance("", "panda"));
+	}
+
+	@Test
+	public void bruteForceTest() {
+		Random random = new Random(2103);
+		String[] words = new String[500];
+		StreamBKTree tree = new StreamBKTree();
+		for (int i = 0; i < words.length; i++) {
+			words[i] = randomWord(random);
+			tree.add(words[i]);
+		}
+		assertFalse("Added once", tree.add(words[0]));
+		for (int i = 0; i < 100; i++) {
+			String word = randomWord(random);
+			Map<String, Integer> expected = new HashMap<String, Integer>();
+			for (String candidate : words) {
+				int distance = StreamBKTree.distance(word, candidate);
+				if (distance <= 2) {
+					expected.put(candidate, distance);
+				}
+			}
+			assertEquals("Same as brute force for " + word, expected,
+					tree.find(word, 2));
+		}
+	}
+
+	private static String randomWord(Random random) {
+		char[] word = new char[2 + random.nextInt(6)];
+		for (int i = 0; i < word.length; i++) {
+			word[i] = (char) ('a' + random.nextInt(4));
+		}
+		return new String(word);
+	}
+
+	@Test
+	public void fuzzySearchTest() throws Exception {
+		StreamObject streamObject = StreamObject.getInstance();
+		streamObject.put("Find Pandora's Box", new StreamTask(
+				"Find Pandora's Box"));
+		streamObject.put("Buy panda food", new StreamTask("Buy panda food"));
+		streamObject.put("Find bamboo", new StreamTask("Find bamboo"));
+
+		assertEquals("Closest first", Arrays.asList(1, 0),
+				streamObject.findSimilarByKeyphrase("pandar"));
+		assertEquals("Every word", Arrays.asList(0),
+				streamObject.findSimilarByKeyphrase("fimd pandroa"));
+		assertEquals("Short words exact", Collections.emptyList(),
+				streamObject.findSimilarByKeyphrase("bx"));
+
+		streamObject.get("Find bamboo").setDescription("and a pandora box");
+		assertEquals("New words", Arrays.asList(0, 2, 1),
+				streamObject.findSimilarByKeyphrase("pandor"));
+		streamObject.remove("Find Pandora's Box");
+		assertEquals("Removed words", Arrays.asList(1, 0),
+				streamObject.findSimilarByKeyphrase("pandor"));
+
+		StreamLogic streamLogic = StreamLogic.init(streamObject);
+		assertEquals("Display indices", Arrays.asList(2),
+				streamLogic.findSimilarTasks("bambo"));
+	}
+}
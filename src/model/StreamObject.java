@@ -1,34 +1,70 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 //@author A0118007R
 /**
  * StreamObject is a class that stores the data of all StreamTasks inside a
- * hashmap and an arraylist.
+ * hashmap and an ordered list of task names.
+ * 
+ * The ordered list indexes each task name to its position, so that lookups,
+ * insertions and removals by name or by index take logarithmic time.
  * 
  * This is the internal storage of the software.
  * 
- * It is implemented as a singleton.
+ * It is implemented as a singleton, and can be used from several threads,
+ * e.g. by background jobs while the user enters commands. Every method holds
+ * the lock of the StreamObject, and operations made of several calls, such as
+ * renaming a task, hold its write lock throughout, so that the hashmap and the
+ * order of tasks always agree. The indexes and the table are updated by the
+ * methods that modify tasks, so queries only hold the read lock and can run
+ * together. Threads other than the one processing commands should read the
+ * tasks through snapshot().
  * 
  * @version V0.5
  */
 public class StreamObject {
 
+	private static final int LARGE_RESULT_FRACTION = 8;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Lock readLock = lock.readLock();
+	private final Lock writeLock = lock.writeLock();
 	private HashMap<String, StreamTask> taskMap;
-	private ArrayList<String> taskList;
+	private StreamOrderList taskList;
+	private final StreamTaskTable table = new StreamTaskTable();
+	private final StreamTimeIndex timeIndex = new StreamTimeIndex();
+	private final StreamTextIndex textIndex = new StreamTextIndex();
+	private StreamSnapshot snapshot;
 
 	private StreamObject(HashMap<String, StreamTask> taskMap,
-			ArrayList<String> taskList) {
+			List<String> taskList) {
 		this.taskMap = taskMap;
-		this.taskList = taskList;
+		this.taskList = new StreamOrderList(taskList);
+		for (StreamTask task : taskMap.values()) {
+			timeIndex.add(task);
+			textIndex.add(task);
+		}
+		table.rebuild(this.taskList, taskMap);
 	}
 
 	private StreamObject() {
 		this.taskMap = new HashMap<String, StreamTask>();
-		this.taskList = new ArrayList<String>();
+		this.taskList = new StreamOrderList();
+		table.rebuild(this.taskList, taskMap);
 	}
 
 	/**
@@ -41,63 +77,147 @@ public class StreamObject {
 	}
 
 	public static StreamObject getInstance(HashMap<String, StreamTask> taskMap,
-			ArrayList<String> taskList) {
+			List<String> taskList) {
 		return new StreamObject(taskMap, taskList);
 	}
 
 	//@author generated
 	/**
-	 * Gets the hashmap of the current state of tasks stored as StreamTask
-	 * objects.
+	 * Gets a copy of the hashmap of the current state of tasks stored as
+	 * StreamTask objects.
 	 * 
-	 * @return taskMap - the hashmap containing all current tasks
+	 * @return taskMap - an unmodifiable copy of the hashmap containing all
+	 *         current tasks, whose tasks are to be modified only while
+	 *         holding the write lock of getLock()
 	 */
-	public HashMap<String, StreamTask> getTaskMap() {
-		return taskMap;
+	public Map<String, StreamTask> getTaskMap() {
+		readLock.lock();
+		try {
+			return Collections.unmodifiableMap(new HashMap<String, StreamTask>(
+					taskMap));
+		} finally {
+			readLock.unlock();
+		}
 	}
 
 	/**
 	 * Sets the hashmap of the current tasks to be the one that is inputted. For
-	 * loading purposes.
+	 * loading purposes. The tasks are indexed at once, and the hashmap must
+	 * not be modified directly afterwards.
 	 * 
 	 * @param taskMap
 	 *            - the new hashmap containing all new tasks
 	 */
 	public void setTaskMap(HashMap<String, StreamTask> taskMap) {
-		this.taskMap = taskMap;
+		writeLock.lock();
+		try {
+			this.taskMap = taskMap;
+			timeIndex.clear();
+			textIndex.clear();
+			for (StreamTask task : taskMap.values()) {
+				timeIndex.add(task);
+				textIndex.add(task);
+			}
+			table.rebuild(taskList, taskMap);
+		} finally {
+			writeLock.unlock();
+		}
 	}
 
 	/**
-	 * Gets the ArrayList containing all current tasks stored as task names.
+	 * Gets a copy of the list containing all current tasks stored as task
+	 * names.
 	 * 
-	 * @return taskList - the ArrayList containing all current tasks
+	 * @return taskList - an unmodifiable copy of the list containing all
+	 *         current tasks
 	 */
-	public ArrayList<String> getTaskList() {
-		return taskList;
+	public List<String> getTaskList() {
+		readLock.lock();
+		try {
+			return Collections.unmodifiableList(new ArrayList<String>(taskList));
+		} finally {
+			readLock.unlock();
+		}
 	}
 
 	/**
-	 * Sets the arraylist of the current tasks to be the one that is inputted.
-	 * For loading purposes.
+	 * Sets the list of the current tasks to be a copy of the one that is
+	 * inputted. For loading and reordering purposes.
 	 * 
 	 * @param taskList
-	 *            - the new arraylist containing all new tasks
+	 *            - the new list containing all new tasks
 	 */
-	public void setTaskList(ArrayList<String> taskList) {
-		this.taskList = taskList;
+	public void setTaskList(List<String> taskList) {
+		writeLock.lock();
+		try {
+			this.taskList = new StreamOrderList(taskList);
+			table.rebuild(this.taskList, taskMap);
+		} finally {
+			writeLock.unlock();
+		}
 	}
 
 	//@author A0096529N
+	/**
+	 * Gets the columnar table of the current tasks, in display order, for
+	 * filtering and sorting. The table is kept up to date as tasks are
+	 * modified, so it changes with them; it is read while holding the lock
+	 * of getLock(), as when processing a command.
+	 * 
+	 * @return table - the table of all current tasks
+	 */
+	public StreamTaskTable getTable() {
+		readLock.lock();
+		try {
+			return table;
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * Takes an immutable snapshot of the current tasks, in display order, for
+	 * reading from other threads or after further modifications. Only the
+	 * tasks modified since the previous snapshot are copied.
+	 * 
+	 * @return snapshot - the snapshot of all current tasks
+	 */
+	public StreamSnapshot snapshot() {
+		writeLock.lock();
+		try {
+			snapshot = StreamSnapshot.take(table, snapshot);
+			return snapshot;
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the lock of this StreamObject, for operations made of several calls
+	 * that must not be interleaved with modifications from other threads. The
+	 * lock is reentrant, and the methods of this class can be called while
+	 * holding it.
+	 * 
+	 * @return lock - the lock guarding all tasks
+	 */
+	public ReadWriteLock getLock() {
+		return lock;
+	}
 
 	// Delegate methods
 
 	/**
-	 * Gets the size (number) of tasks inside the arraylist.
+	 * Gets the size (number) of tasks inside the list.
 	 * 
 	 * @return size - the number of tasks.
 	 */
 	public int size() {
-		return taskList.size();
+		readLock.lock();
+		try {
+			return taskList.size();
+		} finally {
+			readLock.unlock();
+		}
 	}
 
 	/**
@@ -107,7 +227,12 @@ public class StreamObject {
 	 * @return the task as an instance of StreamTask
 	 */
 	public StreamTask get(String taskName) {
-		return taskMap.get(taskName.toLowerCase());
+		readLock.lock();
+		try {
+			return taskMap.get(getKey(taskName));
+		} finally {
+			readLock.unlock();
+		}
 	}
 
 	/**
@@ -117,11 +242,16 @@ public class StreamObject {
 	 * @return task name - the name of the task
 	 */
 	public String get(int index) {
-		return taskList.get(index);
+		readLock.lock();
+		try {
+			return taskList.get(index);
+		} finally {
+			readLock.unlock();
+		}
 	}
 
 	/**
-	 * Adds a new task to the storage Updates the hashmap and arraylist
+	 * Adds a new task to the storage Updates the hashmap and list
 	 * accordingly
 	 * 
 	 * @param taskName
@@ -129,30 +259,48 @@ public class StreamObject {
 	 * @return
 	 */
 	public StreamTask put(String taskName, StreamTask task) {
-		taskList.add(taskName);
-		return taskMap.put(taskName.toLowerCase(), task);
+		writeLock.lock();
+		try {
+			taskList.add(taskName);
+			return index(taskMap.put(getKey(taskName), task), taskName, task,
+					taskList.size() - 1);
+		} finally {
+			writeLock.unlock();
+		}
 	}
 
 	/**
 	 * Adds a new task to the storage based on the specified index Updates the
-	 * hashmap and arraylist accordingly
+	 * hashmap and list accordingly
 	 * 
 	 * @param taskName
 	 * @param task
 	 * @return
 	 */
 	public StreamTask put(String taskName, StreamTask task, int index) {
-		taskList.add(index, taskName);
-		return taskMap.put(taskName.toLowerCase(), task);
+		writeLock.lock();
+		try {
+			taskList.add(index, taskName);
+			return index(taskMap.put(getKey(taskName), task), taskName, task,
+					index);
+		} finally {
+			writeLock.unlock();
+		}
 	}
 
 	/**
-	 * Gets the keySet of the hashmap
+	 * Gets a copy of the keySet of the hashmap
 	 * 
-	 * @return keySet - the keys of taskMap
+	 * @return keySet - an unmodifiable copy of the keys of taskMap
 	 */
 	public Set<String> keySet() {
-		return taskMap.keySet();
+		readLock.lock();
+		try {
+			return Collections.unmodifiableSet(new HashSet<String>(taskMap
+					.keySet()));
+		} finally {
+			readLock.unlock();
+		}
 	}
 
 	/**
@@ -162,7 +310,12 @@ public class StreamObject {
 	 * @return true if it exists, false otherwise
 	 */
 	public boolean containsKey(String taskName) {
-		return taskMap.containsKey(taskName.toLowerCase());
+		readLock.lock();
+		try {
+			return taskMap.containsKey(getKey(taskName));
+		} finally {
+			readLock.unlock();
+		}
 	}
 
 	/**
@@ -172,17 +325,27 @@ public class StreamObject {
 	 * @return true if it is included, false otherwise
 	 */
 	public boolean containsValue(StreamTask task) {
-		return taskMap.containsValue(task);
+		readLock.lock();
+		try {
+			return taskMap.containsValue(task);
+		} finally {
+			readLock.unlock();
+		}
 	}
 
 	/**
-	 * Gets the index of a given task in the arraylist
+	 * Gets the index of a given task in the list
 	 * 
 	 * @param taskName
 	 * @return index - the index of the task
 	 */
 	public int indexOf(String taskName) {
-		return taskList.indexOf(taskName);
+		readLock.lock();
+		try {
+			return taskList.indexOf(taskName);
+		} finally {
+			readLock.unlock();
+		}
 	}
 
 	/**
@@ -192,18 +355,345 @@ public class StreamObject {
 	 * @return true if it is already used, false otherwise
 	 */
 	public boolean contains(String taskName) {
-		return taskList.contains(taskName);
+		readLock.lock();
+		try {
+			return taskList.contains(taskName);
+		} finally {
+			readLock.unlock();
+		}
 	}
 
 	/**
 	 * remove a given task from the storage.
-	 * update the arraylist and hashmap accordingly
+	 * update the list and hashmap accordingly
 	 * 
 	 * @param taskName
 	 */
 	public void remove(String taskName) {
-		taskMap.remove(taskName.toLowerCase());
-		taskList.remove(taskName);
+		writeLock.lock();
+		try {
+			StreamTask task = taskMap.remove(getKey(taskName));
+			if (task != null) {
+				timeIndex.remove(task);
+				textIndex.remove(task);
+			}
+			int row = taskList.indexOf(taskName);
+			if (row >= 0) {
+				taskList.remove(row);
+				table.delete(row);
+			}
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Indexes a newly stored task in place of the task it replaced, and
+	 * inserts its row into the table. The table is read again if a task was
+	 * replaced, since the replaced task may be listed under another name.
+	 */
+	private StreamTask index(StreamTask replaced, String taskName,
+			StreamTask task, int row) {
+		if (replaced != null && replaced != task) {
+			timeIndex.remove(replaced);
+			textIndex.remove(replaced);
+		}
+		timeIndex.add(task);
+		textIndex.add(task);
+		if (replaced == null) {
+			table.insert(row, taskName, task);
+		} else {
+			table.rebuild(taskList, taskMap);
+		}
+		return replaced;
+	}
+
+	/**
+	 * Finds the tasks that were marked as done at or before the given time,
+	 * e.g. to be archived.
+	 * 
+	 * @param time
+	 *            the time in epoch millis
+	 * @return tasks - the tasks done at or before the time, in display order
+	 */
+	public List<StreamTask> findDoneBefore(long time) {
+		readLock.lock();
+		try {
+			List<StreamTask> tasks = new ArrayList<StreamTask>();
+			for (String taskName : taskList) {
+				StreamTask task = taskMap.get(getKey(taskName));
+				if (task != null && task.isDone()
+						&& task.getDoneTimeMillis() != StreamTask.NO_TIME
+						&& task.getDoneTimeMillis() <= time) {
+					tasks.add(task);
+				}
+			}
+			return tasks;
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * Removes tasks that were moved into the archive, as remove() does. Tasks
+	 * no longer stored are skipped.
+	 * 
+	 * @param tasks
+	 *            the archived tasks
+	 */
+	public void archive(Collection<StreamTask> tasks) {
+		writeLock.lock();
+		try {
+			for (StreamTask task : tasks) {
+				if (taskMap.get(task.getKey()) == task) {
+					remove(task.getTaskName());
+				}
+			}
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Moves an archived task back after the current tasks, as put() does,
+	 * unless a task of the same name is stored, which takes precedence over
+	 * its archived copy.
+	 * 
+	 * @param task
+	 *            the archived task
+	 * @return true if the task was restored, false if its name is taken
+	 */
+	public boolean restore(StreamTask task) {
+		writeLock.lock();
+		try {
+			if (taskMap.containsKey(task.getKey())) {
+				return false;
+			}
+			put(task.getTaskName(), task);
+			return true;
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Finds the tasks with a start time strictly before or after the given
+	 * time, using a sorted index of start times.
+	 * 
+	 * @param time
+	 *            the time in epoch millis
+	 * @param before
+	 *            true for tasks starting before the time, false for after
+	 * @return positions of the tasks in the list, in ascending order
+	 */
+	public List<Integer> findByStartTime(long time, boolean before) {
+		readLock.lock();
+		try {
+			return positionsOf(timeIndex.findByStartTime(time, before));
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * Finds the tasks with a deadline strictly before or after the given
+	 * time, using a sorted index of deadlines.
+	 * 
+	 * @param time
+	 *            the time in epoch millis
+	 * @param before
+	 *            true for tasks due before the time, false for after
+	 * @return positions of the tasks in the list, in ascending order
+	 */
+	public List<Integer> findByDeadline(long time, boolean before) {
+		readLock.lock();
+		try {
+			return positionsOf(timeIndex.findByDeadline(time, before));
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * Finds the tasks having any of the given tags, or whose name or
+	 * description contains the key phrase, ignoring case, using an inverted
+	 * index of the words of the tasks.
+	 * 
+	 * @param keyphrase
+	 *            the phrase to search the names and descriptions for
+	 * @param tagIds
+	 *            ids of the tags to search for, from StreamTagDictionary
+	 * @return positions of the tasks in the list, in ascending order
+	 */
+	public List<Integer> findByKeyphrase(String keyphrase, int[] tagIds) {
+		return search(keyphrase, tagIds, null).getPositions();
+	}
+
+	/**
+	 * Searches the tasks as findByKeyphrase() does, only checking the tasks of
+	 * the previous result again if the key phrase contains its phrase and no
+	 * task was modified since, as when the user types a longer phrase.
+	 * 
+	 * @param keyphrase
+	 *            the phrase to search the names and descriptions for
+	 * @param tagIds
+	 *            ids of the tags to search for, from StreamTagDictionary
+	 * @param previous
+	 *            the result of the previous search, or null
+	 * @return result - the tasks found and their positions in the list
+	 */
+	public StreamSearchResult search(String keyphrase, int[] tagIds,
+			StreamSearchResult previous) {
+		readLock.lock();
+		try {
+			List<StreamTask> tasks;
+			if (previous != null && previous.isRefinedBy(textIndex, keyphrase)) {
+				tasks = textIndex.refine(previous.getTasks(), keyphrase,
+						tagIds);
+			} else {
+				tasks = textIndex.find(keyphrase, tagIds);
+			}
+			return new StreamSearchResult(textIndex, keyphrase, tasks,
+					positionsOf(tasks));
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * Finds the tasks as findByKeyphrase() does, and selects the most
+	 * relevant of them, ranked as in StreamSearchRanking. Only the selected
+	 * tasks are sorted and looked up, so that broad searches of many tasks
+	 * still return quickly.
+	 * 
+	 * @param keyphrase
+	 *            the phrase to search the names and descriptions for
+	 * @param tagIds
+	 *            ids of the tags to search for, from StreamTagDictionary
+	 * @param limit
+	 *            the number of tasks to select
+	 * @return positions of the selected tasks in the list, most relevant
+	 *         first
+	 */
+	public List<Integer> findBestByKeyphrase(String keyphrase, int[] tagIds,
+			int limit) {
+		readLock.lock();
+		try {
+			List<StreamTask> best = StreamSearchRanking.best(
+					textIndex.find(keyphrase, tagIds), keyphrase, tagIds,
+					limit, System.currentTimeMillis());
+			List<Integer> positions = new ArrayList<Integer>(best.size());
+			for (StreamTask task : best) {
+				positions.add(taskList.indexOf(task.getTaskName()));
+			}
+			return positions;
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * Finds the tasks with words similar to every word of the key phrase,
+	 * tolerating typing mistakes, using a BK-tree of the words of the tasks.
+	 * The tree is built on the first such search, under the write lock, so
+	 * this must not be called while holding only the read lock.
+	 * 
+	 * @param keyphrase
+	 *            the phrase to search the names and descriptions for
+	 * @return positions of the tasks in the list, the closest matches first,
+	 *         then in ascending order
+	 */
+	public List<Integer> findSimilarByKeyphrase(String keyphrase) {
+		readLock.lock();
+		try {
+			if (!textIndex.hasDictionary()) {
+				// the tree of words is only built for the first such search
+				readLock.unlock();
+				writeLock.lock();
+				try {
+					textIndex.buildDictionary();
+				} finally {
+					readLock.lock();
+					writeLock.unlock();
+				}
+			}
+			final Map<StreamTask, Integer> distances = textIndex
+					.findSimilar(keyphrase);
+			List<StreamTask> tasks = new ArrayList<StreamTask>(
+					distances.keySet());
+			final Map<StreamTask, Integer> positions = new IdentityHashMap<StreamTask, Integer>();
+			for (StreamTask task : tasks) {
+				positions.put(task, taskList.indexOf(task.getTaskName()));
+			}
+			Collections.sort(tasks, new Comparator<StreamTask>() {
+				@Override
+				public int compare(StreamTask first, StreamTask second) {
+					int byDistance = distances.get(first).compareTo(
+							distances.get(second));
+					return byDistance != 0 ? byDistance : positions.get(first)
+							.compareTo(positions.get(second));
+				}
+			});
+			List<Integer> result = new ArrayList<Integer>(tasks.size());
+			for (StreamTask task : tasks) {
+				result.add(positions.get(task));
+			}
+			return result;
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	private List<Integer> positionsOf(List<StreamTask> tasks) {
+		if (tasks.size() > taskList.size() / LARGE_RESULT_FRACTION) {
+			return positionsInOrder(tasks);
+		}
+		int[] positions = new int[tasks.size()];
+		int count = 0;
+		for (StreamTask task : tasks) {
+			int position = taskList.indexOf(task.getTaskName());
+			if (position >= 0) {
+				positions[count++] = position;
+			}
+		}
+		Arrays.sort(positions, 0, count);
+		List<Integer> result = new ArrayList<Integer>(count);
+		for (int i = 0; i < count; i++) {
+			result.add(positions[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Finds the positions of many tasks in one walk of the list, which is
+	 * faster than looking each position up once they are a large part of it.
+	 */
+	private List<Integer> positionsInOrder(List<StreamTask> tasks) {
+		Set<StreamTask> found = Collections
+				.newSetFromMap(new IdentityHashMap<StreamTask, Boolean>());
+		found.addAll(tasks);
+		List<Integer> result = new ArrayList<Integer>(found.size());
+		int position = 0;
+		for (String taskName : taskList) {
+			if (found.contains(taskMap.get(getKey(taskName)))) {
+				result.add(position);
+			}
+			position++;
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the key of a task name. Names in the task list already have their
+	 * key computed, and keys are already folded, so neither allocates a new
+	 * string; only other spellings of a name are folded here.
+	 * 
+	 * @param taskName
+	 * @return key - the task name folded to lower case
+	 */
+	private String getKey(String taskName) {
+		String key = taskList.keyOf(taskName);
+		return key != null ? key : taskName.toLowerCase();
 	}
 
 	/**
@@ -211,7 +701,15 @@ public class StreamObject {
 	 * 
 	 */
 	public void clear() {
-		taskMap.clear();
-		taskList.clear();
+		writeLock.lock();
+		try {
+			taskMap.clear();
+			taskList.clear();
+			timeIndex.clear();
+			textIndex.clear();
+			table.rebuild(taskList, taskMap);
+		} finally {
+			writeLock.unlock();
+		}
 	}
 }
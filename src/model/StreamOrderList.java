@@ -0,0 +1,344 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+//@author A0096529N
+/**
+ * <p>
+ * Ordered list of unique task names, for the display order of
+ * <b>StreamObject</b>. The names are kept in an implicit treap, a randomized
+ * balanced tree ordered by position, and each name is indexed to its tree
+ * node, so that positional access, insertion and removal at any position,
+ * and lookup of a name's position all take expected logarithmic time;
+ * membership checks take constant time. Each name's key, the name folded to
+ * lower case, is computed once on insertion and kept with the name.
+ * </p>
+ *
+ * <p>
+ * Names are compared case-sensitively, as with an ArrayList. Adding a name
+ * that is already in the list is rejected, since every task name appears in
+ * the task order exactly once. For the same reason, the list is reordered by
+ * replacing it, not by swapping names in place.
+ * </p>
+ *
+ * <p>
+ * Since positional access takes logarithmic time, the list is not marked as
+ * RandomAccess; iterate over it instead of getting every position.
+ * </p>
+ *
+ * @version V0.5
+ */
+final class StreamOrderList extends AbstractList<String> {
+
+	private final HashMap<String, Node> index = new HashMap<String, Node>();
+	private final Random random = new Random();
+	private Node root;
+
+	StreamOrderList() {
+	}
+
+	StreamOrderList(Collection<String> names) {
+		addAll(names);
+	}
+
+	@Override
+	public int size() {
+		return size(root);
+	}
+
+	@Override
+	public String get(int position) {
+		return nodeAt(position).name;
+	}
+
+	@Override
+	public String set(int position, String name) {
+		Node node = nodeAt(position);
+		String previous = node.name;
+		if (!previous.equals(name)) {
+			checkAbsent(name);
+			index.remove(previous);
+			index.put(name, node);
+			node.name = name;
+			node.key = name.toLowerCase();
+		}
+		return previous;
+	}
+
+	@Override
+	public void add(int position, String name) {
+		if (position < 0 || position > size()) {
+			throw new IndexOutOfBoundsException("Index: " + position
+					+ ", Size: " + size());
+		}
+		checkAbsent(name);
+		Node node = new Node(name, random.nextInt());
+		index.put(name, node);
+		Node[] halves = new Node[2];
+		split(root, position, halves);
+		root = merge(merge(halves[0], node), halves[1]);
+		root.parent = null;
+		modCount++;
+	}
+
+	@Override
+	public String remove(int position) {
+		Node node = nodeAt(position);
+		unlink(node);
+		return node.name;
+	}
+
+	@Override
+	public boolean remove(Object name) {
+		Node node = index.get(name);
+		if (node == null) {
+			return false;
+		}
+		unlink(node);
+		return true;
+	}
+
+	@Override
+	public int indexOf(Object name) {
+		Node node = index.get(name);
+		return node == null ? -1 : positionOf(node);
+	}
+
+	@Override
+	public int lastIndexOf(Object name) {
+		return indexOf(name);
+	}
+
+	@Override
+	public boolean contains(Object name) {
+		return index.containsKey(name);
+	}
+
+	/**
+	 * Gets the key of a name in the list, without folding it again.
+	 * 
+	 * @param name
+	 *            the name, compared case-sensitively
+	 * @return the name folded to lower case, or null if the name is not in
+	 *         the list
+	 */
+	String keyOf(String name) {
+		Node node = index.get(name);
+		return node == null ? null : node.key;
+	}
+
+	@Override
+	public void clear() {
+		root = null;
+		index.clear();
+		modCount++;
+	}
+
+	@Override
+	public Iterator<String> iterator() {
+		return new InOrderIterator();
+	}
+
+	private void checkAbsent(String name) {
+		if (name == null) {
+			throw new NullPointerException("Task name is null");
+		}
+		if (index.containsKey(name)) {
+			throw new IllegalArgumentException("Duplicate task name " + name);
+		}
+	}
+
+	private Node nodeAt(int position) {
+		if (position < 0 || position >= size()) {
+			throw new IndexOutOfBoundsException("Index: " + position
+					+ ", Size: " + size());
+		}
+		Node node = root;
+		while (true) {
+			int leftSize = size(node.left);
+			if (position < leftSize) {
+				node = node.left;
+			} else if (position == leftSize) {
+				return node;
+			} else {
+				position -= leftSize + 1;
+				node = node.right;
+			}
+		}
+	}
+
+	private static int positionOf(Node node) {
+		int position = size(node.left);
+		for (Node child = node; child.parent != null; child = child.parent) {
+			if (child.parent.right == child) {
+				position += size(child.parent.left) + 1;
+			}
+		}
+		return position;
+	}
+
+	/**
+	 * Removes the node from the tree and the index, replacing it by the merge
+	 * of its subtrees.
+	 */
+	private void unlink(Node node) {
+		index.remove(node.name);
+		Node replacement = merge(node.left, node.right);
+		Node parent = node.parent;
+		if (replacement != null) {
+			replacement.parent = parent;
+		}
+		if (parent == null) {
+			root = replacement;
+		} else if (parent.left == node) {
+			parent.left = replacement;
+		} else {
+			parent.right = replacement;
+		}
+		for (; parent != null; parent = parent.parent) {
+			parent.size--;
+		}
+		node.left = node.right = node.parent = null;
+		modCount++;
+	}
+
+	/**
+	 * Splits the tree into its first count nodes and the rest.
+	 */
+	private static void split(Node node, int count, Node[] halves) {
+		if (node == null) {
+			halves[0] = null;
+			halves[1] = null;
+		} else if (size(node.left) < count) {
+			split(node.right, count - size(node.left) - 1, halves);
+			node.right = halves[0];
+			adopt(node, node.right);
+			halves[0] = node;
+		} else {
+			split(node.left, count, halves);
+			node.left = halves[1];
+			adopt(node, node.left);
+			halves[1] = node;
+		}
+		if (halves[0] != null) {
+			halves[0].parent = null;
+		}
+		if (halves[1] != null) {
+			halves[1].parent = null;
+		}
+	}
+
+	/**
+	 * Concatenates two trees, keeping the higher priority nodes on top.
+	 */
+	private static Node merge(Node first, Node second) {
+		if (first == null) {
+			return second;
+		} else if (second == null) {
+			return first;
+		} else if (first.priority > second.priority) {
+			first.right = merge(first.right, second);
+			adopt(first, first.right);
+			return first;
+		} else {
+			second.left = merge(first, second.left);
+			adopt(second, second.left);
+			return second;
+		}
+	}
+
+	private static void adopt(Node parent, Node child) {
+		if (child != null) {
+			child.parent = parent;
+		}
+		parent.size = size(parent.left) + size(parent.right) + 1;
+	}
+
+	private static int size(Node node) {
+		return node == null ? 0 : node.size;
+	}
+
+	private static class Node {
+		String name;
+		String key;
+		final int priority;
+		int size = 1;
+		Node left;
+		Node right;
+		Node parent;
+
+		Node(String name, int priority) {
+			this.name = name;
+			this.key = name.toLowerCase();
+			this.priority = priority;
+		}
+	}
+
+	/**
+	 * Walks the tree in order, from each node to its successor.
+	 */
+	private class InOrderIterator implements Iterator<String> {
+		private Node next;
+		private Node lastReturned;
+		private int expectedModCount = modCount;
+
+		InOrderIterator() {
+			next = root;
+			while (next != null && next.left != null) {
+				next = next.left;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public String next() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = next;
+			next = successor(next);
+			return lastReturned.name;
+		}
+
+		@Override
+		public void remove() {
+			if (lastReturned == null) {
+				throw new IllegalStateException();
+			}
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			// unlinking relinks subtrees, but keeps the in-order successor
+			unlink(lastReturned);
+			lastReturned = null;
+			expectedModCount = modCount;
+		}
+
+		private Node successor(Node node) {
+			if (node.right != null) {
+				node = node.right;
+				while (node.left != null) {
+					node = node.left;
+				}
+				return node;
+			}
+			while (node.parent != null && node.parent.right == node) {
+				node = node.parent;
+			}
+			return node.parent;
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+//@author A0096529N
+public class StreamOrderListTest {
+
+	@Test
+	public void positionTest() {
+		StreamOrderList list = new StreamOrderList(Arrays.asList("B", "D"));
+		list.add(0, "A");
+		list.add(2, "C");
+		list.add("E");
+
+		assertEquals("Inserted in order",
+				Arrays.asList("A", "B", "C", "D", "E"), list);
+		assertEquals("Index of name", 3, list.indexOf("D"));
+		assertEquals("Index of missing name", -1, list.indexOf("d"));
+		assertTrue("Contains name", list.contains("C"));
+
+		assertEquals("Removed by index", "C", list.remove(2));
+		assertTrue("Removed by name", list.remove("A"));
+		assertFalse("Removed missing name", list.remove("A"));
+		assertEquals("After removal", Arrays.asList("B", "D", "E"), list);
+		assertEquals("Index after removal", 1, list.indexOf("D"));
+
+		assertEquals("Renamed", "D", list.set(1, "Delta"));
+		assertEquals("Index of renamed", 1, list.indexOf("Delta"));
+		assertFalse("Old name gone", list.contains("D"));
+	}
+
+	@Test
+	public void duplicateTest() {
+		StreamOrderList list = new StreamOrderList(Arrays.asList("A", "B"));
+		try {
+			list.add("A");
+			fail("Duplicate name added");
+		} catch (IllegalArgumentException e) {
+			assertEquals("Unchanged", Arrays.asList("A", "B"), list);
+		}
+		try {
+			list.set(0, "B");
+			fail("Duplicate name set");
+		} catch (IllegalArgumentException e) {
+			assertEquals("Unchanged", Arrays.asList("A", "B"), list);
+		}
+	}
+
+	@Test
+	public void iteratorRemoveTest() {
+		StreamOrderList list = new StreamOrderList();
+		for (int i = 0; i < 100; i++) {
+			list.add("Task " + i);
+		}
+		for (Iterator<String> it = list.iterator(); it.hasNext();) {
+			if (it.next().endsWith("0")) {
+				it.remove();
+			}
+		}
+		assertEquals("Removed while iterating", 90, list.size());
+		assertEquals("Order kept", "Task 11", list.get(9));
+		assertEquals("Index kept", 9, list.indexOf("Task 11"));
+	}
+
+	@Test
+	public void randomOperationsTest() {
+		Random random = new Random(2103);
+		StreamOrderList list = new StreamOrderList();
+		List<String> expected = new ArrayList<String>();
+		for (int i = 0; i < 5000; i++) {
+			int operation = random.nextInt(4);
+			if (operation < 2 || expected.isEmpty()) {
+				int position = random.nextInt(expected.size() + 1);
+				list.add(position, "Task " + i);
+				expected.add(position, "Task " + i);
+			} else if (operation == 2) {
+				int position = random.nextInt(expected.size());
+				assertEquals("Removed", expected.remove(position),
+						list.remove(position));
+			} else {
+				String name = expected.get(random.nextInt(expected.size()));
+				assertEquals("Index of " + name, expected.indexOf(name),
+						list.indexOf(name));
+			}
+		}
+		assertEquals("Same contents", expected, list);
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals("Index of " + expected.get(i), i,
+					list.indexOf(expected.get(i)));
+		}
+	}
+}
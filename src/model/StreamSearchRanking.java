@@ -0,0 +1,227 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+//@author A0096529N
+/**
+ * <p>
+ * Ranks the tasks found by a search by relevance, and selects the best of
+ * them with a bounded heap, so that only those are sorted and looked up.
+ * </p>
+ *
+ * <p>
+ * A task scores for each of the searched tags it has, then for the key
+ * phrase in its name, then in its description. The scores are compared field
+ * by field in that order, so that a field always outweighs all the fields
+ * after it. Within a field, more occurrences of the key phrase score higher,
+ * up to twice a single occurrence. Only between tasks of equal field scores
+ * does a deadline count, tasks not yet done ranking higher the nearer their
+ * deadline is.
+ * </p>
+ *
+ * @version V0.5
+ */
+final class StreamSearchRanking {
+
+	private static final double DAY = 86400000.0;
+
+	private static final Comparator<Scored> WORST_FIRST = new Comparator<Scored>() {
+		@Override
+		public int compare(Scored first, Scored second) {
+			return -compareRank(first, second);
+		}
+	};
+	private static final Comparator<Scored> BEST_FIRST = new Comparator<Scored>() {
+		@Override
+		public int compare(Scored first, Scored second) {
+			return compareRank(first, second);
+		}
+	};
+
+	private StreamSearchRanking() {
+	}
+
+	/**
+	 * Selects the best tasks found for the key phrase and tags.
+	 *
+	 * @param tasks
+	 *            the tasks found
+	 * @param keyphrase
+	 *            the phrase searched for
+	 * @param tagIds
+	 *            ids of the tags searched for
+	 * @param limit
+	 *            the number of tasks to select
+	 * @param now
+	 *            the current time in epoch millis, for deadlines
+	 * @return the best tasks, best first, tasks of equal score ordered by key
+	 */
+	static List<StreamTask> best(List<StreamTask> tasks, String keyphrase,
+			int[] tagIds, int limit, long now) {
+		if (limit <= 0) {
+			return Collections.emptyList();
+		}
+		String foldedKeyphrase = keyphrase.toLowerCase();
+		PriorityQueue<Scored> best = new PriorityQueue<Scored>(Math.min(
+				limit, tasks.size()) + 1, WORST_FIRST);
+		for (StreamTask task : tasks) {
+			int tagScore = scoreTags(task, tagIds);
+			double nameScore = scoreName(task, foldedKeyphrase);
+			if (best.size() == limit
+					&& ranksBelow(tagScore, nameScore, best.peek())) {
+				// cannot make it to the best, whatever its description
+				continue;
+			}
+			Scored scored = new Scored(task, tagScore, nameScore,
+					scoreDescription(task, foldedKeyphrase), scoreDeadline(
+							task, now));
+			if (best.size() < limit) {
+				best.add(scored);
+			} else if (compareRank(scored, best.peek()) < 0) {
+				best.poll();
+				best.add(scored);
+			}
+		}
+		List<Scored> ranked = new ArrayList<Scored>(best);
+		Collections.sort(ranked, BEST_FIRST);
+		List<StreamTask> result = new ArrayList<StreamTask>(ranked.size());
+		for (Scored scored : ranked) {
+			result.add(scored.task);
+		}
+		return result;
+	}
+
+	private static int scoreTags(StreamTask task, int[] tagIds) {
+		int score = 0;
+		for (int tagId : tagIds) {
+			if (task.hasTagId(tagId)) {
+				score++;
+			}
+		}
+		return score;
+	}
+
+	private static double scoreName(StreamTask task, String foldedKeyphrase) {
+		return frequencyFactor(countInKey(task.getKey(), foldedKeyphrase));
+	}
+
+	private static double scoreDescription(StreamTask task,
+			String foldedKeyphrase) {
+		if (task.getDescription() == null) {
+			return 0;
+		}
+		return frequencyFactor(count(task.getDescription(), foldedKeyphrase));
+	}
+
+	/**
+	 * @return from 0 for no deadline, or a task done, up to 1 for a deadline
+	 *         now
+	 */
+	private static double scoreDeadline(StreamTask task, long now) {
+		if (task.isDone() || !task.isDeadlineTask()) {
+			return 0;
+		}
+		double days = Math.abs(task.getDeadlineMillis() - now) / DAY;
+		return 1 / (1 + days);
+	}
+
+	/**
+	 * @return 0 for no occurrences, else from 1 for one occurrence up to 2
+	 */
+	private static double frequencyFactor(int occurrences) {
+		return occurrences == 0 ? 0 : 2.0 * occurrences / (occurrences + 1);
+	}
+
+	/**
+	 * Counts the occurrences of the folded phrase in a key, which is folded
+	 * already.
+	 */
+	private static int countInKey(String key, String foldedPhrase) {
+		if (foldedPhrase.isEmpty()) {
+			return 0;
+		}
+		int occurrences = 0;
+		for (int i = key.indexOf(foldedPhrase); i >= 0; i = key.indexOf(
+				foldedPhrase, i + foldedPhrase.length())) {
+			occurrences++;
+		}
+		return occurrences;
+	}
+
+	/**
+	 * Counts the occurrences of the phrase in the text, ignoring case as
+	 * StreamUtil.containsIgnoreCase does, without folding the text.
+	 */
+	private static int count(String text, String phrase) {
+		int length = phrase.length();
+		if (length == 0) {
+			return 0;
+		}
+		int occurrences = 0;
+		int last = text.length() - length;
+		for (int i = 0; i <= last; i++) {
+			if (text.regionMatches(true, i, phrase, 0, length)) {
+				occurrences++;
+				i += length - 1;
+			}
+		}
+		return occurrences;
+	}
+
+	/**
+	 * @return true if a task of the given tag and name scores ranks below the
+	 *         scored task, whatever its description
+	 */
+	private static boolean ranksBelow(int tagScore, double nameScore,
+			Scored scored) {
+		if (tagScore != scored.tagScore) {
+			return tagScore < scored.tagScore;
+		}
+		return nameScore < scored.nameScore;
+	}
+
+	/**
+	 * @return negative if the first ranks before the second
+	 */
+	private static int compareRank(Scored first, Scored second) {
+		int byTags = Integer.compare(second.tagScore, first.tagScore);
+		if (byTags != 0) {
+			return byTags;
+		}
+		int byName = Double.compare(second.nameScore, first.nameScore);
+		if (byName != 0) {
+			return byName;
+		}
+		int byDescription = Double.compare(second.descriptionScore,
+				first.descriptionScore);
+		if (byDescription != 0) {
+			return byDescription;
+		}
+		int byDeadline = Double.compare(second.deadlineScore,
+				first.deadlineScore);
+		return byDeadline != 0 ? byDeadline : first.task.getKey().compareTo(
+				second.task.getKey());
+	}
+
+	private static class Scored {
+
+		private final StreamTask task;
+		private final int tagScore;
+		private final double nameScore;
+		private final double descriptionScore;
+		private final double deadlineScore;
+
+		private Scored(StreamTask task, int tagScore, double nameScore,
+				double descriptionScore, double deadlineScore) {
+			this.task = task;
+			this.tagScore = tagScore;
+			this.nameScore = nameScore;
+			this.descriptionScore = descriptionScore;
+			this.deadlineScore = deadlineScore;
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+
+import logic.StreamLogic;
+
+import org.junit.Before;
+import org.junit.Test;
+
+//@author A0096529N
+public class StreamSearchRankingTest {
+
+	private static final int[] NO_TAGS = new int[0];
+
+	private StreamObject streamObject;
+
+	@Before
+	public void setUp() throws Exception {
+		streamObject = StreamObject.getInstance();
+		add("Read notes", "lecture notes", null);
+		add("Print lecture notes", null, null);
+		add("Email tutor", "about the lecture, lecture 4", null);
+		add("Buy milk", null, "LECTURE");
+		add("Lecture review", null, null);
+	}
+
+	private void add(String name, String description, String tag) {
+		StreamTask task = new StreamTask(name);
+		task.setDescription(description);
+		if (tag != null) {
+			task.getTags().add(tag);
+		}
+		streamObject.put(name, task);
+	}
+
+	@Test
+	public void fieldWeightTest() {
+		int[] lecture = { StreamTagDictionary.lookup("LECTURE") };
+		assertEquals("Tag, names, descriptions by frequency",
+				Arrays.asList(3, 4, 1, 2, 0),
+				streamObject.findBestByKeyphrase("lecture", lecture, 10));
+	}
+
+	@Test
+	public void topTest() {
+		assertEquals("Best two only, equal scores by name", Arrays.asList(4, 1),
+				streamObject.findBestByKeyphrase("lecture", NO_TAGS, 2));
+		assertEquals("Nothing selected", Collections.emptyList(),
+				streamObject.findBestByKeyphrase("lecture", NO_TAGS, 0));
+	}
+
+	@Test
+	public void deadlineTest() {
+		Calendar tomorrow = Calendar.getInstance();
+		tomorrow.add(Calendar.DAY_OF_MONTH, 1);
+		streamObject.get("Print lecture notes").setDeadline(tomorrow);
+		assertEquals("Nearer deadline first", Arrays.asList(1, 4),
+				streamObject.findBestByKeyphrase("lecture", NO_TAGS, 2));
+		streamObject.get("Print lecture notes").markAsDone();
+		assertEquals("Done tasks not favoured", Arrays.asList(4, 1),
+				streamObject.findBestByKeyphrase("lecture", NO_TAGS, 2));
+	}
+
+	@Test
+	public void deadlineTieBreakTest() {
+		add("Plan week", "lecture, lecture, lecture and lecture", null);
+		streamObject.get("Plan week").setDeadline(Calendar.getInstance());
+		assertEquals("Name match before descriptions with a deadline",
+				Arrays.asList(4, 1), streamObject.findBestByKeyphrase(
+						"lecture", NO_TAGS, 2));
+	}
+
+	@Test
+	public void logicTest() throws Exception {
+		StreamLogic streamLogic = StreamLogic.init(streamObject);
+		assertEquals("Key words as tags, display indices", Arrays.asList(4, 5),
+				streamLogic.findBestTasks("lecture", 2));
+	}
+}
@@ -0,0 +1,67 @@
+package model;
+
+import java.util.Collections;
+import java.util.List;
+
+//@author A0096529N
+/**
+ * <p>
+ * The tasks found by searching a <b>StreamObject</b> for a key phrase, kept
+ * so that a search for a longer phrase, e.g. while the user is still typing
+ * it, only checks these tasks again instead of searching all tasks.
+ * </p>
+ *
+ * <p>
+ * A result can only be refined while the tasks it was found from are not
+ * modified; StreamObject searches all tasks again otherwise.
+ * </p>
+ *
+ * @version V0.5
+ */
+public final class StreamSearchResult {
+
+	private final StreamTextIndex index;
+	private final long stamp;
+	private final String keyphrase;
+	private final List<StreamTask> tasks;
+	private final List<Integer> positions;
+
+	StreamSearchResult(StreamTextIndex index, String keyphrase,
+			List<StreamTask> tasks, List<Integer> positions) {
+		this.index = index;
+		this.stamp = index.getStamp();
+		this.keyphrase = keyphrase;
+		this.tasks = tasks;
+		this.positions = Collections.unmodifiableList(positions);
+	}
+
+	/**
+	 * @return the key phrase searched for
+	 */
+	public String getKeyphrase() {
+		return keyphrase;
+	}
+
+	/**
+	 * @return positions of the tasks found in the list at the time of the
+	 *         search, in ascending order
+	 */
+	public List<Integer> getPositions() {
+		return positions;
+	}
+
+	List<StreamTask> getTasks() {
+		return tasks;
+	}
+
+	/**
+	 * Checks whether a search of the given index for the given key phrase can
+	 * be answered from this result: the phrase contains the phrase of this
+	 * result, so that every task containing it is in this result, and no task
+	 * was indexed or removed since.
+	 */
+	boolean isRefinedBy(StreamTextIndex searchedIndex, String newKeyphrase) {
+		return searchedIndex == index && index.getStamp() == stamp
+				&& newKeyphrase.contains(keyphrase);
+	}
+}
@@ -0,0 +1,168 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+//@author A0096529N
+/**
+ * <p>
+ * Immutable snapshot of the tasks in <b>StreamObject</b>, in display order,
+ * for readers such as the background saver that must see one consistent
+ * version of the tasks while the tasks keep being modified.
+ * </p>
+ *
+ * <p>
+ * The tasks in a snapshot are detached copies, and copies are shared between
+ * snapshots: taking a snapshot only copies the tasks modified since the
+ * previous snapshot, and taking one while nothing was modified returns the
+ * previous snapshot itself. Since copies are shared, the tasks of a snapshot
+ * must not be modified. A snapshot can be read from any thread.
+ * </p>
+ *
+ * @version V0.5
+ */
+public final class StreamSnapshot {
+
+	private final String[] names;
+	private final StreamTask[] sources;
+	private final StreamTask[] tasks;
+	private final long revision;
+	private final List<String> taskList;
+	private volatile Map<String, StreamTask> taskMap;
+
+	private StreamSnapshot(String[] names, StreamTask[] sources,
+			StreamTask[] tasks, long revision) {
+		this.names = names;
+		this.sources = sources;
+		this.tasks = tasks;
+		this.revision = revision;
+		this.taskList = new NameList();
+	}
+
+	/**
+	 * Takes a snapshot of the table, sharing the copies of unmodified tasks
+	 * with the previous snapshot.
+	 */
+	static StreamSnapshot take(StreamTaskTable table, StreamSnapshot previous) {
+		if (previous != null && previous.revision == table.getRevision()) {
+			return previous;
+		}
+		int size = table.size();
+		String[] names = new String[size];
+		StreamTask[] sources = new StreamTask[size];
+		StreamTask[] tasks = new StreamTask[size];
+		Map<StreamTask, Integer> previousRows = null;
+		for (int row = 0; row < size; row++) {
+			names[row] = table.getName(row);
+			StreamTask source = table.getTask(row);
+			sources[row] = source;
+			if (source == null) {
+				continue;
+			}
+			int previousRow = -1;
+			if (previous != null) {
+				if (row < previous.sources.length
+						&& previous.sources[row] == source) {
+					previousRow = row;
+				} else {
+					if (previousRows == null) {
+						previousRows = previous.indexSources();
+					}
+					Integer found = previousRows.get(source);
+					previousRow = found == null ? -1 : found;
+				}
+			}
+			if (previousRow >= 0
+					&& previous.tasks[previousRow].getVersion() == source
+							.getVersion()) {
+				tasks[row] = previous.tasks[previousRow];
+			} else {
+				tasks[row] = source.copy();
+			}
+		}
+		return new StreamSnapshot(names, sources, tasks, table.getRevision());
+	}
+
+	private Map<StreamTask, Integer> indexSources() {
+		Map<StreamTask, Integer> rows = new IdentityHashMap<StreamTask, Integer>(
+				sources.length);
+		for (int row = 0; row < sources.length; row++) {
+			if (sources[row] != null) {
+				rows.put(sources[row], row);
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * @return number of tasks in the snapshot
+	 */
+	public int size() {
+		return names.length;
+	}
+
+	/**
+	 * @return name of the task at the index
+	 */
+	public String getName(int index) {
+		return names[index];
+	}
+
+	/**
+	 * @return the task at the index, which must not be modified
+	 */
+	public StreamTask get(int index) {
+		return tasks[index];
+	}
+
+	/**
+	 * Gets the names of the tasks in display order.
+	 *
+	 * @return unmodifiable list of the task names
+	 */
+	public List<String> getTaskList() {
+		return taskList;
+	}
+
+	/**
+	 * Gets the tasks keyed by task name in lower case, as in StreamObject.
+	 * The map is built on first use.
+	 *
+	 * @return unmodifiable map of the tasks, which must not be modified
+	 */
+	public Map<String, StreamTask> getTaskMap() {
+		Map<String, StreamTask> map = taskMap;
+		if (map == null) {
+			HashMap<String, StreamTask> built = new HashMap<String, StreamTask>(
+					tasks.length * 4 / 3 + 1);
+			for (int i = 0; i < tasks.length; i++) {
+				if (tasks[i] != null) {
+					built.put(tasks[i].getKey(), tasks[i]);
+				}
+			}
+			// building twice on a race is harmless, the maps being equal
+			map = Collections.unmodifiableMap(built);
+			taskMap = map;
+		}
+		return map;
+	}
+
+	private class NameList extends AbstractList<String> implements
+			RandomAccess {
+
+		@Override
+		public String get(int index) {
+			return names[index];
+		}
+
+		@Override
+		public int size() {
+			return names.length;
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+//@author A0096529N
+public class StreamSnapshotTest {
+
+	private StreamObject streamObject;
+	private StreamTask taskA;
+	private StreamTask taskB;
+
+	@Before
+	public void setUp() throws Exception {
+		streamObject = StreamObject.getInstance();
+		taskA = new StreamTask("Task A");
+		taskB = new StreamTask("Task B");
+		streamObject.put("Task A", taskA);
+		streamObject.put("Task B", taskB);
+	}
+
+	@Test
+	public void isolationTest() {
+		StreamSnapshot snapshot = streamObject.snapshot();
+		taskA.setDescription("Changed after snapshot");
+		streamObject.remove("Task B");
+
+		assertEquals("Order kept", Arrays.asList("Task A", "Task B"),
+				snapshot.getTaskList());
+		assertNull("Contents kept", snapshot.get(0).getDescription());
+		assertEquals("Removed task kept", "Task B", snapshot.getTaskMap()
+				.get("task b").getTaskName());
+		assertTrue("Detached copy", snapshot.get(0) != taskA);
+
+		try {
+			snapshot.getTaskList().add("Task C");
+			fail("Snapshot list modified");
+		} catch (UnsupportedOperationException e) {
+			assertEquals("Unchanged", 2, snapshot.size());
+		}
+	}
+
+	@Test
+	public void sharingTest() {
+		StreamSnapshot first = streamObject.snapshot();
+		assertSame("Nothing modified", first, streamObject.snapshot());
+
+		taskB.setDescription("Changed");
+		StreamSnapshot second = streamObject.snapshot();
+		assertSame("Unmodified task shared", first.get(0), second.get(0));
+		assertTrue("Modified task copied", first.get(1) != second.get(1));
+		assertEquals("Modified contents", "Changed", second.get(1)
+				.getDescription());
+
+		streamObject.put("Task C", new StreamTask("Task C"), 0);
+		StreamSnapshot third = streamObject.snapshot();
+		assertEquals("Inserted", "Task C", third.getName(0));
+		assertSame("Moved task shared", second.get(0), third.get(1));
+		assertSame("Moved task shared", second.get(1), third.get(2));
+	}
+}
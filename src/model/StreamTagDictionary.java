@@ -0,0 +1,85 @@
+package model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+//@author A0096529N
+/**
+ * <p>
+ * Dictionary of every tag used by any task, giving each distinct tag an int
+ * id. Tasks keep their tags as ids, so that a tag shared by many tasks is
+ * stored once, and checking whether a task has a tag is a bit test instead of
+ * a string comparison per tag.
+ * </p>
+ *
+ * <p>
+ * Tags are compared as given, in upper case as stored by the tasks. Ids are
+ * never reused and tags are never removed from the dictionary, since the
+ * number of distinct tags stays small compared to the number of tasks.
+ * Looking up tags is safe from any thread without locking.
+ * </p>
+ *
+ * @version V0.5
+ */
+public final class StreamTagDictionary {
+
+	/** Id of a tag that is not in the dictionary */
+	public static final int NO_TAG = -1;
+
+	private static final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+	private static volatile String[] tags = new String[16];
+	private static int size;
+
+	private StreamTagDictionary() {
+	}
+
+	/**
+	 * Gets the id of a tag, adding the tag to the dictionary if it is new.
+	 *
+	 * @param tag
+	 *            the tag, not null
+	 * @return id of the tag
+	 */
+	static int intern(String tag) {
+		Integer id = ids.get(tag);
+		if (id != null) {
+			return id;
+		}
+		return add(tag);
+	}
+
+	private static synchronized int add(String tag) {
+		Integer id = ids.get(tag);
+		if (id != null) {
+			return id;
+		}
+		String[] current = tags;
+		if (size == current.length) {
+			current = Arrays.copyOf(current, size * 2);
+		}
+		current[size] = tag;
+		// publish the name before the id, so that any id seen has a name
+		tags = current;
+		ids.put(tag, size);
+		return size++;
+	}
+
+	/**
+	 * Gets the id of a tag without adding it.
+	 *
+	 * @param tag
+	 *            the tag, in upper case as stored
+	 * @return id of the tag, or NO_TAG if no task ever had the tag
+	 */
+	public static int lookup(String tag) {
+		Integer id = ids.get(tag);
+		return id == null ? NO_TAG : id;
+	}
+
+	/**
+	 * @return the tag with the given id
+	 */
+	public static String nameOf(int id) {
+		return tags[id];
+	}
+}
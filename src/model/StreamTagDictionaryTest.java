@@ -0,0 +1,83 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+//@author A0096529N
+public class StreamTagDictionaryTest {
+
+	@Test
+	public void internTest() {
+		int id = StreamTagDictionary.intern("SHARED");
+		assertEquals("Same id", id, StreamTagDictionary.intern("SHARED"));
+		assertEquals("Looked up", id, StreamTagDictionary.lookup("SHARED"));
+		assertEquals("Unknown tag", StreamTagDictionary.NO_TAG,
+				StreamTagDictionary.lookup("NEVER USED AS A TAG"));
+
+		StreamTask taskA = new StreamTask("Task A");
+		StreamTask taskB = new StreamTask("Task B");
+		taskA.getTags().add(new String("SHARED"));
+		taskB.getTags().add(new String("SHARED"));
+		assertSame("Stored once", taskA.getTags().get(0), taskB.getTags()
+				.get(0));
+	}
+
+	@Test
+	public void tagListTest() {
+		StreamTask task = new StreamTask("Task");
+		List<String> tags = task.getTags();
+		tags.add("ZEBRA");
+		tags.add("APPLE");
+		tags.add("MANGO");
+		assertTrue("Has tag", task.hasTag("apple"));
+		assertFalse("Missing tag", task.hasTag("banana"));
+
+		Collections.sort(tags);
+		assertEquals("Sorted", Arrays.asList("APPLE", "MANGO", "ZEBRA"), tags);
+
+		assertTrue("Removed", tags.remove("MANGO"));
+		assertFalse("Removed tag", task.hasTag("mango"));
+		assertEquals("Renamed", "APPLE", tags.set(0, "BANANA"));
+		assertTrue("New tag", task.hasTag("banana"));
+		assertFalse("Old tag", task.hasTag("apple"));
+		assertEquals("After changes", Arrays.asList("BANANA", "ZEBRA"), tags);
+
+		int[] ids = { StreamTagDictionary.lookup("APPLE"),
+				StreamTagDictionary.lookup("ZEBRA") };
+		assertTrue("Has any tag", task.hasAnyTag(ids));
+		tags.clear();
+		assertFalse("Cleared", task.hasAnyTag(ids));
+	}
+
+	@Test
+	public void duplicateTagTest() {
+		StreamTask task = new StreamTask("Task");
+		task.getTags().add("TWICE");
+		task.getTags().add("TWICE");
+		task.getTags().remove("TWICE");
+		assertTrue("Still has the other copy", task.hasTag("twice"));
+		task.getTags().remove("TWICE");
+		assertFalse("Both copies removed", task.hasTag("twice"));
+	}
+
+	@Test
+	public void versionTest() {
+		StreamTask task = new StreamTask("Task");
+		task.getTags().add("OLD");
+		long version = task.getVersion();
+		task.getTags().set(0, "NEW");
+		assertTrue("New version after set", task.getVersion() != version);
+		version = task.getVersion();
+		Collections.sort(task.getTags());
+		task.getTags().remove(0);
+		assertTrue("New version after remove", task.getVersion() != version);
+	}
+}
@@ -1,7 +1,11 @@
 package model;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicLong;
 
 import util.StreamConstants;
 
@@ -17,24 +21,38 @@ import util.StreamConstants;
  */
 public class StreamTask {
 
+	/** Value of a time of a task that is not set */
+	public static final long NO_TIME = Long.MIN_VALUE;
+
+	private static final AtomicLong versionSequence = new AtomicLong();
+	private static final int[] NO_TAG_IDS = new int[0];
+
 	// Attributes
 	private String taskName;
+	private String taskKey;
 	private String taskDescription;
-	private Calendar startTime;
-	private Calendar deadline;
-	private ArrayList<String> tags;
+	private long startTime;
+	private long deadline;
+	private TagList tags;
 	private boolean isDone;
-	private String rank;
+	private RankType rank;
+	private long doneTime = NO_TIME;
+	private long version;
+	private StreamTaskTable table;
+	private StreamTimeIndex timeIndex;
+	private StreamTextIndex textIndex;
 
 	// Constructor
 	public StreamTask(String taskName) {
 		this.taskName = taskName;
+		this.taskKey = taskName.toLowerCase();
 		this.taskDescription = null;
-		this.startTime = null;
-		this.deadline = null;
-		this.tags = new ArrayList<String>();
+		this.startTime = NO_TIME;
+		this.deadline = NO_TIME;
+		this.tags = new TagList();
 		this.isDone = false;
-		this.rank = "low";
+		this.rank = RankType.LO;
+		this.version = versionSequence.incrementAndGet();
 	}
 
 	// Getters and Setters
@@ -55,8 +73,24 @@ public class StreamTask {
 	 */
 	public void setTaskName(String newTaskName) {
 		this.taskName = newTaskName;
+		this.taskKey = newTaskName.toLowerCase();
+		touch();
+		textChanged();
 	}
 
+	//@author A0096529N
+	/**
+	 * Gets the key of a task, its name folded to lower case. The key is
+	 * computed once when the task is created or renamed, so that lookups
+	 * and case-insensitive searches do not fold the name again.
+	 * 
+	 * @return this.taskKey - the key of the task
+	 */
+	public String getKey() {
+		return this.taskKey;
+	}
+
+	//@author A0118007R
 	/**
 	 * Gets the description of a task
 	 * 
@@ -73,16 +107,19 @@ public class StreamTask {
 	 */
 	public void setDescription(String description) {
 		this.taskDescription = description;
+		touch();
+		textChanged();
 	}
 
 	//@author A0093874N
 	/**
 	 * Gets the start time of a task
 	 * 
-	 * @return this.startTime - the start time of the task
+	 * @return this.startTime - the start time of the task, a new Calendar
+	 *         that can be modified freely, or null if not set
 	 */
 	public Calendar getStartTime() {
-		return this.startTime;
+		return toCalendar(this.startTime);
 	}
 
 	/**
@@ -91,19 +128,45 @@ public class StreamTask {
 	 * @param startTime - the new start time of the task
 	 */
 	public void setStartTime(Calendar startTime) {
+		setStartTimeMillis(toMillis(startTime));
+	}
+
+	//@author A0096529N
+	/**
+	 * Gets the start time of a task without creating a Calendar
+	 * 
+	 * @return the start time in epoch millis, or NO_TIME if not set
+	 */
+	public long getStartTimeMillis() {
+		return this.startTime;
+	}
+
+	/**
+	 * Sets the start time of a task in epoch millis
+	 * 
+	 * @param startTime - the new start time, or NO_TIME to clear it
+	 */
+	public void setStartTimeMillis(long startTime) {
+		long previous = this.startTime;
 		this.startTime = startTime;
+		touch();
+		if (timeIndex != null && previous != startTime) {
+			timeIndex.startTimeChanged(this, previous);
+		}
 	}
 
+	//@author A0093874N
+
 	/**
 	 * Checks whether a task is overdue
 	 * 
 	 * @return true if not overdue, false otherwise
 	 */
 	public boolean isOverdue() {
-		if (deadline == null) {
+		if (deadline == NO_TIME) {
 			return false;
 		} else {
-			return deadline.before(Calendar.getInstance());
+			return deadline < System.currentTimeMillis();
 		}
 	}
 
@@ -113,10 +176,10 @@ public class StreamTask {
 	 * @return true if inactive, false otherwise
 	 */
 	public boolean isInactive() {
-		if (startTime == null) {
+		if (startTime == NO_TIME) {
 			return false;
 		} else {
-			return startTime.after(Calendar.getInstance());
+			return startTime > System.currentTimeMillis();
 		}
 	}
 
@@ -124,10 +187,11 @@ public class StreamTask {
 	/**
 	 * Gets the deadline of a task
 	 * 
-	 * @return this.deadline - the deadline of the task
+	 * @return this.deadline - the deadline of the task, a new Calendar that
+	 *         can be modified freely, or null if not set
 	 */
 	public Calendar getDeadline() {
-		return this.deadline;
+		return toCalendar(this.deadline);
 	}
 
 	/**
@@ -136,34 +200,62 @@ public class StreamTask {
 	 * @param deadline - the new deadline of the task
 	 */
 	public void setDeadline(Calendar deadline) {
+		setDeadlineMillis(toMillis(deadline));
+	}
+
+	//@author A0096529N
+	/**
+	 * Gets the deadline of a task without creating a Calendar
+	 * 
+	 * @return the deadline in epoch millis, or NO_TIME if not set
+	 */
+	public long getDeadlineMillis() {
+		return this.deadline;
+	}
+
+	/**
+	 * Sets the deadline of a task in epoch millis
+	 * 
+	 * @param deadline - the new deadline, or NO_TIME to clear it
+	 */
+	public void setDeadlineMillis(long deadline) {
+		long previous = this.deadline;
 		this.deadline = deadline;
+		touch();
+		if (timeIndex != null && previous != deadline) {
+			timeIndex.deadlineChanged(this, previous);
+		}
 	}
 
+	//@author A0119401U
 	/**
-	 * Gets the tags of a task as an ArrayList of strings
+	 * Gets the tags of a task as a list of strings
 	 * 
 	 * @return tags - the tags of the task
 	 */
-	public ArrayList<String> getTags() {
+	public List<String> getTags() {
 		return tags;
 	}
 
 	/**
 	 * Gets the rank of a task
 	 * 
-	 * @return this.rank - The rank of the task
+	 * @return this.rank - The rank of the task, as shown to the user, or null
+	 *         if not ranked
 	 */
 	public String getRank() {
-		return this.rank;
+		return this.rank.translate();
 	}
 
 	/**
 	 * Sets the rank of a task
 	 * 
-	 * @param newRank - the new rank of the task
+	 * @param newRank - the new rank of the task, in any form accepted by
+	 *        RankType.parse, or null for no rank
 	 */
 	public void setRank(String newRank) {
-		this.rank = newRank;
+		setRankType(newRank == null ? RankType.NULL : RankType
+				.parse(newRank));
 	}
 
 	/**
@@ -193,12 +285,173 @@ public class StreamTask {
 
 	//@author A0096529N
 	/**
-	 * Sets a task ask done or not
+	 * Gets the rank of a task without parsing it
+	 * 
+	 * @return this.rank - the rank of the task, RankType.NULL if not ranked
+	 */
+	public RankType getRankType() {
+		return this.rank;
+	}
+
+	/**
+	 * Sets the rank of a task
+	 * 
+	 * @param newRank - the new rank of the task, RankType.NULL for no rank
+	 */
+	public void setRankType(RankType newRank) {
+		assert (newRank != null);
+		this.rank = newRank;
+		touch();
+	}
+
+	/**
+	 * Sets a task ask done or not. A task newly marked as done is stamped
+	 * with the current time, and the stamp is cleared when it is marked as
+	 * ongoing again.
 	 * 
 	 * @param done
 	 */
 	public void setDone(boolean done) {
+		if (done && !this.isDone) {
+			this.doneTime = System.currentTimeMillis();
+		} else if (!done) {
+			this.doneTime = NO_TIME;
+		}
 		this.isDone = done;
+		touch();
+	}
+
+	/**
+	 * Gets the time a task was marked as done
+	 * 
+	 * @return this.doneTime - the time the task was marked as done, null if
+	 *         the task is not done
+	 */
+	public Calendar getDoneTime() {
+		return toCalendar(this.doneTime);
+	}
+
+	/**
+	 * Gets the time a task was marked as done without creating a Calendar
+	 * 
+	 * @return the time in epoch millis, or NO_TIME if the task is not done
+	 */
+	public long getDoneTimeMillis() {
+		return this.doneTime;
+	}
+
+	/**
+	 * Sets the time a done task was marked as done, e.g. when it is loaded.
+	 * Ignored if the task is not done.
+	 * 
+	 * @param doneTime - the time the task was marked as done
+	 */
+	public void setDoneTime(Calendar doneTime) {
+		setDoneTimeMillis(toMillis(doneTime));
+	}
+
+	/**
+	 * Sets the time a done task was marked as done in epoch millis. Ignored
+	 * if the task is not done.
+	 * 
+	 * @param doneTime - the time the task was marked as done
+	 */
+	public void setDoneTimeMillis(long doneTime) {
+		if (this.isDone && doneTime != NO_TIME) {
+			this.doneTime = doneTime;
+			touch();
+		}
+	}
+
+	/**
+	 * Gets the version of this task's contents. Every modification, including
+	 * modifications of the tag list, moves the task to a new version, which is
+	 * unique across all tasks. Two tasks with the same version therefore have
+	 * the same contents, e.g. a task and its copy.
+	 * 
+	 * @return the version of the task's contents
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return the table of the StreamObject storing this task, null if none
+	 */
+	StreamTaskTable getTable() {
+		return table;
+	}
+
+	void setTable(StreamTaskTable table) {
+		this.table = table;
+	}
+
+	/**
+	 * @return the index of the StreamObject storing this task, null if none
+	 */
+	StreamTimeIndex getTimeIndex() {
+		return timeIndex;
+	}
+
+	void setTimeIndex(StreamTimeIndex timeIndex) {
+		this.timeIndex = timeIndex;
+	}
+
+	/**
+	 * @return the text index of the StreamObject storing this task, null if
+	 *         none
+	 */
+	StreamTextIndex getTextIndex() {
+		return textIndex;
+	}
+
+	void setTextIndex(StreamTextIndex textIndex) {
+		this.textIndex = textIndex;
+	}
+
+	private void textChanged() {
+		if (textIndex != null) {
+			textIndex.textChanged(this);
+		}
+	}
+
+	private void touch() {
+		version = versionSequence.incrementAndGet();
+		if (table != null) {
+			table.taskChanged(this);
+		}
+	}
+
+	private static Calendar toCalendar(long millis) {
+		if (millis == NO_TIME) {
+			return null;
+		}
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTimeInMillis(millis);
+		return calendar;
+	}
+
+	private static long toMillis(Calendar calendar) {
+		return calendar == null ? NO_TIME : calendar.getTimeInMillis();
+	}
+
+	/**
+	 * Creates a detached copy of this task, e.g. for a snapshot that is saved
+	 * while this task is still being modified.
+	 * 
+	 * @return the copy of this task
+	 */
+	public StreamTask copy() {
+		StreamTask copy = new StreamTask(taskName);
+		copy.taskDescription = taskDescription;
+		copy.startTime = startTime;
+		copy.deadline = deadline;
+		copy.tags.addAll(tags);
+		copy.isDone = isDone;
+		copy.doneTime = doneTime;
+		copy.rank = rank;
+		copy.version = version;
+		return copy;
 	}
 
 	/**
@@ -207,7 +460,7 @@ public class StreamTask {
 	 * @return true if it is a timed task, false otherwise
 	 */
 	public boolean isTimedTask() {
-		return startTime != null;
+		return startTime != NO_TIME;
 	}
 
 	/**
@@ -216,7 +469,7 @@ public class StreamTask {
 	 * @return true if it has a deadline, false otherwise
 	 */
 	public boolean isDeadlineTask() {
-		return deadline != null;
+		return deadline != NO_TIME;
 	}
 
 	/**
@@ -225,7 +478,7 @@ public class StreamTask {
 	 * @return true if it is floating, false otherwise
 	 */
 	public boolean isFloatingTask() {
-		return startTime == null && deadline == null;
+		return startTime == NO_TIME && deadline == NO_TIME;
 	}
 
 	/**
@@ -235,7 +488,7 @@ public class StreamTask {
 	 * @return true if the task contains the specified tag, false otherwise
 	 */
 	public boolean hasTag(String tag) {
-		return tags.contains(tag.toUpperCase());
+		return tags.containsId(StreamTagDictionary.lookup(tag.toUpperCase()));
 	}
 
 	/**
@@ -253,6 +506,37 @@ public class StreamTask {
 		return false;
 	}
 
+	/**
+	 * Checks whether a task has any of the tags with the given ids in
+	 * StreamTagDictionary, e.g. the keywords of a search looked up once for
+	 * all tasks.
+	 * 
+	 * @param tagIds - the ids of the tags to be checked
+	 * @return true if the task has any of the tags, false otherwise
+	 */
+	public boolean hasAnyTag(int[] tagIds) {
+		for (int tagId : tagIds) {
+			if (tags.containsId(tagId)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return true if the task has the tag with the given id
+	 */
+	boolean hasTagId(int tagId) {
+		return tags.containsId(tagId);
+	}
+
+	/**
+	 * @return ids of the tags of the task in StreamTagDictionary, in order
+	 */
+	int[] tagIds() {
+		return tags.toIdArray();
+	}
+
 	// Depreciated methods
 
 	//@author A0118007R-unused
@@ -260,7 +544,7 @@ public class StreamTask {
 	 * @deprecated - same as setDeadline(null)
 	 */
 	public void setNullDeadline() {
-		this.deadline = null;
+		setDeadlineMillis(NO_TIME);
 	}
 
 	// updated by A0119401U
@@ -278,6 +562,7 @@ public class StreamTask {
 		}
 		System.out.println("Description = " + strDesc);
 		String strDeadline;
+		Calendar deadline = getDeadline();
 		if (deadline == null) {
 			strDeadline = "Not specified";
 		} else {
@@ -309,7 +594,7 @@ public class StreamTask {
 	 * @deprecated
 	 */
 	public void resetTags() {
-		this.tags = new ArrayList<String>();
+		this.tags.clear();
 	}
 
 	/**
@@ -329,8 +614,10 @@ public class StreamTask {
 	 */
 	public void resetParams() {
 		this.taskDescription = null;
-		this.deadline = null;
-		this.tags = new ArrayList<String>();
+		setDeadlineMillis(NO_TIME);
+		this.tags.clear();
+		touch();
+		textChanged();
 	}
 
 	//@author A0119401U-unused
@@ -339,11 +626,144 @@ public class StreamTask {
 	 * @deprecated
 	 */
 	public boolean isDue() {
-		if (deadline != null) {
-			return deadline.before(Calendar.getInstance());
+		if (deadline != NO_TIME) {
+			return deadline < System.currentTimeMillis();
 		} else {
 			return false;
 		}
 	}
 
-}
\ No newline at end of file
+	//@author A0096529N
+	/**
+	 * Tag list that keeps the tags as ids in StreamTagDictionary, in order,
+	 * with a sorted copy of the ids for membership checks by binary search. Modifications made
+	 * through getTags() move the task to a new version, and are reported to
+	 * the task's table and text index.
+	 */
+	private class TagList extends AbstractList<String> implements
+			RandomAccess {
+
+		private int[] ids = NO_TAG_IDS;
+		private int[] sortedIds = NO_TAG_IDS;
+		private int size;
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public String get(int index) {
+			checkIndex(index, size);
+			return StreamTagDictionary.nameOf(ids[index]);
+		}
+
+		@Override
+		public String set(int index, String element) {
+			checkIndex(index, size);
+			int previous = ids[index];
+			ids[index] = StreamTagDictionary.intern(element);
+			unsort(previous, size);
+			sort(ids[index], size - 1);
+			modCount++;
+			touch();
+			textChanged();
+			return StreamTagDictionary.nameOf(previous);
+		}
+
+		@Override
+		public void add(int index, String element) {
+			checkIndex(index, size + 1);
+			int id = StreamTagDictionary.intern(element);
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, Math.max(4, size * 2));
+				sortedIds = Arrays.copyOf(sortedIds, ids.length);
+			}
+			System.arraycopy(ids, index, ids, index + 1, size - index);
+			ids[index] = id;
+			sort(id, size);
+			size++;
+			modCount++;
+			touch();
+			textChanged();
+		}
+
+		@Override
+		public String remove(int index) {
+			checkIndex(index, size);
+			int previous = ids[index];
+			System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+			unsort(previous, size);
+			size--;
+			modCount++;
+			touch();
+			textChanged();
+			return StreamTagDictionary.nameOf(previous);
+		}
+
+		@Override
+		public void clear() {
+			size = 0;
+			modCount++;
+			touch();
+			textChanged();
+		}
+
+		@Override
+		public boolean contains(Object element) {
+			return element instanceof String
+					&& containsId(StreamTagDictionary.lookup((String) element));
+		}
+
+		@Override
+		public int indexOf(Object element) {
+			if (!contains(element)) {
+				return -1;
+			}
+			int id = StreamTagDictionary.lookup((String) element);
+			for (int i = 0; i < size; i++) {
+				if (ids[i] == id) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		boolean containsId(int id) {
+			return id >= 0 && Arrays.binarySearch(sortedIds, 0, size, id) >= 0;
+		}
+
+		int[] toIdArray() {
+			return size == 0 ? NO_TAG_IDS : Arrays.copyOf(ids, size);
+		}
+
+		/**
+		 * Inserts the id into the first count sorted ids.
+		 */
+		private void sort(int id, int count) {
+			int position = Arrays.binarySearch(sortedIds, 0, count, id);
+			if (position < 0) {
+				position = -position - 1;
+			}
+			System.arraycopy(sortedIds, position, sortedIds, position + 1,
+					count - position);
+			sortedIds[position] = id;
+		}
+
+		/**
+		 * Removes one occurrence of the id from the first count sorted ids.
+		 */
+		private void unsort(int id, int count) {
+			int position = Arrays.binarySearch(sortedIds, 0, count, id);
+			System.arraycopy(sortedIds, position + 1, sortedIds, position,
+					count - position - 1);
+		}
+
+		private void checkIndex(int index, int bound) {
+			if (index < 0 || index >= bound) {
+				throw new IndexOutOfBoundsException("Index: " + index
+						+ ", Size: " + (bound == index ? index : bound));
+			}
+		}
+	}
+}
@@ -0,0 +1,277 @@
+package model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+
+//@author A0096529N
+/**
+ * <p>
+ * Columnar mirror of the tasks in <b>StreamObject</b>, one row per task in
+ * display order. Start times and deadlines are kept as epoch millis in
+ * primitive arrays, done flags in a bit set, ranks as bytes and tags as
+ * interned ids, so that filters and sorts scan primitive columns instead of
+ * following every task to its fields.
+ * </p>
+ *
+ * <p>
+ * The table is kept up to date by StreamObject as tasks are modified. A task
+ * stored in the table reports its own modifications, and only its row is
+ * read again; adding or removing a task shifts the rows after it without
+ * reading them again. The table is only rebuilt when all tasks are replaced
+ * or reordered.
+ * </p>
+ *
+ * @version V0.5
+ */
+public final class StreamTaskTable {
+
+	/** Value of a time column for a task without that time */
+	public static final long NONE = StreamTask.NO_TIME;
+	public static final byte RANK_HI = 2;
+	public static final byte RANK_MED = 1;
+	public static final byte RANK_LO = 0;
+	public static final byte RANK_NONE = -1;
+
+	private static final int[] NO_TAGS = new int[0];
+
+	private int size;
+	private String[] names = new String[0];
+	private StreamTask[] tasks = new StreamTask[0];
+	private long[] startTimes = new long[0];
+	private long[] deadlines = new long[0];
+	private byte[] ranks = new byte[0];
+	private int[][] tags = new int[0][];
+	private final BitSet done = new BitSet();
+
+	private StreamOrderList taskList;
+	private long revision;
+
+	StreamTaskTable() {
+	}
+
+	/**
+	 * Reads all rows again from the given task order and map.
+	 */
+	void rebuild(StreamOrderList taskList, Map<String, StreamTask> taskMap) {
+		for (int row = 0; row < size; row++) {
+			detach(tasks[row]);
+		}
+		this.taskList = taskList;
+		size = taskList.size();
+		if (names.length < size) {
+			grow(size);
+		} else {
+			Arrays.fill(names, size, names.length, null);
+			Arrays.fill(tasks, size, tasks.length, null);
+			Arrays.fill(tags, size, tags.length, null);
+		}
+		done.clear();
+		int row = 0;
+		for (String taskName : taskList) {
+			names[row] = taskName;
+			tasks[row] = taskMap.get(taskList.keyOf(taskName));
+			attach(tasks[row]);
+			readRow(row);
+			row++;
+		}
+		revision++;
+	}
+
+	/**
+	 * Inserts the row of a task added to the task order at the given
+	 * position, shifting the rows after it.
+	 */
+	void insert(int row, String taskName, StreamTask task) {
+		if (size == names.length) {
+			grow(Math.max(4, size * 3 / 2 + 1));
+		}
+		int moved = size - row;
+		System.arraycopy(names, row, names, row + 1, moved);
+		System.arraycopy(tasks, row, tasks, row + 1, moved);
+		System.arraycopy(startTimes, row, startTimes, row + 1, moved);
+		System.arraycopy(deadlines, row, deadlines, row + 1, moved);
+		System.arraycopy(ranks, row, ranks, row + 1, moved);
+		System.arraycopy(tags, row, tags, row + 1, moved);
+		for (int i = done.previousSetBit(size - 1); i >= row; i = done
+				.previousSetBit(i - 1)) {
+			done.clear(i);
+			done.set(i + 1);
+		}
+		size++;
+		names[row] = taskName;
+		tasks[row] = task;
+		attach(task);
+		readRow(row);
+		revision++;
+	}
+
+	/**
+	 * Deletes the row of a task removed from the task order at the given
+	 * position, shifting the rows after it.
+	 */
+	void delete(int row) {
+		detach(tasks[row]);
+		int moved = size - row - 1;
+		System.arraycopy(names, row + 1, names, row, moved);
+		System.arraycopy(tasks, row + 1, tasks, row, moved);
+		System.arraycopy(startTimes, row + 1, startTimes, row, moved);
+		System.arraycopy(deadlines, row + 1, deadlines, row, moved);
+		System.arraycopy(ranks, row + 1, ranks, row, moved);
+		System.arraycopy(tags, row + 1, tags, row, moved);
+		for (int i = done.nextSetBit(row); i >= 0 && i < size; i = done
+				.nextSetBit(i + 1)) {
+			done.clear(i);
+			if (i > row) {
+				done.set(i - 1);
+			}
+		}
+		size--;
+		names[size] = null;
+		tasks[size] = null;
+		tags[size] = null;
+		revision++;
+	}
+
+	/**
+	 * Reads the row of a modified task again, called by the task itself.
+	 */
+	void taskChanged(StreamTask task) {
+		int row = taskList.indexOf(task.getTaskName());
+		if (row >= 0 && row < size && tasks[row] == task) {
+			readRow(row);
+			revision++;
+		}
+	}
+
+	private void attach(StreamTask task) {
+		if (task != null) {
+			task.setTable(this);
+		}
+	}
+
+	private void detach(StreamTask task) {
+		if (task != null && task.getTable() == this) {
+			task.setTable(null);
+		}
+	}
+
+	private void grow(int capacity) {
+		names = Arrays.copyOf(names, capacity);
+		tasks = Arrays.copyOf(tasks, capacity);
+		startTimes = Arrays.copyOf(startTimes, capacity);
+		deadlines = Arrays.copyOf(deadlines, capacity);
+		ranks = Arrays.copyOf(ranks, capacity);
+		tags = Arrays.copyOf(tags, capacity);
+	}
+
+	private void readRow(int row) {
+		StreamTask task = tasks[row];
+		if (task == null) {
+			startTimes[row] = NONE;
+			deadlines[row] = NONE;
+			ranks[row] = RANK_NONE;
+			tags[row] = NO_TAGS;
+			done.clear(row);
+			return;
+		}
+		startTimes[row] = task.getStartTimeMillis();
+		deadlines[row] = task.getDeadlineMillis();
+		ranks[row] = encodeRank(task.getRankType());
+		done.set(row, task.isDone());
+		tags[row] = task.tagIds();
+	}
+
+	private static byte encodeRank(RankType rank) {
+		switch (rank) {
+			case HI:
+				return RANK_HI;
+			case MED:
+				return RANK_MED;
+			case LO:
+				return RANK_LO;
+			default:
+				return RANK_NONE;
+		}
+	}
+
+	/**
+	 * @return a revision that changes whenever any row changes
+	 */
+	long getRevision() {
+		return revision;
+	}
+
+	/**
+	 * @return number of rows, the number of tasks
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return name of the task at the row
+	 */
+	public String getName(int row) {
+		return names[row];
+	}
+
+	/**
+	 * @return the task at the row
+	 */
+	public StreamTask getTask(int row) {
+		return tasks[row];
+	}
+
+	/**
+	 * @return start time of the task at the row in epoch millis, or NONE
+	 */
+	public long getStartTime(int row) {
+		return startTimes[row];
+	}
+
+	/**
+	 * @return deadline of the task at the row in epoch millis, or NONE
+	 */
+	public long getDeadline(int row) {
+		return deadlines[row];
+	}
+
+	/**
+	 * @return true if the task at the row is done
+	 */
+	public boolean isDone(int row) {
+		return done.get(row);
+	}
+
+	/**
+	 * @return rank of the task at the row, one of the RANK values
+	 */
+	public byte getRank(int row) {
+		return ranks[row];
+	}
+
+	/**
+	 * Gets the id of a tag in StreamTagDictionary, for checking tags with
+	 * hasTag(int, int).
+	 *
+	 * @param tag
+	 *            the tag, in upper case as stored
+	 * @return id of the tag, or -1 if no task ever had the tag
+	 */
+	public int getTagId(String tag) {
+		return StreamTagDictionary.lookup(tag);
+	}
+
+	/**
+	 * @return true if the task at the row has the tag with the given id
+	 */
+	public boolean hasTag(int row, int tagId) {
+		for (int id : tags[row]) {
+			if (id == tagId) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
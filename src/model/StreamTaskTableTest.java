@@ -0,0 +1,177 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+
+import logic.StreamLogic;
+
+import org.junit.Before;
+import org.junit.Test;
+
+//@author A0096529N
+public class StreamTaskTableTest {
+
+	private StreamObject streamObject;
+	private StreamTask taskA;
+	private StreamTask taskB;
+	private Calendar deadline;
+
+	@Before
+	public void setUp() throws Exception {
+		streamObject = StreamObject.getInstance();
+		taskA = new StreamTask("Task A");
+		taskB = new StreamTask("Task B");
+		streamObject.put("Task A", taskA);
+		streamObject.put("Task B", taskB);
+		deadline = Calendar.getInstance();
+		deadline.add(Calendar.DAY_OF_MONTH, 1);
+	}
+
+	@Test
+	public void columnsTest() {
+		taskA.setDeadline(deadline);
+		taskA.setRank("high");
+		taskB.markAsDone();
+		taskB.getTags().add("URGENT");
+
+		StreamTaskTable table = streamObject.getTable();
+		assertEquals("Rows", 2, table.size());
+		assertEquals("Name", "Task A", table.getName(0));
+		assertSame("Task", taskB, table.getTask(1));
+		assertEquals("Deadline", deadline.getTimeInMillis(),
+				table.getDeadline(0));
+		assertEquals("No start time", StreamTaskTable.NONE,
+				table.getStartTime(0));
+		assertEquals("Rank", StreamTaskTable.RANK_HI, table.getRank(0));
+		assertFalse("Not done", table.isDone(0));
+		assertTrue("Done", table.isDone(1));
+		int tagId = table.getTagId("URGENT");
+		assertTrue("Tagged", table.hasTag(1, tagId));
+		assertFalse("Not tagged", table.hasTag(0, tagId));
+		assertEquals("Unknown tag", -1, table.getTagId("MISSING"));
+	}
+
+	@Test
+	public void taskTimesTest() {
+		long before = taskA.getVersion();
+		taskA.setDeadline(deadline);
+		assertTrue("New version", taskA.getVersion() != before);
+		assertEquals("Deadline millis", deadline.getTimeInMillis(),
+				taskA.getDeadlineMillis());
+		assertEquals("No start time", StreamTask.NO_TIME,
+				taskA.getStartTimeMillis());
+
+		deadline.add(Calendar.DAY_OF_MONTH, 1);
+		taskA.getDeadline().add(Calendar.DAY_OF_MONTH, 1);
+		assertEquals("Calendars are not kept",
+				deadline.getTimeInMillis() - 86400000L,
+				taskA.getDeadlineMillis());
+
+		taskA.setDeadline(null);
+		assertFalse("Deadline cleared", taskA.isDeadlineTask());
+		assertEquals("Cleared deadline", null, taskA.getDeadline());
+	}
+
+	@Test
+	public void rankTest() {
+		assertEquals("Default rank", RankType.LO, taskA.getRankType());
+		taskA.setRank("h");
+		assertEquals("Parsed once", RankType.HI, taskA.getRankType());
+		assertEquals("Shown in full", "high", taskA.getRank());
+		taskB.setRank(null);
+		assertEquals("No rank", RankType.NULL, taskB.getRankType());
+		assertEquals("No rank shown", null, taskB.getRank());
+
+		StreamTaskTable table = streamObject.getTable();
+		assertEquals("Rank column", StreamTaskTable.RANK_HI, table.getRank(0));
+		assertEquals("No rank column", StreamTaskTable.RANK_NONE,
+				table.getRank(1));
+	}
+
+	@Test
+	public void syncTest() {
+		StreamTaskTable table = streamObject.getTable();
+		assertFalse("Not done before", table.isDone(0));
+
+		taskA.markAsDone();
+		taskA.getTags().add("LATER");
+		table = streamObject.getTable();
+		assertTrue("Modified task read again", table.isDone(0));
+		assertTrue("Modified tags read again",
+				table.hasTag(0, table.getTagId("LATER")));
+
+		streamObject.put("Task C", new StreamTask("Task C"), 0);
+		streamObject.remove("Task B");
+		table = streamObject.getTable();
+		assertEquals("Rows after add and remove", 2, table.size());
+		assertEquals("Inserted row", "Task C", table.getName(0));
+		assertTrue("Row moved", table.isDone(1));
+
+		streamObject.setTaskList(new ArrayList<String>(Arrays.asList(
+				"Task A", "Task C")));
+		table = streamObject.getTable();
+		assertEquals("Reordered", "Task A", table.getName(0));
+	}
+
+	@Test
+	public void rowUpdateTest() {
+		taskB.markAsDone();
+		streamObject.put("Task C", new StreamTask("Task C"), 1);
+		StreamTask taskD = new StreamTask("Task D");
+		taskD.markAsDone();
+		streamObject.put("Task D", taskD, 0);
+		streamObject.remove("Task C");
+		StreamTaskTable table = streamObject.getTable();
+		assertEquals("Rows shifted", "Task D", table.getName(0));
+		assertEquals("Rows shifted", "Task B", table.getName(2));
+		assertTrue("Done shifted", table.isDone(0));
+		assertFalse("Done shifted", table.isDone(1));
+		assertTrue("Done shifted", table.isDone(2));
+
+		streamObject.remove("Task B");
+		long revision = table.getRevision();
+		taskB.markAsOngoing();
+		taskB.getTags().add("GONE");
+		assertEquals("Removed task detached", revision, table.getRevision());
+		assertEquals("Rows after remove", 2, table.size());
+
+		streamObject.snapshot();
+		taskA.copy();
+		revision = table.getRevision();
+		streamObject.snapshot();
+		assertEquals("Copies leave rows alone", revision, table.getRevision());
+		taskA.getTags().add("NOW");
+		assertTrue("Own row marked", table.getRevision() != revision);
+		assertTrue("Own row read", table.hasTag(1, table.getTagId("NOW")));
+	}
+
+	@Test
+	public void filterAndSortTest() throws Exception {
+		StreamLogic streamLogic = StreamLogic.init(streamObject);
+		taskB.setDeadline(deadline);
+		Calendar overdue = Calendar.getInstance();
+		overdue.add(Calendar.DAY_OF_MONTH, -1);
+		taskA.setDeadline(overdue);
+
+		assertEquals("Overdue filter", Arrays.asList(1),
+				streamLogic.filterTasks("overdue"));
+		taskA.markAsDone();
+		assertEquals("Done filter", Arrays.asList(1),
+				streamLogic.filterTasks("done"));
+		assertEquals("Ongoing filter", Arrays.asList(2),
+				streamLogic.filterTasks("ongoing"));
+
+		streamLogic.sortDeadline(true);
+		assertEquals("Sorted by deadline", Arrays.asList("Task B", "Task A"),
+				streamLogic.getTaskList());
+		streamLogic.sortAlpha(false);
+		assertEquals("Sorted by name", Arrays.asList("Task A", "Task B"),
+				streamLogic.getTaskList());
+	}
+}
@@ -0,0 +1,565 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import util.StreamUtil;
+
+//@author A0096529N
+/**
+ * <p>
+ * Inverted index of the tasks of a <b>StreamObject</b> by the words in their
+ * names and descriptions, and by their tags, for searching tasks without
+ * visiting every task.
+ * </p>
+ *
+ * <p>
+ * Words are the runs of letters and digits, folded to lower case. A key
+ * phrase is looked up word by word, and only the tasks having every word of
+ * it are then checked for the whole phrase, so that the results are those of
+ * checking every task. Words found inside other words are looked up by
+ * their trigrams, the runs of three characters of the indexed words, so that
+ * substrings of words are found without visiting every indexed word.
+ * </p>
+ *
+ * <p>
+ * Misspelled words are looked up in a BK-tree of the indexed words, built
+ * before the first such search with buildDictionary() and kept up to date
+ * after it, until most of its words are no longer used.
+ * </p>
+ *
+ * <p>
+ * As with StreamTimeIndex, tasks are added and removed
+ * by the StreamObject that stores them, and a task reports changes to its
+ * name, description and tags to the index it was added to.
+ * </p>
+ *
+ * @version V0.5
+ */
+final class StreamTextIndex {
+
+	private static final int TRIGRAM_LENGTH = 3;
+
+	private final TreeMap<String, Set<StreamTask>> words = new TreeMap<String, Set<StreamTask>>();
+	private final Map<String, Set<String>> trigrams = new HashMap<String, Set<String>>();
+	private final Set<String> shortWords = new HashSet<String>();
+	private StreamBKTree dictionary;
+	private int removedWords;
+	private final Map<Integer, Set<StreamTask>> tags = new HashMap<Integer, Set<StreamTask>>();
+	private final Map<StreamTask, Entry> entries = new IdentityHashMap<StreamTask, Entry>();
+	private long stamp;
+
+	void add(StreamTask task) {
+		if (task.getTextIndex() != null && task.getTextIndex() != this) {
+			task.getTextIndex().remove(task);
+		}
+		if (!entries.containsKey(task)) {
+			task.setTextIndex(this);
+			put(task);
+		}
+	}
+
+	void remove(StreamTask task) {
+		if (take(task)) {
+			task.setTextIndex(null);
+		}
+	}
+
+	void clear() {
+		for (StreamTask task : entries.keySet()) {
+			task.setTextIndex(null);
+		}
+		entries.clear();
+		stamp++;
+		words.clear();
+		trigrams.clear();
+		shortWords.clear();
+		dictionary = null;
+		removedWords = 0;
+		tags.clear();
+	}
+
+	int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Indexes a task again after its name, description or tags changed.
+	 */
+	void textChanged(StreamTask task) {
+		if (take(task)) {
+			put(task);
+		}
+	}
+
+	/**
+	 * Finds the tasks having any of the given tags, or whose name or
+	 * description contains the key phrase, ignoring case.
+	 *
+	 * @param keyphrase
+	 *            the phrase to search the names and descriptions for
+	 * @param tagIds
+	 *            ids of the tags to search for
+	 * @return the matching tasks, in no particular order
+	 */
+	List<StreamTask> find(String keyphrase, int[] tagIds) {
+		return match(findCandidates(fold(keyphrase)), keyphrase, tagIds);
+	}
+
+	/**
+	 * Finds the tasks as find() does, but only checks the tasks found by a
+	 * previous search for a part of the key phrase, while the index has not
+	 * changed since. Tags are looked up again, since a tag matches a whole key
+	 * word only.
+	 *
+	 * @param previous
+	 *            the tasks found for a part of the key phrase
+	 * @param keyphrase
+	 *            the phrase to search the names and descriptions for
+	 * @param tagIds
+	 *            ids of the tags to search for
+	 * @return the matching tasks, in no particular order
+	 */
+	List<StreamTask> refine(List<StreamTask> previous, String keyphrase,
+			int[] tagIds) {
+		return match(previous, keyphrase, tagIds);
+	}
+
+	/**
+	 * Finds the tasks having, for every word of the key phrase, a word within
+	 * a small edit distance of it, which grows with the length of the word:
+	 * none for words of up to 2 characters, 1 for up to 5 and 2 for longer
+	 * words. The BK-tree of the words must be built first, with
+	 * buildDictionary().
+	 *
+	 * @param keyphrase
+	 *            the phrase to search the names and descriptions for
+	 * @return the matching tasks, with the sum of the distances of their
+	 *         closest words to the words of the key phrase
+	 */
+	Map<StreamTask, Integer> findSimilar(String keyphrase) {
+		Set<String> keywords = new HashSet<String>();
+		addWords(fold(keyphrase), keywords);
+		if (keywords.isEmpty()) {
+			return new IdentityHashMap<StreamTask, Integer>();
+		}
+		Map<StreamTask, Integer> distances = null;
+		for (String keyword : keywords) {
+			Map<StreamTask, Integer> keywordDistances = findSimilarWord(keyword);
+			if (distances == null) {
+				distances = keywordDistances;
+				continue;
+			}
+			Map<StreamTask, Integer> both = new IdentityHashMap<StreamTask, Integer>();
+			for (Map.Entry<StreamTask, Integer> entry : distances.entrySet()) {
+				Integer distance = keywordDistances.get(entry.getKey());
+				if (distance != null) {
+					both.put(entry.getKey(), entry.getValue() + distance);
+				}
+			}
+			distances = both;
+		}
+		return distances;
+	}
+
+	/**
+	 * @return the tasks having a word similar to the given word, with the
+	 *         distance of their closest word
+	 */
+	private Map<StreamTask, Integer> findSimilarWord(String word) {
+		int maxDistance = word.length() <= 2 ? 0 : word.length() <= 5 ? 1
+				: 2;
+		Map<StreamTask, Integer> distances = new IdentityHashMap<StreamTask, Integer>();
+		for (Map.Entry<String, Integer> entry : dictionary.find(word,
+				maxDistance).entrySet()) {
+			Set<StreamTask> tasks = words.get(entry.getKey());
+			if (tasks == null) {
+				// no longer used by any task
+				continue;
+			}
+			for (StreamTask task : tasks) {
+				Integer distance = distances.get(task);
+				if (distance == null || entry.getValue() < distance) {
+					distances.put(task, entry.getValue());
+				}
+			}
+		}
+		return distances;
+	}
+
+	/**
+	 * @return true if the BK-tree of the indexed words is built, as needed
+	 *         by findSimilar()
+	 */
+	boolean hasDictionary() {
+		return dictionary != null;
+	}
+
+	/**
+	 * Builds the BK-tree of the indexed words, unless it is built already.
+	 */
+	void buildDictionary() {
+		if (dictionary == null) {
+			dictionary = new StreamBKTree();
+			for (String word : words.keySet()) {
+				dictionary.add(word);
+			}
+			removedWords = 0;
+		}
+	}
+
+	/**
+	 * @return a stamp that changes whenever a task is indexed or removed
+	 */
+	long getStamp() {
+		return stamp;
+	}
+
+	private List<StreamTask> match(Collection<StreamTask> candidates,
+			String keyphrase, int[] tagIds) {
+		Set<StreamTask> tagged = newTaskSet();
+		for (int tagId : tagIds) {
+			Set<StreamTask> tasks = tags.get(tagId);
+			if (tasks != null) {
+				tagged.addAll(tasks);
+			}
+		}
+		List<StreamTask> found = new ArrayList<StreamTask>(tagged.size()
+				+ candidates.size());
+		found.addAll(tagged);
+		String foldedKeyphrase = keyphrase.toLowerCase();
+		boolean isTagged = !tagged.isEmpty();
+		for (StreamTask task : candidates) {
+			if (!(isTagged && tagged.contains(task))
+					&& containsKeyphrase(task, keyphrase, foldedKeyphrase)) {
+				found.add(task);
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Gets the tasks having every word of the key phrase, or all tasks if the
+	 * phrase has no words. A word inside the phrase must be a whole word of
+	 * the task, while the first and last words of the phrase may continue in
+	 * the task beyond the phrase, e.g. "box" finds "boxes" and "ndora's b"
+	 * finds "Pandora's Box".
+	 */
+	private Set<StreamTask> findCandidates(String foldedKeyphrase) {
+		Set<StreamTask> candidates = null;
+		int length = foldedKeyphrase.length();
+		int start = 0;
+		while (start < length) {
+			if (!isWordChar(foldedKeyphrase.charAt(start))) {
+				start++;
+				continue;
+			}
+			int end = start;
+			while (end < length && isWordChar(foldedKeyphrase.charAt(end))) {
+				end++;
+			}
+			Set<StreamTask> matches = findWord(
+					foldedKeyphrase.substring(start, end), start > 0,
+					end < length);
+			if (candidates == null) {
+				candidates = matches;
+			} else if (matches == entries.keySet()) {
+				// every task may match the word
+			} else if (candidates == entries.keySet()) {
+				candidates = matches;
+			} else if (matches.size() < candidates.size()) {
+				candidates = intersect(matches, candidates);
+			} else {
+				candidates = intersect(candidates, matches);
+			}
+			if (candidates.isEmpty()) {
+				return candidates;
+			}
+			start = end;
+		}
+		return candidates != null ? candidates : entries.keySet();
+	}
+
+	/**
+	 * Gets the tasks having a word matching the given word, which must start
+	 * or end the task's word if it is bounded in the key phrase on that side.
+	 */
+	private Set<StreamTask> findWord(String word, boolean isStartBounded,
+			boolean isEndBounded) {
+		if (isStartBounded && isEndBounded) {
+			Set<StreamTask> tasks = words.get(word);
+			return tasks != null ? tasks : Collections.<StreamTask> emptySet();
+		}
+		if (isStartBounded) {
+			return union(words.subMap(word, true, word + Character.MAX_VALUE,
+					false).values());
+		}
+		List<Set<StreamTask>> postings = new ArrayList<Set<StreamTask>>();
+		int postingsSize = 0;
+		for (String candidate : findWordsContaining(word)) {
+			boolean isMatch = isEndBounded ? candidate.endsWith(word)
+					: candidate.contains(word);
+			if (isMatch) {
+				postings.add(words.get(candidate));
+				postingsSize += words.get(candidate).size();
+			}
+		}
+		if (postings.size() > 1 && postingsSize >= entries.size()) {
+			// too broad to narrow down, cheaper to check every task
+			return entries.keySet();
+		}
+		return union(postings);
+	}
+
+	/**
+	 * @return the tasks in any of the postings, which are not copied if
+	 *         there is only one
+	 */
+	private static Set<StreamTask> union(Collection<Set<StreamTask>> postings) {
+		if (postings.size() == 1) {
+			return postings.iterator().next();
+		}
+		Set<StreamTask> tasks = newTaskSet();
+		for (Set<StreamTask> wordTasks : postings) {
+			tasks.addAll(wordTasks);
+		}
+		return tasks;
+	}
+
+	/**
+	 * Gets the indexed words that may contain the given word, those having
+	 * all of its trigrams. A word shorter than a trigram may be in the words
+	 * having a trigram containing it, or in the words shorter than a trigram.
+	 */
+	private Collection<String> findWordsContaining(String word) {
+		if (word.length() < TRIGRAM_LENGTH) {
+			Set<String> candidates = new HashSet<String>(shortWords);
+			for (Map.Entry<String, Set<String>> entry : trigrams.entrySet()) {
+				if (entry.getKey().contains(word)) {
+					candidates.addAll(entry.getValue());
+				}
+			}
+			return candidates;
+		}
+		List<Set<String>> wordSets = new ArrayList<Set<String>>();
+		for (int i = 0; i + TRIGRAM_LENGTH <= word.length(); i++) {
+			Set<String> trigramWords = trigrams.get(word.substring(i, i
+					+ TRIGRAM_LENGTH));
+			if (trigramWords == null) {
+				return Collections.emptySet();
+			}
+			wordSets.add(trigramWords);
+		}
+		Set<String> smallest = wordSets.get(0);
+		for (Set<String> wordSet : wordSets) {
+			if (wordSet.size() < smallest.size()) {
+				smallest = wordSet;
+			}
+		}
+		List<String> candidates = new ArrayList<String>();
+		for (String candidate : smallest) {
+			if (isInAll(candidate, wordSets)) {
+				candidates.add(candidate);
+			}
+		}
+		return candidates;
+	}
+
+	private static boolean isInAll(String word, List<Set<String>> wordSets) {
+		for (Set<String> wordSet : wordSets) {
+			if (!wordSet.contains(word)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return a new set of the tasks of the smaller set that are in the
+	 *         larger set
+	 */
+	private static Set<StreamTask> intersect(Set<StreamTask> smaller,
+			Set<StreamTask> larger) {
+		Set<StreamTask> tasks = newTaskSet();
+		for (StreamTask task : smaller) {
+			if (larger.contains(task)) {
+				tasks.add(task);
+			}
+		}
+		return tasks;
+	}
+
+	private static boolean containsKeyphrase(StreamTask task,
+			String keyphrase, String foldedKeyphrase) {
+		// same checks as searching every task in StreamLogic
+		return (task.getDescription() != null && StreamUtil
+				.containsIgnoreCase(task.getDescription(), keyphrase))
+				|| task.getKey().contains(foldedKeyphrase);
+	}
+
+	private void put(StreamTask task) {
+		Entry entry = new Entry(words(task), task.tagIds());
+		entries.put(task, entry);
+		stamp++;
+		for (String word : entry.words) {
+			addWord(word, task);
+		}
+		for (int tagId : entry.tagIds) {
+			add(tags, tagId, task);
+		}
+	}
+
+	private boolean take(StreamTask task) {
+		Entry entry = entries.remove(task);
+		if (entry == null) {
+			return false;
+		}
+		stamp++;
+		for (String word : entry.words) {
+			takeWord(word, task);
+		}
+		for (int tagId : entry.tagIds) {
+			take(tags, tagId, task);
+		}
+		return true;
+	}
+
+	private void addWord(String word, StreamTask task) {
+		Set<StreamTask> tasks = words.get(word);
+		if (tasks == null) {
+			tasks = newTaskSet();
+			words.put(word, tasks);
+			if (word.length() < TRIGRAM_LENGTH) {
+				shortWords.add(word);
+			}
+			if (dictionary != null && !dictionary.add(word)) {
+				// removed before, in the tree still
+				removedWords--;
+			}
+			for (int i = 0; i + TRIGRAM_LENGTH <= word.length(); i++) {
+				String trigram = word.substring(i, i + TRIGRAM_LENGTH);
+				Set<String> trigramWords = trigrams.get(trigram);
+				if (trigramWords == null) {
+					trigramWords = new HashSet<String>();
+					trigrams.put(trigram, trigramWords);
+				}
+				trigramWords.add(word);
+			}
+		}
+		tasks.add(task);
+	}
+
+	private void takeWord(String word, StreamTask task) {
+		Set<StreamTask> tasks = words.get(word);
+		if (tasks == null || !tasks.remove(task) || !tasks.isEmpty()) {
+			return;
+		}
+		words.remove(word);
+		shortWords.remove(word);
+		removedWords++;
+		if (dictionary != null && removedWords > dictionary.size() / 2) {
+			// mostly unused words, built again on the next search
+			dictionary = null;
+		}
+		for (int i = 0; i + TRIGRAM_LENGTH <= word.length(); i++) {
+			String trigram = word.substring(i, i + TRIGRAM_LENGTH);
+			Set<String> trigramWords = trigrams.get(trigram);
+			if (trigramWords != null && trigramWords.remove(word)
+					&& trigramWords.isEmpty()) {
+				trigrams.remove(trigram);
+			}
+		}
+	}
+
+	private static <K> void add(Map<K, Set<StreamTask>> postings, K key,
+			StreamTask task) {
+		Set<StreamTask> tasks = postings.get(key);
+		if (tasks == null) {
+			tasks = newTaskSet();
+			postings.put(key, tasks);
+		}
+		tasks.add(task);
+	}
+
+	private static <K> void take(Map<K, Set<StreamTask>> postings, K key,
+			StreamTask task) {
+		Set<StreamTask> tasks = postings.get(key);
+		if (tasks != null && tasks.remove(task) && tasks.isEmpty()) {
+			postings.remove(key);
+		}
+	}
+
+	/**
+	 * @return the distinct words of the task's name and description
+	 */
+	private static Set<String> words(StreamTask task) {
+		Set<String> taskWords = new HashSet<String>();
+		addWords(fold(task.getTaskName()), taskWords);
+		if (task.getDescription() != null) {
+			addWords(fold(task.getDescription()), taskWords);
+		}
+		return taskWords;
+	}
+
+	private static void addWords(String text, Set<String> taskWords) {
+		int length = text.length();
+		int start = 0;
+		while (start < length) {
+			if (!isWordChar(text.charAt(start))) {
+				start++;
+				continue;
+			}
+			int end = start;
+			while (end < length && isWordChar(text.charAt(end))) {
+				end++;
+			}
+			taskWords.add(text.substring(start, end));
+			start = end;
+		}
+	}
+
+	private static boolean isWordChar(char c) {
+		return Character.isLetterOrDigit(c);
+	}
+
+	/**
+	 * Folds the case of each character as String.regionMatches does when
+	 * ignoring case, so that a phrase found by it has its words indexed.
+	 */
+	private static String fold(String text) {
+		char[] folded = new char[text.length()];
+		for (int i = 0; i < folded.length; i++) {
+			folded[i] = Character.toLowerCase(Character.toUpperCase(text
+					.charAt(i)));
+		}
+		return new String(folded);
+	}
+
+	private static Set<StreamTask> newTaskSet() {
+		return Collections
+				.newSetFromMap(new IdentityHashMap<StreamTask, Boolean>());
+	}
+
+	/**
+	 * The words and tags a task was indexed with, to remove it from the
+	 * postings once it changes.
+	 */
+	private static class Entry {
+
+		private final String[] words;
+		private final int[] tagIds;
+
+		private Entry(Set<String> words, int[] tagIds) {
+			this.words = words.toArray(new String[words.size()]);
+			this.tagIds = tagIds;
+		}
+	}
+}
@@ -0,0 +1,166 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import util.StreamUtil;
+
+//@author A0096529N
+public class StreamTextIndexTest {
+
+	private static final int[] NO_TAGS = new int[0];
+	private static final String[] WORDS = { "find", "box", "boxes", "pan",
+			"Pandora's", "bamboo", "x", "a=b", "forest...", "CS2103" };
+
+	private StreamObject streamObject;
+
+	@Before
+	public void setUp() throws Exception {
+		streamObject = StreamObject.getInstance();
+		streamObject.put("Find X", new StreamTask("Find X"));
+		streamObject.put("Find Pandora's Box", new StreamTask(
+				"Find Pandora's Box"));
+		streamObject.get("Find Pandora's Box").setDescription(
+				"Try and search around the bamboo forest...");
+	}
+
+	@Test
+	public void phraseTest() {
+		assertEquals("Part of a word", Arrays.asList(0, 1),
+				streamObject.findByKeyphrase("fin", NO_TAGS));
+		assertEquals("Across words", Arrays.asList(1),
+				streamObject.findByKeyphrase("DORA'S B", NO_TAGS));
+		assertEquals("Words out of order", Collections.emptyList(),
+				streamObject.findByKeyphrase("box pandora's", NO_TAGS));
+		assertEquals("Inner word must be whole", Collections.emptyList(),
+				streamObject.findByKeyphrase("the bam forest", NO_TAGS));
+		assertEquals("No words", Arrays.asList(1),
+				streamObject.findByKeyphrase("...", NO_TAGS));
+	}
+
+	@Test
+	public void infixTest() {
+		assertEquals("Inside a name", Arrays.asList(1),
+				streamObject.findByKeyphrase("ANDOR", NO_TAGS));
+		assertEquals("Inside a description", Arrays.asList(1),
+				streamObject.findByKeyphrase("mbo", NO_TAGS));
+		assertEquals("Trigrams out of order", Collections.emptyList(),
+				streamObject.findByKeyphrase("boomba", NO_TAGS));
+
+		streamObject.get("Find X").setDescription("ambient");
+		assertEquals("New word", Arrays.asList(0),
+				streamObject.findByKeyphrase("bie", NO_TAGS));
+		streamObject.get("Find X").setDescription(null);
+		assertEquals("Word gone", Collections.emptyList(),
+				streamObject.findByKeyphrase("bie", NO_TAGS));
+	}
+
+	@Test
+	public void maintenanceTest() {
+		StreamTask task = streamObject.get("Find X");
+		task.setDescription("solve the equation");
+		assertEquals("Described", Arrays.asList(0),
+				streamObject.findByKeyphrase("equation", NO_TAGS));
+
+		streamObject.remove("Find X");
+		task.setTaskName("Solve X");
+		streamObject.put("Solve X", task);
+		assertEquals("Renamed", Arrays.asList(1),
+				streamObject.findByKeyphrase("solve x", NO_TAGS));
+		assertEquals("Old name gone", Arrays.asList(0),
+				streamObject.findByKeyphrase("find", NO_TAGS));
+
+		task.getTags().add("MATH");
+		int[] math = { StreamTagDictionary.lookup("MATH") };
+		assertEquals("Tagged", Arrays.asList(1),
+				streamObject.findByKeyphrase("math", math));
+		task.getTags().remove("MATH");
+		assertEquals("Untagged", Collections.emptyList(),
+				streamObject.findByKeyphrase("math", math));
+
+		streamObject.remove("Solve X");
+		task.setDescription("still has the equation");
+		assertEquals("Deleted", Collections.emptyList(),
+				streamObject.findByKeyphrase("equation", NO_TAGS));
+	}
+
+	@Test
+	public void refineTest() {
+		StreamSearchResult first = streamObject.search("ba", NO_TAGS, null);
+		assertEquals("First keystrokes", Arrays.asList(1),
+				first.getPositions());
+		StreamSearchResult second = streamObject.search("bam", NO_TAGS, first);
+		assertTrue("Refined", first.isRefinedBy(
+				streamObject.get("Find X").getTextIndex(), "bam"));
+		assertEquals("Refined result", Arrays.asList(1),
+				second.getPositions());
+
+		streamObject.get("Find X").getTags().add("BAMBOO");
+		int[] bamboo = { StreamTagDictionary.lookup("BAMBOO") };
+		assertFalse("Not refined once modified", second.isRefinedBy(
+				streamObject.get("Find X").getTextIndex(), "bamboo"));
+		assertEquals("Tag found again", Arrays.asList(0, 1), streamObject
+				.search("bamboo", bamboo, second).getPositions());
+
+		StreamSearchResult third = streamObject.search("bamboo", bamboo, null);
+		assertEquals("Tag of longer phrase", Arrays.asList(0), streamObject
+				.search("bamboo x", bamboo, third).getPositions());
+		assertEquals("Shorter phrase searched again", Arrays.asList(1),
+				streamObject.search("bam", NO_TAGS, third).getPositions());
+	}
+
+	@Test
+	public void scanEquivalenceTest() {
+		Random random = new Random(2103);
+		streamObject.clear();
+		for (int i = 0; i < 200; i++) {
+			String name = phrase(random) + " " + i;
+			StreamTask task = new StreamTask(name);
+			if (random.nextBoolean()) {
+				task.setDescription(phrase(random));
+			}
+			streamObject.put(name, task);
+		}
+		for (int i = 0; i < 200; i++) {
+			String keyphrase = phrase(random);
+			int cut = random.nextInt(keyphrase.length());
+			keyphrase = random.nextBoolean() ? keyphrase.substring(cut)
+					: keyphrase.substring(0, cut + 1);
+			assertEquals("Same as scan of \"" + keyphrase + "\"",
+					scan(keyphrase),
+					streamObject.findByKeyphrase(keyphrase, NO_TAGS));
+		}
+	}
+
+	private static String phrase(Random random) {
+		StringBuilder phrase = new StringBuilder(WORDS[random
+				.nextInt(WORDS.length)]);
+		for (int i = random.nextInt(3); i > 0; i--) {
+			phrase.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+		}
+		return phrase.toString();
+	}
+
+	private List<Integer> scan(String keyphrase) {
+		List<Integer> positions = new ArrayList<Integer>();
+		for (int i = 0; i < streamObject.size(); i++) {
+			StreamTask task = streamObject.get(streamObject.get(i));
+			if ((task.getDescription() != null && StreamUtil
+					.containsIgnoreCase(task.getDescription(), keyphrase))
+					|| task.getKey().contains(keyphrase.toLowerCase())) {
+				positions.add(i);
+			}
+		}
+		return positions;
+	}
+}
@@ -0,0 +1,147 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+//@author A0096529N
+/**
+ * <p>
+ * Sorted indexes of the tasks of a <b>StreamObject</b> by start time and by
+ * deadline, for filtering tasks by a time range without visiting every task.
+ * </p>
+ *
+ * <p>
+ * Tasks are added and removed by the StreamObject that stores them, and a
+ * task reports changes to its own start time and deadline to the index it was
+ * added to, so the indexes stay up to date whichever way a task is modified.
+ * Tasks without a start time or deadline are not in that index.
+ * </p>
+ *
+ * @version V0.5
+ */
+final class StreamTimeIndex {
+
+	private final TreeMap<Long, List<StreamTask>> startTimes = new TreeMap<Long, List<StreamTask>>();
+	private final TreeMap<Long, List<StreamTask>> deadlines = new TreeMap<Long, List<StreamTask>>();
+	private final Set<StreamTask> members = Collections
+			.newSetFromMap(new IdentityHashMap<StreamTask, Boolean>());
+
+	void add(StreamTask task) {
+		if (task.getTimeIndex() != null && task.getTimeIndex() != this) {
+			task.getTimeIndex().remove(task);
+		}
+		if (members.add(task)) {
+			task.setTimeIndex(this);
+			put(startTimes, task.getStartTimeMillis(), task);
+			put(deadlines, task.getDeadlineMillis(), task);
+		}
+	}
+
+	void remove(StreamTask task) {
+		if (members.remove(task)) {
+			task.setTimeIndex(null);
+			take(startTimes, task.getStartTimeMillis(), task);
+			take(deadlines, task.getDeadlineMillis(), task);
+		}
+	}
+
+	void clear() {
+		for (StreamTask task : members) {
+			task.setTimeIndex(null);
+		}
+		members.clear();
+		startTimes.clear();
+		deadlines.clear();
+	}
+
+	int size() {
+		return members.size();
+	}
+
+	/**
+	 * Moves a task whose start time changed from the previous time.
+	 */
+	void startTimeChanged(StreamTask task, long previous) {
+		if (members.contains(task)) {
+			take(startTimes, previous, task);
+			put(startTimes, task.getStartTimeMillis(), task);
+		}
+	}
+
+	/**
+	 * Moves a task whose deadline changed from the previous time.
+	 */
+	void deadlineChanged(StreamTask task, long previous) {
+		if (members.contains(task)) {
+			take(deadlines, previous, task);
+			put(deadlines, task.getDeadlineMillis(), task);
+		}
+	}
+
+	/**
+	 * Gets the tasks with a start time strictly before or after the given
+	 * time, in order of start time.
+	 */
+	List<StreamTask> findByStartTime(long time, boolean before) {
+		return collect(range(startTimes, time, before));
+	}
+
+	/**
+	 * Gets the tasks with a deadline strictly before or after the given time,
+	 * in order of deadline.
+	 */
+	List<StreamTask> findByDeadline(long time, boolean before) {
+		return collect(range(deadlines, time, before));
+	}
+
+	private static NavigableMap<Long, List<StreamTask>> range(
+			TreeMap<Long, List<StreamTask>> index, long time, boolean before) {
+		return before ? index.headMap(time, false) : index.tailMap(time,
+				false);
+	}
+
+	private static List<StreamTask> collect(
+			NavigableMap<Long, List<StreamTask>> range) {
+		List<StreamTask> tasks = new ArrayList<StreamTask>();
+		for (Map.Entry<Long, List<StreamTask>> entry : range.entrySet()) {
+			tasks.addAll(entry.getValue());
+		}
+		return tasks;
+	}
+
+	private static void put(TreeMap<Long, List<StreamTask>> index,
+			long time, StreamTask task) {
+		if (time == StreamTask.NO_TIME) {
+			return;
+		}
+		List<StreamTask> tasks = index.get(time);
+		if (tasks == null) {
+			tasks = new ArrayList<StreamTask>(1);
+			index.put(time, tasks);
+		}
+		tasks.add(task);
+	}
+
+	private static void take(TreeMap<Long, List<StreamTask>> index,
+			long time, StreamTask task) {
+		List<StreamTask> tasks = index.get(time);
+		if (tasks == null) {
+			return;
+		}
+		for (int i = 0; i < tasks.size(); i++) {
+			if (tasks.get(i) == task) {
+				tasks.remove(i);
+				break;
+			}
+		}
+		if (tasks.isEmpty()) {
+			index.remove(time);
+		}
+	}
+}
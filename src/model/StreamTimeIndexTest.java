@@ -0,0 +1,93 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+
+import logic.StreamLogic;
+
+import org.junit.Before;
+import org.junit.Test;
+
+//@author A0096529N
+public class StreamTimeIndexTest {
+
+	private static final long DAY = 86400000L;
+
+	private StreamObject streamObject;
+	private long now;
+
+	@Before
+	public void setUp() throws Exception {
+		streamObject = StreamObject.getInstance();
+		now = System.currentTimeMillis();
+		for (int i = 0; i < 5; i++) {
+			StreamTask task = new StreamTask("Task " + i);
+			// tasks are due in the reverse of their order
+			task.setDeadlineMillis(now + (5 - i) * DAY);
+			streamObject.put(task.getTaskName(), task);
+		}
+	}
+
+	@Test
+	public void rangeTest() {
+		assertEquals("Due before", Arrays.asList(3, 4),
+				streamObject.findByDeadline(now + 3 * DAY, true));
+		assertEquals("Due after", Arrays.asList(0, 1),
+				streamObject.findByDeadline(now + 3 * DAY, false));
+		assertEquals("No start times", Collections.emptyList(),
+				streamObject.findByStartTime(now, false));
+	}
+
+	@Test
+	public void maintenanceTest() {
+		streamObject.get("Task 0").setDeadlineMillis(now);
+		streamObject.get("Task 1").setStartTime(Calendar.getInstance());
+		streamObject.get("Task 4").setDeadline(null);
+		assertEquals("Modified deadlines", Arrays.asList(0, 3),
+				streamObject.findByDeadline(now + 3 * DAY, true));
+		assertEquals("Modified start time", Arrays.asList(1),
+				streamObject.findByStartTime(now - DAY, false));
+
+		StreamTask renamed = streamObject.get("Task 3");
+		streamObject.remove("Task 3");
+		renamed.setTaskName("Task 3 renamed");
+		streamObject.put("Task 3 renamed", renamed, 0);
+		streamObject.remove("Task 0");
+		assertEquals("After rename and delete", Arrays.asList(0),
+				streamObject.findByDeadline(now + 3 * DAY, true));
+
+		renamed.setDeadlineMillis(now + 10 * DAY);
+		assertEquals("Removed task not indexed", Collections.emptyList(),
+				streamObject.findByDeadline(now + 3 * DAY, true));
+		StreamTask removed = new StreamTask("Removed");
+		streamObject.put("Removed", removed);
+		streamObject.remove("Removed");
+		removed.setDeadlineMillis(now);
+		assertEquals("Removed task stays out", Collections.emptyList(),
+				streamObject.findByDeadline(now + 3 * DAY, true));
+	}
+
+	@Test
+	public void archiveTest() {
+		StreamTask archived = streamObject.get("Task 4");
+		streamObject.archive(Arrays.asList(archived));
+		assertEquals("Archived task not indexed", Arrays.asList(3),
+				streamObject.findByDeadline(now + 3 * DAY, true));
+		assertTrue("Restored", streamObject.restore(archived));
+		assertFalse("Name taken", streamObject.restore(archived.copy()));
+		assertEquals("Restored task indexed", Arrays.asList(3, 4),
+				streamObject.findByDeadline(now + 3 * DAY, true));
+	}
+
+	@Test
+	public void filterTest() throws Exception {
+		StreamLogic streamLogic = StreamLogic.init(streamObject);
+		assertEquals("Due after filter", Arrays.asList(1, 2, 3, 4, 5),
+				streamLogic.filterTasks("due after yesterday"));
+	}
+}
@@ -1,5 +1,6 @@
 package parser;
 
+import model.RankType;
 import util.StreamConstants;
 import util.StreamLogger;
 import util.StreamLogger.LogLevel;
@@ -25,10 +26,6 @@ public class StreamParser {
 		DONE, NOT, OVERDUE, INACTIVE, NULL;
 	}
 
-	public enum RankType {
-		HI, MED, LO, NULL;
-	}
-
 	public enum SortType {
 		ALPHA, START, END, TIME, IMPORTANCE, NULL;
 	}
@@ -447,22 +444,7 @@ public class StreamParser {
 	 * @return <b>RankType</b> - the parsed ranking type
 	 */
 	public static RankType parseRanking(String rankInput) {
-		rankInput = rankInput.toLowerCase();
-		switch (rankInput) {
-			case "high":
-			case "hi":
-			case "h":
-				return RankType.HI;
-			case "medium":
-			case "med":
-			case "m":
-				return RankType.MED;
-			case "low":
-			case "l":
-				return RankType.LO;
-			default:
-				return RankType.NULL;
-		}
+		return RankType.parse(rankInput);
 	}
 
 	/**
@@ -471,16 +453,7 @@ public class StreamParser {
 	 * @return <b>String</b> - the translated ranking type
 	 */
 	public static String translateRanking(RankType parsedRank) {
-		switch (parsedRank) {
-			case HI:
-				return "high";
-			case MED:
-				return "medium";
-			case LO:
-				return "low";
-			default:
-				return null;
-		}
+		return parsedRank.translate();
 	}
 
 	/**
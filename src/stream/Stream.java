@@ -1,20 +1,27 @@
 package stream;
 
 import java.awt.Font;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
 
 import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
 
 import logic.StackLogic;
 import logic.StreamLogic;
 import logic.TaskLogic;
 import model.StreamObject;
+import model.StreamSnapshot;
 import model.StreamTask;
 import parser.StreamParser;
 import parser.StreamParser.CommandType;
+import parser.StreamParser.FilterType;
 import parser.StreamParser.MarkType;
 import parser.StreamParser.SortType;
 import ui.StreamUI;
@@ -26,7 +33,9 @@ import util.StreamUtil;
 import exception.StreamIOException;
 import exception.StreamModificationException;
 import exception.StreamParserException;
+import fileio.StreamBackgroundSaver;
 import fileio.StreamIO;
+import fileio.StreamMappedStore;
 
 /**
  * <b>Stream</b> is the main product of the project. It is the amalgamation of
@@ -44,6 +53,10 @@ public class Stream {
 	StreamLogic streamLogic = StreamLogic.init(streamObject);
 
 	private StreamParser parser;
+	private StreamBackgroundSaver backgroundSaver;
+	private StreamLiveSearch liveSearch;
+	private StreamMappedStore archive;
+	private boolean isSearchingWhileTyping;
 	private StreamLogger logger = StreamLogger
 			.init(StreamConstants.ComponentTag.STREAM);
 
@@ -64,6 +77,33 @@ public class Stream {
 	private void initializeStream() {
 		stui = new StreamUI(this);
 		parser = new StreamParser();
+		backgroundSaver = StreamBackgroundSaver.getInstance();
+		backgroundSaver.setErrorHandler(
+				new StreamBackgroundSaver.SaveErrorHandler() {
+					@Override
+					public void onSaveFailed(final StreamIOException e) {
+						SwingUtilities.invokeLater(new Runnable() {
+							@Override
+							public void run() {
+								showAndLogError(String.format(
+										StreamConstants.LogMessage.SAVE_FAILED,
+										e.getMessage()));
+							}
+						});
+					}
+				});
+		liveSearch = new StreamLiveSearch(streamObject, streamLogic,
+				new StreamLiveSearch.ResultHandler() {
+					@Override
+					public void onSearched(String keyphrase,
+							ArrayList<Integer> indices,
+							ArrayList<StreamTask> tasks) {
+						stui.resetAvailableTasks(indices, tasks, true, true);
+						logger.log(LogLevel.DEBUG, String.format(
+								StreamConstants.LogMessage.LIVE_SEARCH,
+								keyphrase, indices.size()));
+					}
+				});
 	}
 
 	//@author A0093874N
@@ -117,7 +157,8 @@ public class Stream {
 
 	//@author A0096529N
 	private void initStreamIO(String file) {
-		if (!file.endsWith(StreamConstants.SAVEFILE_EXTENSION)) {
+		if (!file.endsWith(StreamConstants.SAVEFILE_EXTENSION)
+				&& !file.endsWith(StreamConstants.BINARY_SAVEFILE_EXTENSION)) {
 			filename = String.format(StreamConstants.SAVEFILE_FORMAT, file);
 		} else {
 			filename = file;
@@ -141,7 +182,147 @@ public class Stream {
 			e.printStackTrace();
 			log(String.format(StreamConstants.LogMessage.LOAD_FAILED,
 					e.getMessage()));
+			return;
 		}
+		archive();
+	}
+
+	/**
+	 * Moves tasks done long ago out of the StreamObject into the archive
+	 * file, and saves the smaller state.
+	 */
+	private void archive() {
+		Lock lock = streamObject.getLock().writeLock();
+		lock.lock();
+		try {
+			List<StreamTask> archived = streamObject.findDoneBefore(StreamIO
+					.getArchiveCutoff());
+			if (!archived.isEmpty()) {
+				closeArchive();
+				StreamIO.archive(archived);
+				streamObject.archive(archived);
+				log(String.format(StreamConstants.LogMessage.ARCHIVED,
+						archived.size()));
+				save();
+			}
+		} catch (StreamIOException e) {
+			log(String.format(StreamConstants.LogMessage.SAVE_FAILED,
+					e.getMessage()));
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the archive of the tasks done long ago, opened on first use and
+	 * read one task at a time.
+	 * 
+	 * @return the archive, or null if no task was archived
+	 */
+	private StreamMappedStore getArchive() throws StreamIOException {
+		if (archive == null) {
+			archive = StreamIO.openArchive();
+		}
+		return archive;
+	}
+
+	private void closeArchive() {
+		if (archive != null) {
+			try {
+				archive.close();
+			} catch (IOException e) {
+				log(String.format(StreamConstants.LogMessage.ERRORS, e
+						.getClass().getSimpleName(), e.getMessage()));
+			}
+			archive = null;
+		}
+	}
+
+	/**
+	 * Gets the number of archived tasks, which are numbered after the live
+	 * tasks.
+	 */
+	private int getNumberOfArchivedTasks() throws StreamIOException {
+		StreamMappedStore store = getArchive();
+		return store == null ? 0 : store.size();
+	}
+
+	/**
+	 * Finds the archived tasks that a search for the key phrase would find,
+	 * reading them one at a time from the archive. Archived tasks whose name
+	 * is used by a live task are left out, the live task taking precedence.
+	 * 
+	 * @param keyphrase
+	 *            the key phrase, or null to find all archived tasks
+	 * @return indices of the archived tasks, numbered after the live tasks
+	 */
+	private ArrayList<Integer> findArchivedTasks(String keyphrase)
+			throws StreamIOException {
+		ArrayList<Integer> indices = new ArrayList<Integer>();
+		StreamMappedStore store = getArchive();
+		if (store == null) {
+			return indices;
+		}
+		int numOfTasks = streamLogic.getNumberOfTasks();
+		String foldedKeyphrase = null;
+		int[] keywordTagIds = null;
+		if (keyphrase != null) {
+			foldedKeyphrase = keyphrase.toLowerCase();
+			keywordTagIds = streamLogic.getKeywordTagIds(keyphrase);
+		}
+		for (int i = 0; i < store.size(); i++) {
+			if (streamLogic.hasTask(store.getTaskName(i))) {
+				continue;
+			}
+			if (keyphrase == null
+					|| streamLogic.isFound(store.getTask(i), foldedKeyphrase,
+							keywordTagIds)) {
+				indices.add(numOfTasks + i + 1);
+			}
+		}
+		return indices;
+	}
+
+	/**
+	 * Gets the tasks at the given indices, live or archived.
+	 */
+	private ArrayList<StreamTask> getStreamTaskList(ArrayList<Integer> indices)
+			throws StreamIOException {
+		int numOfTasks = streamLogic.getNumberOfTasks();
+		ArrayList<Integer> liveIndices = new ArrayList<Integer>();
+		for (Integer index : indices) {
+			if (index <= numOfTasks) {
+				liveIndices.add(index);
+			}
+		}
+		Iterator<StreamTask> liveTasks = streamLogic.getStreamTaskList(
+				liveIndices).iterator();
+		ArrayList<StreamTask> tasks = new ArrayList<StreamTask>();
+		for (Integer index : indices) {
+			tasks.add(index <= numOfTasks ? liveTasks.next() : getArchive()
+					.getTask(index - numOfTasks - 1));
+		}
+		return tasks;
+	}
+
+	/**
+	 * Gets the name of a live task by its index. Archived tasks, numbered
+	 * after the live tasks, can only be marked as ongoing.
+	 * 
+	 * @throws StreamModificationException
+	 *             if the index is that of an archived task
+	 * @throws StreamIOException
+	 *             if the archive could not be read
+	 */
+	private String getTaskName(int taskIndex)
+			throws StreamModificationException, StreamIOException {
+		int numOfTasks = streamLogic.getNumberOfTasks();
+		if (taskIndex > numOfTasks) {
+			throw new StreamModificationException(String.format(
+					StreamConstants.ExceptionMessage.ERR_TASK_ARCHIVED,
+					getArchive().getTaskName(taskIndex - numOfTasks - 1)));
+		}
+		return streamLogic.getTaskNumber(taskIndex);
 	}
 
 	/**
@@ -152,9 +333,8 @@ public class Stream {
 	String save() {
 		String result = null;
 		try {
-			HashMap<String, StreamTask> allTasks = streamObject.getTaskMap();
-			ArrayList<String> taskList = streamObject.getTaskList();
-			StreamIO.save(allTasks, taskList);
+			StreamSnapshot snapshot = streamObject.snapshot();
+			StreamIO.save(snapshot.getTaskMap(), snapshot.getTaskList());
 			result = "File saved to " + StreamIO.getSaveLocation();
 		} catch (StreamIOException e) {
 			e.printStackTrace();
@@ -166,6 +346,36 @@ public class Stream {
 		return result;
 	}
 
+	/**
+	 * Schedules the current StreamObject state to be saved in the background,
+	 * so that input processing does not wait for the disk. Failures are shown
+	 * to the user once the save has been attempted.
+	 */
+	void saveInBackground() {
+		backgroundSaver.save(streamObject.snapshot());
+	}
+
+	/**
+	 * Searches the tasks in the background while the user types a search
+	 * command, showing the tasks found so far. Once the input is no longer a
+	 * search, e.g. when it is erased, all tasks are shown again. Called from
+	 * the Swing thread whenever the console input changes.
+	 * 
+	 * @param input
+	 *            the text in the console
+	 */
+	public void searchWhileTyping(String input) {
+		String keyphrase = StreamLiveSearch.getKeyphrase(input);
+		if (keyphrase != null) {
+			isSearchingWhileTyping = true;
+			liveSearch.search(keyphrase);
+		} else if (isSearchingWhileTyping) {
+			isSearchingWhileTyping = false;
+			liveSearch.cancel();
+			refreshUI(true, false);
+		}
+	}
+
 	//@author A0118007R
 	private void executeInput(CommandType command, Integer index, String content)
 			throws StreamModificationException, StreamIOException {
@@ -374,11 +584,11 @@ public class Stream {
 	 * @return <strong>String</strong> - the log message
 	 */
 	private void executeDelete(Integer taskIndex)
-			throws StreamModificationException {
-		String taskName = streamLogic.getTaskNumber(taskIndex);
+			throws StreamModificationException, StreamIOException {
+		String taskName = getTaskName(taskIndex);
 		assertNotNull(taskName);
 		StreamTask deletedTask = streamLogic.getTask(taskName);
-		ArrayList<String> order = streamLogic.getTaskList();
+		List<String> order = streamLogic.getTaskList();
 
 		assertNotNull(taskName);
 		
@@ -418,8 +628,8 @@ public class Stream {
 	 * @throws StreamModificationException
 	 */
 	private void executeDismiss(Integer taskIndex)
-			throws StreamModificationException {
-		String taskName = streamLogic.getTaskNumber(taskIndex);
+			throws StreamModificationException, StreamIOException {
+		String taskName = getTaskName(taskIndex);
 
 		assertNotNull(taskName);
 		streamLogic.deleteTask(taskName);
@@ -451,8 +661,8 @@ public class Stream {
 	 * @throws StreamModificationException
 	 */
 	private void executeView(Integer taskIndex)
-			throws StreamModificationException {
-		String taskName = streamLogic.getTaskNumber(taskIndex);
+			throws StreamModificationException, StreamIOException {
+		String taskName = getTaskName(taskIndex);
 
 		assertNotNull(taskName);
 		StreamTask currentTask = streamLogic.getTask(taskName);
@@ -475,8 +685,8 @@ public class Stream {
 	 * @return <strong>String</strong> - the log message
 	 */
 	private void executeDescribe(Integer taskIndex, String description)
-			throws StreamModificationException {
-		String taskName = streamLogic.getTaskNumber(taskIndex);
+			throws StreamModificationException, StreamIOException {
+		String taskName = getTaskName(taskIndex);
 		StreamTask currentTask = streamLogic.getTask(taskName);
 		String oldDescription = currentTask.getDescription();
 		currentTask.setDescription(description.equals("null") ? null
@@ -500,8 +710,8 @@ public class Stream {
 	 * @return <strong>String</strong> - the log message
 	 */
 	private void executeRank(Integer taskIndex, String taskRank)
-			throws StreamModificationException {
-		String taskName = streamLogic.getTaskNumber(taskIndex);
+			throws StreamModificationException, StreamIOException {
+		String taskName = getTaskName(taskIndex);
 		taskRank = StreamParser.translateRanking(StreamParser
 				.parseRanking(taskRank));
 		StreamTask currentTask = streamLogic.getTask(taskName);
@@ -526,8 +736,8 @@ public class Stream {
 	 * @return <strong>String</strong> - the log message
 	 */
 	private void executeName(Integer taskIndex, String newTaskName)
-			throws StreamModificationException {
-		String oldTaskName = streamLogic.getTaskNumber(taskIndex);
+			throws StreamModificationException, StreamIOException {
+		String oldTaskName = getTaskName(taskIndex);
 		streamLogic.updateTaskName(oldTaskName, newTaskName);
 		StreamTask task = streamLogic.getTask(newTaskName);
 		stui.setActiveTask(task);
@@ -549,9 +759,9 @@ public class Stream {
 	 * @return <strong>String</strong> - the log message
 	 */
 	private void executeModify(Integer taskIndex, String content)
-			throws StreamModificationException {
+			throws StreamModificationException, StreamIOException {
 		String[] contents = content.split(" ");
-		String taskName = streamLogic.getTaskNumber(taskIndex);
+		String taskName = getTaskName(taskIndex);
 		StreamTask currTask = streamLogic.getTask(taskName);
 
 		String inverseCommand = stackLogic.prepareInverseModifyCommand(
@@ -577,9 +787,9 @@ public class Stream {
 	 * @return <strong>String</strong> - the log message
 	 */
 	private void executeUntag(Integer taskIndex, String content)
-			throws StreamModificationException {
+			throws StreamModificationException, StreamIOException {
 		String[] tags = content.split(" ");
-		String taskName = streamLogic.getTaskNumber(taskIndex);
+		String taskName = getTaskName(taskIndex);
 		StreamTask task = streamLogic.getTask(taskName);
 		ArrayList<String> processedTags = taskLogic.removeTags(task, tags);
 		stackLogic.pushInverseUntagCommand(taskIndex, processedTags);
@@ -597,9 +807,9 @@ public class Stream {
 	 * @return <strong>String</strong> - the log message
 	 */
 	private void executeTag(Integer taskIndex, String content)
-			throws StreamModificationException {
+			throws StreamModificationException, StreamIOException {
 		String[] tags = content.split(" ");
-		String taskName = streamLogic.getTaskNumber(taskIndex);
+		String taskName = getTaskName(taskIndex);
 		StreamTask task = streamLogic.getTask(taskName);
 		ArrayList<String> processedTags = taskLogic.addTags(task, tags);
 		stackLogic.pushInverseAddTagCommand(taskIndex, processedTags);
@@ -666,9 +876,13 @@ public class Stream {
 	 * @throws StreamModificationException
 	 */
 	private void executeMark(Integer taskIndex, String markType)
-			throws StreamModificationException {
-		String taskName = streamLogic.getTaskNumber(taskIndex);
+			throws StreamModificationException, StreamIOException {
 		MarkType parsedMarkType = StreamParser.parseMarking(markType);
+		if (taskIndex > streamLogic.getNumberOfTasks()) {
+			executeMarkArchived(taskIndex, parsedMarkType);
+			return;
+		}
+		String taskName = streamLogic.getTaskNumber(taskIndex);
 		StreamTask task = streamLogic.getTask(taskName);
 		String result = null;
 		result = processMarking(taskIndex, markType, parsedMarkType, task);
@@ -676,6 +890,52 @@ public class Stream {
 		showAndLogResult(result);
 	}
 
+	//@author A0096529N
+	/**
+	 * Moves an archived task back into the live tasks when it is marked as
+	 * ongoing, after the live tasks. The live tasks are saved before the task
+	 * is removed from the archive, so the task cannot be lost.
+	 * 
+	 * @param taskIndex
+	 *            index of the archived task, numbered after the live tasks
+	 * @param parsedMarkType
+	 *            the marking, which must be ongoing
+	 * @throws StreamModificationException
+	 *             if the task is not marked as ongoing, or its name is taken
+	 * @throws StreamIOException
+	 *             if the archive could not be read or written
+	 */
+	private void executeMarkArchived(int taskIndex, MarkType parsedMarkType)
+			throws StreamModificationException, StreamIOException {
+		StreamTask task = getArchive().getTask(
+				taskIndex - streamLogic.getNumberOfTasks() - 1);
+		if (parsedMarkType != MarkType.NOT) {
+			throw new StreamModificationException(String.format(
+					StreamConstants.ExceptionMessage.ERR_TASK_ARCHIVED,
+					task.getTaskName()));
+		}
+		if (!streamObject.restore(task)) {
+			throw new StreamModificationException(String.format(
+					StreamConstants.ExceptionMessage.ERR_TASK_ALREADY_EXISTS,
+					task.getTaskName()));
+		}
+		task.markAsOngoing();
+		stackLogic.pushInverseSetDoneCommand(true,
+				streamLogic.getNumberOfTasks());
+
+		backgroundSaver.flush();
+		StreamSnapshot snapshot = streamObject.snapshot();
+		StreamIO.save(snapshot.getTaskMap(), snapshot.getTaskList());
+		closeArchive();
+		StreamIO.unarchive(task.getTaskName());
+		log(String.format(StreamConstants.LogMessage.ARCHIVE_RESTORED, 1));
+
+		stui.setActiveTask(task);
+		showAndLogResult(String.format(StreamConstants.LogMessage.MARK,
+				task.getTaskName(), "ongoing"));
+	}
+
+	//@author A0118007R
 	private String processMarking(Integer taskIndex, String markType,
 			MarkType parsedMarkType, StreamTask task) {
 		String result;
@@ -699,8 +959,8 @@ public class Stream {
 
 	//@author A0118007R
 	private void executeDue(Integer taskIndex, String content)
-			throws StreamModificationException {
-		String taskName = streamLogic.getTaskNumber(taskIndex);
+			throws StreamModificationException, StreamIOException {
+		String taskName = getTaskName(taskIndex);
 		String result = null;
 		result = processDue(content, taskIndex, taskName);
 		StreamTask task = streamLogic.getTask(taskName);
@@ -723,8 +983,8 @@ public class Stream {
 	}
 
 	private void executeStartTime(Integer taskIndex, String content)
-			throws StreamModificationException {
-		String taskName = streamLogic.getTaskNumber(taskIndex);
+			throws StreamModificationException, StreamIOException {
+		String taskName = getTaskName(taskIndex);
 		String result = processStartTime(content, taskIndex, taskName);
 		StreamTask task = streamLogic.getTask(taskName);
 		stui.setActiveTask(task);
@@ -748,7 +1008,7 @@ public class Stream {
 	//@author A0096529N
 	// updated by A0119401U
 	private void executeSort(String content) {
-		ArrayList<String> oldOrdering = streamLogic.getTaskList();
+		List<String> oldOrdering = streamLogic.getTaskList();
 		stackLogic.pushInverseSortCommand(oldOrdering);
 
 		String result = null;
@@ -801,6 +1061,7 @@ public class Stream {
 
 	private void executeExit() {
 		showAndLogResult(StreamConstants.Message.THANK_YOU);
+		backgroundSaver.flush();
 		save();
 		try {
 			saveLogFile();
@@ -820,14 +1081,42 @@ public class Stream {
 	 * </p>
 	 * 
 	 * <p>
+	 * Key phrases starting with the archive flag also search the archived
+	 * tasks, which are read from the archive and listed after the live tasks
+	 * found.
+	 * </p>
+	 * 
+	 * <p>
 	 * Precondition: keyphrase != null
 	 * </p>
 	 * 
 	 * @return tasks - a list of tasks containing the key phrase.
 	 */
-	private ArrayList<Integer> executeSearch(String content) {
+	private ArrayList<Integer> executeSearch(String content)
+			throws StreamIOException {
 		assertNotNull(content);
-		ArrayList<Integer> searchResult = streamLogic.findTasks(content);
+		boolean isArchiveSearch = content
+				.startsWith(StreamConstants.ARCHIVE_SEARCH_FLAG);
+		if (isArchiveSearch) {
+			content = content.substring(
+					StreamConstants.ARCHIVE_SEARCH_FLAG.length()).trim();
+		}
+		ArrayList<Integer> searchResult;
+		if (content.startsWith(StreamConstants.RANKED_SEARCH_FLAG)) {
+			content = content.substring(
+					StreamConstants.RANKED_SEARCH_FLAG.length()).trim();
+			searchResult = streamLogic.findBestTasks(content,
+					StreamConstants.RANKED_SEARCH_LIMIT);
+		} else if (content.startsWith(StreamConstants.FUZZY_SEARCH_FLAG)) {
+			content = content.substring(
+					StreamConstants.FUZZY_SEARCH_FLAG.length()).trim();
+			searchResult = streamLogic.findSimilarTasks(content);
+		} else {
+			searchResult = streamLogic.findTasks(content);
+		}
+		if (isArchiveSearch) {
+			searchResult.addAll(findArchivedTasks(content));
+		}
 
 		String result = String.format(StreamConstants.LogMessage.SEARCH,
 				content, searchResult.size());
@@ -837,9 +1126,14 @@ public class Stream {
 	}
 
 	//@author A0093874N
-	private ArrayList<Integer> executeFilter(String content) {
+	private ArrayList<Integer> executeFilter(String content)
+			throws StreamIOException {
 		assertNotNull(content);
 		ArrayList<Integer> filterResult = streamLogic.filterTasks(content);
+		if (StreamParser.parseFilterType(content) == FilterType.DONE) {
+			// archived tasks are all done
+			filterResult.addAll(findArchivedTasks(null));
+		}
 
 		String result = String.format(StreamConstants.LogMessage.FILTER,
 				content, filterResult.size());
@@ -962,9 +1256,9 @@ public class Stream {
 	}
 
 	private void refreshUI(ArrayList<Integer> index, boolean isReset,
-			boolean isSearching) {
-		stui.resetAvailableTasks(index, streamLogic.getStreamTaskList(index),
-				isReset, isSearching);
+			boolean isSearching) throws StreamIOException {
+		stui.resetAvailableTasks(index, getStreamTaskList(index), isReset,
+				isSearching);
 	}
 
 	private void logAddedTags(String taskName, ArrayList<String> tagsAdded) {
@@ -1063,7 +1357,9 @@ public class Stream {
 
 	private void executeUserInput(String input) throws StreamParserException,
 			StreamModificationException, StreamIOException {
-		parser.interpretCommand(input, streamLogic.getNumberOfTasks());
+		// archived tasks are numbered after the live tasks
+		parser.interpretCommand(input, streamLogic.getNumberOfTasks()
+				+ getNumberOfArchivedTasks());
 		CommandType command = parser.getCommandType();
 		Integer index = parser.getCommandIndex();
 		String content = parser.getCommandContent();
@@ -1098,11 +1394,21 @@ public class Stream {
 				StreamConstants.Assertion.NULL_INPUT);
 
 		log(StreamUtil.showAsTerminalInput(input));
+		// the entered command shows its own results
+		isSearchingWhileTyping = false;
+		liveSearch.cancel();
 		if (isRestrictedInput(input)) {
 			showAndLogError(StreamConstants.LogMessage.CMD_UNKNOWN);
 		} else {
-			processInput(input);
-			save();
+			// background jobs may modify tasks, but not within a command
+			Lock lock = streamObject.getLock().writeLock();
+			lock.lock();
+			try {
+				processInput(input);
+				saveInBackground();
+			} finally {
+				lock.unlock();
+			}
 		}
 	}
 
@@ -0,0 +1,159 @@
+package stream;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+import javax.swing.SwingUtilities;
+
+import logic.StreamLogic;
+import model.StreamObject;
+import model.StreamSearchResult;
+import model.StreamTask;
+import util.StreamConstants;
+
+//@author A0096529N
+/**
+ * <p>
+ * Searches the tasks while the user types a search command, on a background
+ * thread, so that typing is never blocked by searching.
+ * </p>
+ *
+ * <p>
+ * Searches are debounced: a search only starts once the key phrase has not
+ * changed for a short delay, and the results of a search are dropped if the
+ * key phrase changed while searching. Each search refines the result of the
+ * previous one when the user extended the key phrase, instead of searching
+ * all tasks again. Results are handed over on the Swing thread.
+ * </p>
+ *
+ * @version V0.5
+ */
+class StreamLiveSearch {
+
+	/**
+	 * Receives the results of a search, called from the Swing thread.
+	 */
+	interface ResultHandler {
+		void onSearched(String keyphrase, ArrayList<Integer> indices,
+				ArrayList<StreamTask> tasks);
+	}
+
+	private static final String THREAD_NAME = "stream-live-search";
+	private static final String[] SEARCH_COMMANDS = { "search", "find" };
+
+	private final StreamObject streamObject;
+	private final StreamLogic streamLogic;
+	private final ResultHandler resultHandler;
+	private final ScheduledExecutorService executor;
+	private final AtomicLong generation = new AtomicLong();
+	private ScheduledFuture<?> pendingSearch;
+	// only used by the search thread
+	private StreamSearchResult previousResult;
+
+	StreamLiveSearch(StreamObject streamObject, StreamLogic streamLogic,
+			ResultHandler resultHandler) {
+		this.streamObject = streamObject;
+		this.streamLogic = streamLogic;
+		this.resultHandler = resultHandler;
+		this.executor = Executors
+				.newSingleThreadScheduledExecutor(new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, THREAD_NAME);
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+	}
+
+	/**
+	 * Gets the key phrase of a search command being typed, if it can be
+	 * searched while typing. Searches of the archive are not, since they
+	 * read the archive file, and neither are ranked or fuzzy searches.
+	 *
+	 * @param input
+	 *            the text in the console
+	 * @return the key phrase, or null if the input is not such a search
+	 */
+	static String getKeyphrase(String input) {
+		String[] contents = input.trim().split(" ", 2);
+		if (contents.length < 2 || contents[1].isEmpty()
+				|| contents[1].startsWith(StreamConstants.ARCHIVE_SEARCH_FLAG)
+				|| contents[1].startsWith(StreamConstants.RANKED_SEARCH_FLAG)
+				|| contents[1].startsWith(StreamConstants.FUZZY_SEARCH_FLAG)) {
+			return null;
+		}
+		for (String command : SEARCH_COMMANDS) {
+			if (command.equalsIgnoreCase(contents[0])) {
+				return contents[1];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Schedules a search for the key phrase after the debounce delay,
+	 * cancelling the search of the previous key phrase if not yet started.
+	 *
+	 * @param keyphrase
+	 *            the key phrase typed so far
+	 */
+	synchronized void search(final String keyphrase) {
+		final long searchGeneration = generation.incrementAndGet();
+		if (pendingSearch != null) {
+			pendingSearch.cancel(false);
+		}
+		pendingSearch = executor.schedule(new Runnable() {
+			@Override
+			public void run() {
+				runSearch(keyphrase, searchGeneration);
+			}
+		}, StreamConstants.LIVE_SEARCH_DELAY, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Cancels the pending search, and drops the results of a search in
+	 * progress, e.g. once the command is entered.
+	 */
+	synchronized void cancel() {
+		generation.incrementAndGet();
+		if (pendingSearch != null) {
+			pendingSearch.cancel(false);
+			pendingSearch = null;
+		}
+	}
+
+	private void runSearch(final String keyphrase, final long searchGeneration) {
+		if (searchGeneration != generation.get()) {
+			return;
+		}
+		final ArrayList<Integer> indices = new ArrayList<Integer>();
+		final ArrayList<StreamTask> tasks;
+		// positions and tasks must agree, so no command runs in between
+		Lock lock = streamObject.getLock().readLock();
+		lock.lock();
+		try {
+			previousResult = streamLogic.searchTasks(keyphrase, previousResult);
+			for (int position : previousResult.getPositions()) {
+				indices.add(position + 1);
+			}
+			tasks = streamLogic.getStreamTaskList(indices);
+		} finally {
+			lock.unlock();
+		}
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				if (searchGeneration == generation.get()) {
+					resultHandler.onSearched(keyphrase, indices, tasks);
+				}
+			}
+		});
+	}
+}
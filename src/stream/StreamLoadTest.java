@@ -10,6 +10,7 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 
 import model.StreamTask;
 
@@ -112,7 +113,7 @@ public class StreamLoadTest {
 	}
 
 	// @author A0096529N
-	private String serializeTaskMap(HashMap<String, StreamTask> taskMap) {
+	private String serializeTaskMap(Map<String, StreamTask> taskMap) {
 		JSONObject taskMapJson = new JSONObject(taskMap);
 		return taskMapJson.toString();
 	}
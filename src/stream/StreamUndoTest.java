@@ -7,6 +7,7 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.After;
 import org.junit.Before;
@@ -56,7 +57,7 @@ public class StreamUndoTest {
 		st.filterAndProcessInput(input);
 	}
 
-	public Boolean compare(ArrayList<String> actual, String[] expected) {
+	public Boolean compare(List<String> actual, String[] expected) {
 		if (actual.size() != expected.length) {
 			return false;
 		} else {
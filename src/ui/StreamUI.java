@@ -87,6 +87,8 @@ public class StreamUI {
 		addConsole();
 		addAutocomplete();
 		empowerConsole(new StreamUIConsoleEnterAction(stream, console));
+		console.getDocument().addDocumentListener(
+				new StreamUIConsoleLiveSearch(stream, console));
 		addLogger();
 		addKeyboardShortcuts();
 		addNavigShortcuts();
@@ -204,7 +206,7 @@ public class StreamUI {
 						"start (index) (time): Set the start time for a task based on index number");
 		helpTexts
 				.put("search",
-						"search (keyphrase): Searches tasks by its name, description, or tags");
+						"search [-best|-fuzzy] (keyphrase): Searches tasks by its name, description, or tags; -best shows the most relevant first, -fuzzy tolerates typos");
 		helpTexts.put("delete", "delete (index): Delete based on index number");
 		helpTexts.put("del", "del (index): Delete based on index number");
 
@@ -0,0 +1,42 @@
+package ui;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+import stream.Stream;
+
+//@author A0096529N
+
+/**
+ * <p>
+ * The listener invoked upon every change of the text in console. It fires the
+ * text to be searched while typing, for search commands.
+ * </p>
+ * 
+ * @version V0.5
+ */
+public class StreamUIConsoleLiveSearch implements DocumentListener {
+
+	private Stream stream;
+	private StreamUIConsole console;
+
+	@Override
+	public void insertUpdate(DocumentEvent e) {
+		stream.searchWhileTyping(console.getText());
+	}
+
+	@Override
+	public void removeUpdate(DocumentEvent e) {
+		stream.searchWhileTyping(console.getText());
+	}
+
+	@Override
+	public void changedUpdate(DocumentEvent e) {
+	}
+
+	StreamUIConsoleLiveSearch(Stream st, StreamUIConsole cons) {
+		this.stream = st;
+		this.console = cons;
+	}
+
+}
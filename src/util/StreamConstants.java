@@ -19,6 +19,22 @@ public class StreamConstants {
 	public static final String SAVEFILE_EXTENSION = ".json";
 	public static final String SAVEFILE_FORMAT = "%1$s" + SAVEFILE_EXTENSION;
 	public static final String LOGFILE_FORMAT = "%1$s.txt";
+	public static final String BINARY_SAVEFILE_EXTENSION = ".sdb";
+	public static final String JOURNAL_EXTENSION = ".journal";
+	public static final String TEMP_EXTENSION = ".tmp";
+	public static final int SAVE_GENERATIONS = 3;
+	public static final long JOURNAL_COMPACT_THRESHOLD = 256 * 1024;
+	public static final int MAPPED_STORE_CACHE_SIZE = 256;
+	public static final int PARALLEL_LOAD_THRESHOLD = 512;
+	public static final int PARALLEL_LOAD_BATCH = 4 * PARALLEL_LOAD_THRESHOLD;
+	public static final int PARALLEL_LOAD_BATCHES_IN_FLIGHT = 3;
+	public static final String ARCHIVE_EXTENSION = ".archive";
+	public static final String ARCHIVE_SEARCH_FLAG = "-archive";
+	public static final String RANKED_SEARCH_FLAG = "-best";
+	public static final int RANKED_SEARCH_LIMIT = 50;
+	public static final String FUZZY_SEARCH_FLAG = "-fuzzy";
+	public static final int ARCHIVE_AGE_DAYS = 30;
+	public static final long LIVE_SEARCH_DELAY = 150;
 	public static final String DATE_DELIMITER = "/";
 	public static final String TIME_DELIMITER = ":";
 	public static final String PREFIX_INPUT = "<< ";
@@ -72,9 +88,12 @@ public class StreamConstants {
 		public static final String TAGS_REMOVED = "Tags removed from \"%1$s\": %2$s";
 		public static final String NO_TAGS_REMOVED = "No tags removed";
 		public static final String SEARCH = "Searching for \"%1$s\", %2$s queries found";
+		public static final String LIVE_SEARCH = "Searched while typing \"%1$s\", %2$s queries found";
 		public static final String FILTER = "Filtering for tasks \"%1$s\", %2$s queries found";
 		public static final String LOAD_FAILED = "Load from file failed, %1$s";
 		public static final String SAVE_FAILED = "Save to file failed, %1$s";
+		public static final String ARCHIVED = "Archived %1$s done task(s)";
+		public static final String ARCHIVE_RESTORED = "Restored %1$s archived task(s)";
 		public static final String MODIFY = "Modified %1$s";
 		public static final String NEW_MODIFICATION = "Modify \"%1$s\" attribute \"%2$s\" contents \"%3$s\"";
 		public static final String UI_LOOKANDFEEL_FAIL = "Could not set look and feel";
@@ -173,6 +192,7 @@ public class StreamConstants {
 		public static final String ERR_TASK_ALREADY_EXISTS = "\"%1$s\" already exists in the tasks list.";
 		public static final String ERR_TASK_DOES_NOT_EXIST = "The task \"%1$s\" does not exist.";
 		public static final String ERR_NEW_TASK_NAME_NOT_AVAILABLE = "The name \"%1$s\" is not available.";
+		public static final String ERR_TASK_ARCHIVED = "The task \"%1$s\" is archived, mark it as ongoing to restore it.";
 		public static final String ERR_CREATEFILE = "Test file could not be created "
 				+ "- %1$s\nDelete the file if already present.";
 		public static final String ERR_TASK_MODIFICATION = "Could not modify file: %1$s";
@@ -0,0 +1,359 @@
+package util;
+
+import java.text.ParseException;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+//@author A0096529N
+/**
+ * <p>
+ * Immutable, thread-safe formatter and parser for fixed-width numeric date
+ * patterns, producing the same text as <b>SimpleDateFormat</b> for the
+ * patterns used by Stream. Unlike SimpleDateFormat, one instance can be shared
+ * by concurrent loaders and loggers, and no Calendar is created per call.
+ * </p>
+ *
+ * <p>
+ * Patterns may contain <i>yyyy</i>, <i>MM</i>, <i>dd</i>, <i>HH</i>,
+ * <i>mm</i>, <i>ss</i> and literal characters other than letters. Dates are
+ * in the proleptic Gregorian calendar, in the default time zone at the time
+ * the codec was created.
+ * </p>
+ *
+ * <h3>API</h3>
+ * <ul>
+ * <li>StreamDateCodec.STORAGE, StreamDateCodec.LOG, StreamDateCodec.DATE</li>
+ * <li>format(long millis), format(Date date), format(Calendar calendar)</li>
+ * <li>parse(String text), parseCalendar(String text)</li>
+ * </ul>
+ *
+ * @version V0.5
+ */
+public final class StreamDateCodec {
+
+	private static final long MILLIS_PER_SECOND = 1000L;
+	private static final long MILLIS_PER_DAY = 86400000L;
+	private static final int YEAR = 0;
+	private static final int MONTH = 1;
+	private static final int DAY = 2;
+	private static final int HOUR = 3;
+	private static final int MINUTE = 4;
+	private static final int SECOND = 5;
+	private static final int LITERAL = -1;
+	private static final String FIELD_LETTERS = "yMdHms";
+	private static final int[] FIELD_WIDTHS = { 4, 2, 2, 2, 2, 2 };
+
+	/** Format of dates in the storage file */
+	public static final StreamDateCodec STORAGE = new StreamDateCodec(
+			"yyyyMMddHHmmss");
+	/** Format of timestamps in the log */
+	public static final StreamDateCodec LOG = new StreamDateCodec(
+			"yyyy-MM-dd HH:mm:ss");
+	/** Format of dates in file names */
+	public static final StreamDateCodec DATE = new StreamDateCodec("yyyyMMdd");
+
+	private final String pattern;
+	private final int[] fields;
+	private final char[] literals;
+	private final int length;
+	private final TimeZone timeZone;
+
+	/**
+	 * Compiles the given pattern, for the default time zone.
+	 *
+	 * @param pattern
+	 *            the date pattern
+	 * @throws IllegalArgumentException
+	 *             if the pattern contains unsupported fields
+	 */
+	public StreamDateCodec(String pattern) {
+		this(pattern, TimeZone.getDefault());
+	}
+
+	/**
+	 * Compiles the given pattern, for the given time zone.
+	 *
+	 * @param pattern
+	 *            the date pattern
+	 * @param timeZone
+	 *            the time zone of formatted and parsed dates
+	 * @throws IllegalArgumentException
+	 *             if the pattern contains unsupported fields
+	 */
+	public StreamDateCodec(String pattern, TimeZone timeZone) {
+		this.pattern = pattern;
+		this.timeZone = (TimeZone) timeZone.clone();
+		this.fields = new int[pattern.length()];
+		this.literals = new char[pattern.length()];
+		int segments = 0;
+		int position = 0;
+		while (position < pattern.length()) {
+			char c = pattern.charAt(position);
+			int field = FIELD_LETTERS.indexOf(c);
+			if (field >= 0) {
+				int width = FIELD_WIDTHS[field];
+				if (!pattern.startsWith(repeat(c, width), position)
+						|| pattern.startsWith(repeat(c, width + 1), position)) {
+					throw new IllegalArgumentException("Unsupported pattern "
+							+ pattern);
+				}
+				fields[segments++] = field;
+				position += width;
+			} else if (Character.isLetter(c)) {
+				throw new IllegalArgumentException("Unsupported pattern "
+						+ pattern);
+			} else {
+				literals[segments] = c;
+				fields[segments++] = LITERAL;
+				position++;
+			}
+		}
+		this.length = pattern.length();
+	}
+
+	/**
+	 * Formats the given instant.
+	 *
+	 * @param millis
+	 *            milliseconds since the epoch
+	 * @return the formatted date
+	 */
+	public String format(long millis) {
+		long localMillis = millis + timeZone.getOffset(millis);
+		long epochDay = floorDiv(localMillis, MILLIS_PER_DAY);
+		int secondOfDay = (int) ((localMillis - epochDay * MILLIS_PER_DAY) / MILLIS_PER_SECOND);
+
+		// civil date from days since the epoch, in 400-year eras
+		long shiftedDay = epochDay + 719468;
+		long era = floorDiv(shiftedDay, 146097);
+		int dayOfEra = (int) (shiftedDay - era * 146097);
+		int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		int monthIndex = (5 * dayOfYear + 2) / 153;
+		int day = dayOfYear - (153 * monthIndex + 2) / 5 + 1;
+		int month = monthIndex < 10 ? monthIndex + 3 : monthIndex - 9;
+		long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+		if (year < 0 || year > 9999) {
+			return formatWide(year, month, day, secondOfDay);
+		}
+		char[] text = new char[length];
+		int position = 0;
+		for (int i = 0; position < length; i++) {
+			switch (fields[i]) {
+				case YEAR:
+					position = writeDigits(text, position, (int) year, 4);
+					break;
+				case MONTH:
+					position = writeDigits(text, position, month, 2);
+					break;
+				case DAY:
+					position = writeDigits(text, position, day, 2);
+					break;
+				case HOUR:
+					position = writeDigits(text, position, secondOfDay / 3600, 2);
+					break;
+				case MINUTE:
+					position = writeDigits(text, position,
+							secondOfDay / 60 % 60, 2);
+					break;
+				case SECOND:
+					position = writeDigits(text, position, secondOfDay % 60, 2);
+					break;
+				default:
+					text[position++] = literals[i];
+			}
+		}
+		return new String(text);
+	}
+
+	/**
+	 * Formats the given date.
+	 *
+	 * @param date
+	 *            the date to be formatted
+	 * @return the formatted date
+	 */
+	public String format(Date date) {
+		return format(date.getTime());
+	}
+
+	/**
+	 * Formats the instant of the given calendar.
+	 *
+	 * @param calendar
+	 *            the calendar to be formatted
+	 * @return the formatted date
+	 */
+	public String format(Calendar calendar) {
+		return format(calendar.getTimeInMillis());
+	}
+
+	/**
+	 * Parses text in the pattern of this codec.
+	 *
+	 * @param text
+	 *            the text to be parsed
+	 * @return milliseconds since the epoch
+	 * @throws ParseException
+	 *             if the text does not match the pattern or is not a valid
+	 *             date
+	 */
+	public long parse(String text) throws ParseException {
+		if (text.length() != length) {
+			throw new ParseException("Unparseable date: \"" + text + "\"",
+					Math.min(text.length(), length));
+		}
+		int year = 1970;
+		int month = 1;
+		int day = 1;
+		int hour = 0;
+		int minute = 0;
+		int second = 0;
+		int position = 0;
+		for (int i = 0; position < length; i++) {
+			int field = fields[i];
+			if (field == LITERAL) {
+				if (text.charAt(position) != literals[i]) {
+					throw unparseable(text, position);
+				}
+				position++;
+				continue;
+			}
+			int value = readDigits(text, position, FIELD_WIDTHS[field]);
+			switch (field) {
+				case YEAR:
+					year = value;
+					break;
+				case MONTH:
+					month = value;
+					break;
+				case DAY:
+					day = value;
+					break;
+				case HOUR:
+					hour = value;
+					break;
+				case MINUTE:
+					minute = value;
+					break;
+				default:
+					second = value;
+			}
+			position += FIELD_WIDTHS[field];
+		}
+		if (month < 1 || month > 12 || day < 1
+				|| day > daysInMonth(year, month) || hour > 23 || minute > 59
+				|| second > 59) {
+			throw unparseable(text, 0);
+		}
+
+		long localMillis = epochDay(year, month, day) * MILLIS_PER_DAY
+				+ ((hour * 60L + minute) * 60L + second) * MILLIS_PER_SECOND;
+		long millis = localMillis - timeZone.getRawOffset();
+		millis = localMillis - timeZone.getOffset(millis);
+		return localMillis - timeZone.getOffset(millis);
+	}
+
+	/**
+	 * Parses text in the pattern of this codec into a calendar.
+	 *
+	 * @param text
+	 *            the text to be parsed, may be null
+	 * @return the calendar, or null if the text is null
+	 * @throws ParseException
+	 *             if the text does not match the pattern or is not a valid
+	 *             date
+	 */
+	public Calendar parseCalendar(String text) throws ParseException {
+		if (text == null) {
+			return null;
+		}
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTimeInMillis(parse(text));
+		return calendar;
+	}
+
+	@Override
+	public String toString() {
+		return pattern;
+	}
+
+	private String formatWide(long year, int month, int day, int secondOfDay) {
+		String text = pattern;
+		text = text.replace("yyyy", String.format("%04d", year));
+		text = text.replace("MM", String.format("%02d", month));
+		text = text.replace("dd", String.format("%02d", day));
+		text = text.replace("HH", String.format("%02d", secondOfDay / 3600));
+		text = text.replace("mm", String.format("%02d", secondOfDay / 60 % 60));
+		return text.replace("ss", String.format("%02d", secondOfDay % 60));
+	}
+
+	private static int writeDigits(char[] text, int position, int value,
+			int width) {
+		for (int i = position + width - 1; i >= position; i--) {
+			text[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+		return position + width;
+	}
+
+	private static int readDigits(String text, int position, int width)
+			throws ParseException {
+		int value = 0;
+		for (int i = position; i < position + width; i++) {
+			char c = text.charAt(i);
+			if (c < '0' || c > '9') {
+				throw unparseable(text, i);
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	private static long epochDay(int year, int month, int day) {
+		int shiftedYear = month <= 2 ? year - 1 : year;
+		int era = (int) floorDiv(shiftedYear, 400);
+		int yearOfEra = shiftedYear - era * 400;
+		int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5
+				+ day - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100
+				+ dayOfYear;
+		return era * 146097L + dayOfEra - 719468;
+	}
+
+	private static long floorDiv(long dividend, long divisor) {
+		long quotient = dividend / divisor;
+		return (dividend % divisor < 0) ? quotient - 1 : quotient;
+	}
+
+	private static int daysInMonth(int year, int month) {
+		switch (month) {
+			case 2:
+				boolean isLeap = (year % 4 == 0 && year % 100 != 0)
+						|| year % 400 == 0;
+				return isLeap ? 29 : 28;
+			case 4:
+			case 6:
+			case 9:
+			case 11:
+				return 30;
+			default:
+				return 31;
+		}
+	}
+
+	private static ParseException unparseable(String text, int position) {
+		return new ParseException("Unparseable date: \"" + text + "\"",
+				position);
+	}
+
+	private static String repeat(char c, int count) {
+		char[] chars = new char[count];
+		for (int i = 0; i < count; i++) {
+			chars[i] = c;
+		}
+		return new String(chars);
+	}
+}
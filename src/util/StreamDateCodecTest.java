@@ -0,0 +1,151 @@
+package util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+//@author A0096529N
+public class StreamDateCodecTest {
+
+	private static final String[] PATTERNS = { "yyyyMMddHHmmss",
+			"yyyy-MM-dd HH:mm:ss", "yyyyMMdd" };
+	private static final String[] TIME_ZONES = { "UTC", "Asia/Singapore",
+			"America/New_York", "Australia/Lord_Howe" };
+	private static final long MIN_MILLIS = -2208988800000L; // 1900
+	private static final long MAX_MILLIS = 4102444800000L; // 2100
+
+	@Test
+	public void formatLikeSimpleDateFormatTest() {
+		Random random = new Random(2103);
+		for (String timeZoneId : TIME_ZONES) {
+			TimeZone timeZone = TimeZone.getTimeZone(timeZoneId);
+			for (String pattern : PATTERNS) {
+				StreamDateCodec codec = new StreamDateCodec(pattern, timeZone);
+				SimpleDateFormat reference = createReference(pattern, timeZone);
+				for (int i = 0; i < 2000; i++) {
+					long millis = MIN_MILLIS
+							+ (long) (random.nextDouble() * (MAX_MILLIS - MIN_MILLIS));
+					assertEquals(pattern + " in " + timeZoneId,
+							reference.format(millis), codec.format(millis));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void parseLikeSimpleDateFormatTest() throws Exception {
+		Random random = new Random(2014);
+		for (String timeZoneId : TIME_ZONES) {
+			TimeZone timeZone = TimeZone.getTimeZone(timeZoneId);
+			StreamDateCodec codec = new StreamDateCodec("yyyyMMddHHmmss",
+					timeZone);
+			SimpleDateFormat reference = createReference("yyyyMMddHHmmss",
+					timeZone);
+			for (int i = 0; i < 2000; i++) {
+				long millis = MIN_MILLIS
+						+ (long) (random.nextDouble() * (MAX_MILLIS - MIN_MILLIS));
+				String text = reference.format(millis);
+				assertEquals("Parse " + text + " in " + timeZoneId, reference
+						.parse(text).getTime(), codec.parse(text));
+			}
+		}
+	}
+
+	@Test
+	public void leapDayTest() throws Exception {
+		StreamDateCodec codec = new StreamDateCodec("yyyyMMdd",
+				TimeZone.getTimeZone("UTC"));
+		assertEquals("Leap day 2000", "20000229",
+				codec.format(codec.parse("20000229")));
+		assertUnparseable(codec, "19000229");
+		assertUnparseable(codec, "20410431");
+	}
+
+	@Test
+	public void unparseableTest() {
+		assertUnparseable(StreamDateCodec.STORAGE, "2041071900000");
+		assertUnparseable(StreamDateCodec.STORAGE, "20411319000000");
+		assertUnparseable(StreamDateCodec.STORAGE, "2041071900000x");
+		assertUnparseable(StreamDateCodec.LOG, "2041-07-19T00:00:00");
+	}
+
+	@Test
+	public void unsupportedPatternTest() {
+		try {
+			new StreamDateCodec("dd MMM yyyy");
+			fail("Unsupported pattern compiled");
+		} catch (IllegalArgumentException e) {
+			assertTrue("Pattern rejected", e.getMessage().contains("MMM"));
+		}
+	}
+
+	@Test
+	public void concurrentUseTest() throws Exception {
+		final StreamDateCodec codec = new StreamDateCodec("yyyyMMddHHmmss",
+				TimeZone.getTimeZone("UTC"));
+		final SimpleDateFormat reference = createReference("yyyyMMddHHmmss",
+				TimeZone.getTimeZone("UTC"));
+		final List<String> failures = new ArrayList<String>();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < 4; t++) {
+			final long seed = t;
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					Random random = new Random(seed);
+					for (int i = 0; i < 5000; i++) {
+						long millis = (random.nextLong() >>> 24) / 1000 * 1000;
+						try {
+							String text = codec.format(millis);
+							if (codec.parse(text) != millis) {
+								synchronized (failures) {
+									failures.add(text);
+								}
+							}
+						} catch (ParseException e) {
+							synchronized (failures) {
+								failures.add(e.getMessage());
+							}
+						}
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals("Concurrent round trips", new ArrayList<String>(),
+				failures);
+		assertEquals("Reference unchanged", reference.format(0L),
+				codec.format(0L));
+	}
+
+	private void assertUnparseable(StreamDateCodec codec, String text) {
+		try {
+			codec.parse(text);
+			fail("Parsed " + text);
+		} catch (ParseException e) {
+			assertTrue("Unparseable " + text,
+					e.getMessage().contains(text));
+		}
+	}
+
+	private SimpleDateFormat createReference(String pattern, TimeZone timeZone) {
+		SimpleDateFormat reference = new SimpleDateFormat(pattern,
+				Locale.ENGLISH);
+		reference.setTimeZone(timeZone);
+		return reference;
+	}
+}
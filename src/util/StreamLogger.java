@@ -1,10 +1,7 @@
 package util;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 
 //@author A0096529N
 /**
@@ -34,8 +31,6 @@ import java.util.Locale;
  * @version V0.5
  */
 public class StreamLogger {
-	private static SimpleDateFormat format = new SimpleDateFormat(
-			"yyyy-MM-dd HH:mm:ss", Locale.ENGLISH);
 	private String componentName;
 	private static final List<String> logStack = new ArrayList<String>();
 	private static final String LOG_FORMAT = "%1$s %2$s [%3$s] %4$s";
@@ -66,9 +61,10 @@ public class StreamLogger {
 	 *            the log message to be logged
 	 */
 	public void log(LogLevel logLevel, String message) {
+		String logMessage = String.format(LOG_FORMAT, getDate(),
+				getLevel(logLevel), componentName.toUpperCase(), message);
 		synchronized (logStack) {
-			logStack.add(String.format(LOG_FORMAT, getDate(),
-					getLevel(logLevel), componentName.toUpperCase(), message));
+			logStack.add(logMessage);
 		}
 	}
 
@@ -82,7 +78,7 @@ public class StreamLogger {
 	}
 
 	private static String getDate() {
-		return format.format(new Date());
+		return StreamDateCodec.LOG.format(System.currentTimeMillis());
 	}
 
 	private static String getLevel(LogLevel logLevel) {
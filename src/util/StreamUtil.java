@@ -1,7 +1,5 @@
 package util;
 
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
 import java.util.List;
@@ -33,7 +31,7 @@ public class StreamUtil {
 	 *            - the connector character
 	 * @return <b>String</b> - the listed down array contents
 	 */
-	public static String listDownArrayContent(ArrayList<String> array,
+	public static String listDownArrayContent(List<String> array,
 			String connector) {
 		String result = "";
 		for (String str : array) {
@@ -64,7 +62,7 @@ public class StreamUtil {
 	 *            - array of tags
 	 * @return <b>String</b> - the listed down tags
 	 */
-	public static String displayTags(ArrayList<String> tags) {
+	public static String displayTags(List<String> tags) {
 		if (tags.size() == 0) {
 			return "no tags added";
 		} else {
@@ -145,6 +143,28 @@ public class StreamUtil {
 		return true;
 	}
 
+	//@author A0096529N
+	/**
+	 * Checks whether <i>text</i> contains <i>phrase</i>, ignoring case,
+	 * without allocating folded copies of either.
+	 * 
+	 * @param text
+	 *            - the text to be searched
+	 * @param phrase
+	 *            - the phrase to search for
+	 * @return <b>boolean</b> - true if the phrase occurs in the text
+	 */
+	public static boolean containsIgnoreCase(String text, String phrase) {
+		int last = text.length() - phrase.length();
+		for (int i = 0; i <= last; i++) {
+			if (text.regionMatches(true, i, phrase, 0, phrase.length())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	//@author A0093874N
 	/**
 	 * Checks two calendars <i>startTime</i> and <i>endTime</i>, formats them
 	 * when applicable, and present to user accordingly depending on the
@@ -233,16 +253,13 @@ public class StreamUtil {
 
 	//@author A0096529N
 
-	public static final SimpleDateFormat cleanDateFormat = new SimpleDateFormat(
-			"yyyyMMdd");
-
 	/**
 	 * Converts a <i>calendar</i> to simple date format yyyyMMdd.
 	 * 
 	 * @return <b>String</b> - the parsed calendar
 	 */
 	public static String getDateString(Calendar calendar) {
-		return cleanDateFormat.format(calendar.getTime());
+		return StreamDateCodec.DATE.format(calendar);
 	}
 
 	//@author A0118007R
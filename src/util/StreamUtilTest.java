@@ -41,6 +41,18 @@ public class StreamUtilTest {
 		assertEquals(status, "ongoing");
 	}
 	
+	//@author A0096529N
+	//Tests for containsIgnoreCase
+	@Test
+	public void containsIgnoreCaseTest() {
+		assertTrue(StreamUtil.containsIgnoreCase("Find Pandora's Box", "pandora"));
+		assertTrue(StreamUtil.containsIgnoreCase("Find Pandora's Box", "BOX"));
+		assertTrue(StreamUtil.containsIgnoreCase("Find", ""));
+		assertFalse(StreamUtil.containsIgnoreCase("Find", "finder"));
+		assertFalse(StreamUtil.containsIgnoreCase("Find Pandora's Box", "panda"));
+	}
+	
+	//@author A0118007R
 	//Tests parseWithChronic
 	@Test
 	public void parseWithChronicTest1() {